@@ -0,0 +1,190 @@
+package com.github.games647.craftapi.benchmark;
+
+import com.github.games647.craftapi.cache.Cache;
+import com.github.games647.craftapi.cache.MemoryCache;
+import com.github.games647.craftapi.cache.OffHeapCache;
+import com.github.games647.craftapi.cache.caffeine.CaffeineCache;
+import com.github.games647.craftapi.model.Profile;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the cache implementations on a skewed join workload. The keys follow a Zipf distribution over a key space
+ * larger than the cache, so a miss adds the profile like the resolver would after a lookup. The hit and miss counters
+ * show the effect of the eviction policy next to the throughput. The warmup is longer than in the other suites,
+ * because the adaptive policy of Caffeine needs a few million operations to settle.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 3)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheComparisonBenchmark {
+
+    private static final int SAMPLES = 1 << 16;
+
+    @Param({"memory", "caffeine", "offheap"})
+    private String implementation;
+
+    @Param("100000")
+    private int keySpace;
+
+    @Param("10000")
+    private int size;
+
+    @Param("1.0")
+    private double skew;
+
+    private Cache cache;
+    private Profile[] profiles;
+    private String[] lookupNames;
+    private int[] samples;
+
+    @Setup
+    public void setUp() {
+        if ("caffeine".equals(implementation)) {
+            cache = new CaffeineCache(Duration.ofHours(1), size, Duration.ofHours(1), size);
+        } else if ("offheap".equals(implementation)) {
+            cache = new OffHeapCache(size, Duration.ofHours(1));
+        } else {
+            cache = new MemoryCache(Duration.ofHours(1), size, Duration.ofHours(1), size);
+        }
+
+        profiles = new Profile[keySpace];
+        lookupNames = new String[keySpace];
+        for (int i = 0; i < keySpace; i++) {
+            profiles[i] = new Profile(UUID.randomUUID(), "Player" + i);
+            lookupNames[i] = profiles[i].getName().toUpperCase();
+        }
+
+        samples = zipf(keySpace, skew, SAMPLES, 1);
+    }
+
+    /**
+     * Draws ranks between 0 (most popular) and keys - 1 with a probability proportional to 1 / (rank + 1)^skew.
+     */
+    private static int[] zipf(int keys, double skew, int count, long seed) {
+        double[] cumulative = new double[keys];
+        double sum = 0;
+        for (int rank = 0; rank < keys; rank++) {
+            sum += 1 / Math.pow(rank + 1, skew);
+            cumulative[rank] = sum;
+        }
+
+        Random random = new Random(seed);
+        int[] result = new int[count];
+        for (int i = 0; i < count; i++) {
+            double target = random.nextDouble() * sum;
+
+            int low = 0;
+            int high = keys - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (cumulative[mid] < target) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+
+            result[i] = low;
+        }
+
+        // the popular keys shouldn't be the first inserted ones
+        int[] permutation = new int[keys];
+        for (int i = 0; i < keys; i++) {
+            permutation[i] = i;
+        }
+
+        for (int i = keys - 1; i > 0; i--) {
+            int other = random.nextInt(i + 1);
+            int tmp = permutation[i];
+            permutation[i] = permutation[other];
+            permutation[other] = tmp;
+        }
+
+        for (int i = 0; i < count; i++) {
+            result[i] = permutation[result[i]];
+        }
+
+        return result;
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Counters {
+
+        public long hits;
+        public long misses;
+
+        private int index;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            hits = 0;
+            misses = 0;
+        }
+
+        int next(int[] samples) {
+            index = (index + 1) & (samples.length - 1);
+            return samples[index];
+        }
+    }
+
+    @Benchmark
+    public Optional<Profile> getByName(Counters counters) {
+        int key = counters.next(samples);
+        return lookup(counters, key, cache.getByName(lookupNames[key]));
+    }
+
+    @Benchmark
+    public Optional<Profile> getById(Counters counters) {
+        int key = counters.next(samples);
+        return lookup(counters, key, cache.getById(profiles[key].getId()));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Optional<Profile> getByNameContended(Counters counters) {
+        int key = counters.next(samples);
+        return lookup(counters, key, cache.getByName(lookupNames[key]));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Optional<Profile> getByIdContended(Counters counters) {
+        int key = counters.next(samples);
+        return lookup(counters, key, cache.getById(profiles[key].getId()));
+    }
+
+    private Optional<Profile> lookup(Counters counters, int key, Optional<Profile> result) {
+        if (result.isPresent()) {
+            counters.hits++;
+        } else {
+            counters.misses++;
+            cache.add(profiles[key]);
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,97 @@
+package com.github.games647.craftapi.benchmark;
+
+import com.github.games647.craftapi.cache.MemoryCache;
+import com.github.games647.craftapi.model.Profile;
+import com.github.games647.craftapi.resolver.MojangResolver;
+import com.github.games647.craftapi.resolver.Options;
+import com.github.games647.craftapi.resolver.RateLimitException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Name lookups that hit the cache, like chat mentions and tab completions. The gc.alloc.rate.norm column of the GC
+ * profiler should be 0 B/op for both benchmarks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheHitBenchmark {
+
+    @Param("10000")
+    private int size;
+
+    private MemoryCache cache;
+    private MojangResolver resolver;
+    private String[] lookupNames;
+
+    private int index;
+
+    @Setup
+    public void setUp() {
+        // Guava limits the size per segment - leave enough room that no entry is evicted
+        cache = new MemoryCache(Duration.ofHours(1), size * 2, Duration.ofHours(1), size);
+
+        lookupNames = new String[size];
+        for (int i = 0; i < size; i++) {
+            Profile profile = new Profile(UUID.randomUUID(), "Player" + i);
+            cache.add(profile);
+
+            // mixed case - the lookup has to ignore it without creating a lower case copy
+            lookupNames[i] = "pLAYER" + i;
+        }
+
+        for (String name : lookupNames) {
+            if (!cache.getByName(name).isPresent()) {
+                throw new IllegalStateException("Profile was evicted " + name);
+            }
+        }
+
+        Options options = new Options();
+        options.setCache(cache);
+        resolver = new MojangResolver(options);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        resolver.close();
+    }
+
+    private String nextName() {
+        index++;
+        if (index >= size) {
+            index = 0;
+        }
+
+        return lookupNames[index];
+    }
+
+    @Benchmark
+    public Optional<Profile> getByName() {
+        return cache.getByName(nextName());
+    }
+
+    @Benchmark
+    public Optional<Profile> findProfile() throws IOException, RateLimitException {
+        return resolver.findProfile(nextName());
+    }
+}
@@ -0,0 +1,117 @@
+package com.github.games647.craftapi.benchmark;
+
+import com.github.games647.craftapi.cache.Cache;
+import com.github.games647.craftapi.cache.MemoryCache;
+import com.github.games647.craftapi.model.Profile;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lookups and insertions of the default cache implementation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MemoryCacheBenchmark {
+
+    @Param("10000")
+    private int size;
+
+    private Cache cache;
+    private Profile[] profiles;
+    private String[] lookupNames;
+    private String[] missingNames;
+
+    @Setup
+    public void setUp() {
+        cache = new MemoryCache(Duration.ofHours(1), size, Duration.ofHours(1), size);
+
+        profiles = new Profile[size];
+        lookupNames = new String[size];
+        missingNames = new String[size];
+        for (int i = 0; i < size; i++) {
+            profiles[i] = new Profile(UUID.randomUUID(), "Player" + i);
+            cache.add(profiles[i]);
+
+            // upper case to include the case-insensitive lookup
+            lookupNames[i] = profiles[i].getName().toUpperCase();
+            missingNames[i] = "Missing" + i;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int index;
+
+        int next(int size) {
+            index++;
+            if (index >= size) {
+                index = 0;
+            }
+
+            return index;
+        }
+    }
+
+    @Benchmark
+    public Optional<Profile> getByNameHit(Cursor cursor) {
+        return cache.getByName(lookupNames[cursor.next(size)]);
+    }
+
+    @Benchmark
+    public Optional<Profile> getByNameMiss(Cursor cursor) {
+        return cache.getByName(missingNames[cursor.next(size)]);
+    }
+
+    @Benchmark
+    public Optional<Profile> getByIdHit(Cursor cursor) {
+        return cache.getById(profiles[cursor.next(size)].getId());
+    }
+
+    @Benchmark
+    public void add(Cursor cursor) {
+        cache.add(profiles[cursor.next(size)]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Optional<Profile> getByNameHitContended(Cursor cursor) {
+        return cache.getByName(lookupNames[cursor.next(size)]);
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(3)
+    public Optional<Profile> readWriteRead(Cursor cursor) {
+        return cache.getByName(lookupNames[cursor.next(size)]);
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public void readWriteWrite(Cursor cursor) {
+        cache.add(profiles[cursor.next(size)]);
+    }
+}
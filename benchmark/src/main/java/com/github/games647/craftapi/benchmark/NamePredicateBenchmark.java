@@ -0,0 +1,55 @@
+package com.github.games647.craftapi.benchmark;
+
+import com.github.games647.craftapi.NamePredicate;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Player name validation that runs before every name lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NamePredicateBenchmark {
+
+    private final NamePredicate predicate = new NamePredicate();
+
+    private final String validName = "games647";
+    private final String invalidName = "games647!";
+    private final String tooLongName = "games647games647games647";
+
+    @Benchmark
+    public boolean valid() {
+        return predicate.test(validName);
+    }
+
+    @Benchmark
+    public boolean invalid() {
+        return predicate.test(invalidName);
+    }
+
+    @Benchmark
+    public boolean tooLong() {
+        return predicate.test(tooLongName);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean validContended() {
+        return predicate.test(validName);
+    }
+}
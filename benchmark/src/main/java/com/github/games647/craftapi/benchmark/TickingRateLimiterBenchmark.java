@@ -0,0 +1,65 @@
+package com.github.games647.craftapi.benchmark;
+
+import com.github.games647.craftapi.resolver.ratelimiter.RateLimiter;
+import com.github.games647.craftapi.resolver.ratelimiter.TickingRateLimiter;
+import com.google.common.base.Ticker;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Request budget checks in front of every name lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TickingRateLimiterBenchmark {
+
+    private RateLimiter grantingLimiter;
+    private RateLimiter denyingLimiter;
+
+    @Setup
+    public void setUp() {
+        long expireTime = TimeUnit.MINUTES.toMillis(10);
+        grantingLimiter = new TickingRateLimiter(Ticker.systemTicker(), Integer.MAX_VALUE, expireTime);
+
+        denyingLimiter = new TickingRateLimiter(Ticker.systemTicker(), 1, expireTime);
+        denyingLimiter.tryAcquire();
+    }
+
+    @Benchmark
+    public boolean granted() {
+        return grantingLimiter.tryAcquire();
+    }
+
+    @Benchmark
+    public boolean denied() {
+        return denyingLimiter.tryAcquire();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean grantedContended() {
+        return grantingLimiter.tryAcquire();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean deniedContended() {
+        return denyingLimiter.tryAcquire();
+    }
+}
@@ -0,0 +1,75 @@
+package com.github.games647.craftapi.benchmark;
+
+import com.github.games647.craftapi.UUIDAdapter;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * FastUUID based parsing and formatting of {@link UUIDAdapter} compared to the JDK implementation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UUIDBenchmark {
+
+    private final UUID uuid = UUID.fromString("0aaa2c13-922a-411b-b655-9b8c08404695");
+    private final String dashed = uuid.toString();
+    private final String undashed = "0aaa2c13922a411bb6559b8c08404695";
+
+    @Benchmark
+    public UUID parseUndashed() {
+        return UUIDAdapter.parseId(undashed);
+    }
+
+    @Benchmark
+    public UUID parseDashed() {
+        return UUIDAdapter.parseDashedId(dashed);
+    }
+
+    @Benchmark
+    public UUID parseDashedJdk() {
+        return UUID.fromString(dashed);
+    }
+
+    @Benchmark
+    public String toMojangId() {
+        return UUIDAdapter.toMojangId(uuid);
+    }
+
+    @Benchmark
+    public String toStringDashed() {
+        return UUIDAdapter.toString(uuid);
+    }
+
+    @Benchmark
+    public String toStringJdk() {
+        return uuid.toString();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public UUID parseUndashedContended() {
+        return UUIDAdapter.parseId(undashed);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String toMojangIdContended() {
+        return UUIDAdapter.toMojangId(uuid);
+    }
+}
@@ -0,0 +1,66 @@
+package com.github.games647.craftapi.benchmark.load;
+
+import java.util.Random;
+
+/**
+ * Distribution of artificial response delays.
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+    /**
+     * @param random random source of the caller
+     * @return delay in milliseconds
+     */
+    long sampleMillis(Random random);
+
+    /**
+     * @param millis constant delay
+     * @return distribution that always returns the same delay
+     */
+    static LatencyDistribution fixed(long millis) {
+        return random -> millis;
+    }
+
+    /**
+     * @param minMillis lowest delay (inclusive)
+     * @param maxMillis highest delay (exclusive)
+     * @return uniformly distributed delays
+     */
+    static LatencyDistribution uniform(long minMillis, long maxMillis) {
+        long range = Math.max(1, maxMillis - minMillis);
+        return random -> minMillis + (long) (random.nextDouble() * range);
+    }
+
+    /**
+     * Log-normal delays that have a long tail like real network latencies.
+     *
+     * @param medianMillis median delay
+     * @param sigma spread - 0.5 is moderate while 1 has a heavy tail
+     * @return log-normal distributed delays
+     */
+    static LatencyDistribution logNormal(double medianMillis, double sigma) {
+        double mu = Math.log(medianMillis);
+        return random -> Math.round(Math.exp(mu + sigma * random.nextGaussian()));
+    }
+
+    /**
+     * Parses distributions in the format fixed:MS, uniform:MIN:MAX or lognormal:MEDIAN:SIGMA.
+     *
+     * @param spec distribution specification
+     * @return parsed distribution
+     */
+    static LatencyDistribution parse(String spec) {
+        String[] parts = spec.split(":");
+        switch (parts[0]) {
+            case "fixed":
+                return fixed(Long.parseLong(parts[1]));
+            case "uniform":
+                return uniform(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+            case "lognormal":
+                return logNormal(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]));
+            default:
+                throw new IllegalArgumentException("Unknown latency distribution " + spec);
+        }
+    }
+}
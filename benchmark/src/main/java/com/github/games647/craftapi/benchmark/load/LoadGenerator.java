@@ -0,0 +1,251 @@
+package com.github.games647.craftapi.benchmark.load;
+
+import com.github.games647.craftapi.benchmark.load.LoginTrace.Entry;
+import com.github.games647.craftapi.benchmark.load.LoginTrace.Operation;
+import com.github.games647.craftapi.UUIDAdapter;
+import com.github.games647.craftapi.metrics.LatencyHistogram;
+import com.github.games647.craftapi.resolver.MojangResolver;
+import com.github.games647.craftapi.resolver.Options;
+import com.github.games647.craftapi.resolver.http.DirectTransport;
+import com.github.games647.craftapi.resolver.http.FaultInjectingTransport;
+import com.github.games647.craftapi.resolver.http.FaultProfile;
+import com.github.games647.craftapi.resolver.http.RecordingTransport;
+import com.github.games647.craftapi.resolver.http.ReplayTransport;
+import com.github.games647.craftapi.resolver.http.TrafficLog;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Replays a login trace against a {@link MojangResolver} and reports throughput and latency percentiles. Latencies
+ * are measured from the scheduled start of an operation, so delays of the generator itself are included instead of
+ * hidden (coordinated omission).
+ * <p>
+ * Without --url it starts a {@link MojangStubServer} on a local port. With --record all exchanges are written to a
+ * traffic file. --replay runs the operations of such a file offline against the recorded responses. --fault injects
+ * one of the {@link FaultProfile} presets (slow, flaky, storm) between the resolver and the server.
+ * <pre>
+ * java -cp benchmarks.jar com.github.games647.craftapi.benchmark.load.LoadGenerator
+ *     [--trace FILE | --replay FILE | --players 10000 --duration 60000 --seed 1] [--speed 1] [--threads 64]
+ *     [--url URL] [--record FILE] [--latency lognormal:80:0.5] [--rate-limit-probability 0.01] [--premium 70]
+ *     [--skin-size 300] [--fault flaky --fault-seed 1]
+ * </pre>
+ */
+public class LoadGenerator {
+
+    private final MojangResolver resolver;
+    private final int threads;
+
+    private final Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private final Map<String, LongAdder> errorTypes = new ConcurrentHashMap<>();
+
+    public LoadGenerator(MojangResolver resolver, int threads) {
+        this.resolver = resolver;
+        this.threads = threads;
+
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new LatencyHistogram(TimeUnit.MINUTES.toNanos(5)));
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> arguments = parseArguments(args);
+
+        double speed = Double.parseDouble(arguments.getOrDefault("speed", "1"));
+        int threads = Integer.parseInt(arguments.getOrDefault("threads", "64"));
+
+        LoginTrace trace;
+        if (arguments.containsKey("replay")) {
+            Path traffic = Paths.get(arguments.get("replay"));
+            trace = LoginTrace.fromTraffic(TrafficLog.readAll(traffic));
+
+            Options options = new Options();
+            options.setMaxNameRequests(Integer.MAX_VALUE);
+            options.setTransport(new ReplayTransport(traffic, speed));
+            injectFaults(options, arguments);
+            run(options, trace, speed, threads);
+            return;
+        } else if (arguments.containsKey("trace")) {
+            trace = LoginTrace.load(Paths.get(arguments.get("trace")));
+        } else {
+            int players = Integer.parseInt(arguments.getOrDefault("players", "10000"));
+            long duration = Long.parseLong(arguments.getOrDefault("duration", "60000"));
+            long seed = Long.parseLong(arguments.getOrDefault("seed", "1"));
+            trace = LoginTrace.generateStorm(players, duration, seed);
+        }
+
+        if (arguments.containsKey("save-trace")) {
+            Path target = Paths.get(arguments.get("save-trace"));
+            trace.save(target);
+        }
+
+        try (MojangStubServer server = new MojangStubServer()) {
+            String baseUrl = arguments.get("url");
+            if (baseUrl == null) {
+                server.setLatency(LatencyDistribution.parse(arguments.getOrDefault("latency", "lognormal:80:0.5")));
+                server.setRateLimitProbability(Double.parseDouble(
+                        arguments.getOrDefault("rate-limit-probability", "0")));
+                server.setPremiumPercent(Integer.parseInt(arguments.getOrDefault("premium", "70")));
+                server.setSkinPayloadSize(Integer.parseInt(arguments.getOrDefault("skin-size", "300")));
+                server.start();
+                baseUrl = server.getBaseUrl();
+            }
+
+            Options options = createOptions(baseUrl);
+            if (arguments.containsKey("record")) {
+                Path target = Paths.get(arguments.get("record"));
+                try (RecordingTransport recorder = new RecordingTransport(new DirectTransport(), target)) {
+                    options.setTransport(recorder);
+                    injectFaults(options, arguments);
+                    run(options, trace, speed, threads);
+                }
+            } else {
+                injectFaults(options, arguments);
+                run(options, trace, speed, threads);
+            }
+
+            if (arguments.get("url") == null) {
+                System.out.println("Stub requests: " + server.getRequests() + " (429: " + server.getRateLimited() + ')');
+            }
+        }
+    }
+
+    private static void injectFaults(Options options, Map<String, String> arguments) {
+        String profileName = arguments.get("fault");
+        if (profileName == null) {
+            return;
+        }
+
+        FaultProfile profile = FaultProfile.byName(profileName);
+        long seed = Long.parseLong(arguments.getOrDefault("fault-seed", "1"));
+        options.setTransport(new FaultInjectingTransport(options.getTransport(), profile, seed));
+    }
+
+    private static void run(Options options, LoginTrace trace, double speed, int threads)
+            throws IOException, InterruptedException {
+        try (MojangResolver resolver = new MojangResolver(options)) {
+            LoadGenerator generator = new LoadGenerator(resolver, threads);
+            long wallNanos = generator.replay(trace, speed);
+            generator.printReport(trace.getEntries().size(), wallNanos);
+        }
+    }
+
+    /**
+     * @param baseUrl base URL for all Mojang endpoints
+     * @return resolver options without request budgets that would hide the server behavior
+     */
+    public static Options createOptions(String baseUrl) {
+        Options options = new Options();
+        options.setApiUrl(baseUrl);
+        options.setServicesUrl(baseUrl);
+        options.setSessionServerUrl(baseUrl);
+        options.setMaxNameRequests(Integer.MAX_VALUE);
+        return options;
+    }
+
+    /**
+     * Replays the trace and blocks until all operations completed.
+     *
+     * @param trace the operations to run
+     * @param speed time compression factor - 2 replays the trace in half of the time
+     * @return wall clock duration in nanoseconds
+     * @throws InterruptedException interrupted while waiting
+     */
+    public long replay(LoginTrace trace, double speed) throws InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        for (Entry entry : trace.getEntries()) {
+            long scheduled = start + (long) (TimeUnit.MILLISECONDS.toNanos(entry.getOffsetMillis()) / speed);
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+
+            workers.execute(() -> run(entry, scheduled));
+        }
+
+        workers.shutdown();
+        workers.awaitTermination(1, TimeUnit.HOURS);
+        return System.nanoTime() - start;
+    }
+
+    private void run(Entry entry, long scheduledNanos) {
+        Operation operation = entry.getOperation();
+        try {
+            switch (operation) {
+                case JOIN:
+                    resolver.hasJoined(entry.getName(), entry.getServerHash(), null);
+                    break;
+                case PROFILE:
+                    resolver.findProfile(entry.getName());
+                    break;
+                case SKIN:
+                    resolver.downloadSkin(skinId(entry.getName()));
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown operation " + operation);
+            }
+        } catch (Exception ex) {
+            errors.get(operation).increment();
+            errorTypes.computeIfAbsent(ex.getClass().getSimpleName() + ": " + ex.getMessage(),
+                    type -> new LongAdder()).increment();
+        } finally {
+            latencies.get(operation).record(System.nanoTime() - scheduledNanos);
+        }
+    }
+
+    private void printReport(int operations, long wallNanos) {
+        double seconds = wallNanos / 1_000_000_000.0;
+        System.out.printf("Operations: %d in %.2f s (%.1f ops/s)%n", operations, seconds, operations / seconds);
+        System.out.printf("%-8s %8s %8s %10s %10s %10s %10s%n", "op", "count", "errors", "p50 ms", "p99 ms",
+                "p999 ms", "max ms");
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram histogram = latencies.get(operation);
+            System.out.printf("%-8s %8d %8d %10.2f %10.2f %10.2f %10.2f%n", operation, histogram.getCount(),
+                    errors.get(operation).sum(),
+                    toMillis(histogram.getValueAtPercentile(50)),
+                    toMillis(histogram.getValueAtPercentile(99)),
+                    toMillis(histogram.getValueAtPercentile(99.9)),
+                    toMillis(histogram.getMax()));
+        }
+
+        errorTypes.forEach((type, count) -> System.out.println("Error " + type + ": " + count.sum()));
+    }
+
+    private static UUID skinId(String nameOrId) {
+        if (nameOrId.length() == 32) {
+            return UUIDAdapter.parseId(nameOrId);
+        }
+
+        return MojangStubServer.premiumId(nameOrId);
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static Map<String, String> parseArguments(String[] args) {
+        Map<String, String> arguments = new HashMap<>();
+        for (int i = 0; i < args.length - 1; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected option instead of " + args[i]);
+            }
+
+            arguments.put(args[i].substring(2), args[i + 1]);
+        }
+
+        return arguments;
+    }
+}
@@ -0,0 +1,226 @@
+package com.github.games647.craftapi.benchmark.load;
+
+import com.github.games647.craftapi.resolver.http.TrafficRecord;
+import com.google.common.collect.ImmutableList;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Time ordered list of resolver operations. Traces are stored as CSV lines in the format
+ * {@code offsetMillis,operation,name[,serverHash]}. Skin entries can contain the undashed UUID instead of a name.
+ */
+public class LoginTrace {
+
+    /**
+     * Resolver operation of a trace entry.
+     */
+    public enum Operation {
+
+        /**
+         * Session server verification using hasJoined
+         */
+        JOIN,
+
+        /**
+         * Name to UUID lookup using findProfile
+         */
+        PROFILE,
+
+        /**
+         * Skin download of the premium UUID of the name
+         */
+        SKIN
+    }
+
+    private final ImmutableList<Entry> entries;
+
+    public LoginTrace(List<Entry> entries) {
+        List<Entry> sorted = new ArrayList<>(entries);
+        sorted.sort(Comparator.comparingLong(Entry::getOffsetMillis));
+        this.entries = ImmutableList.copyOf(sorted);
+    }
+
+    /**
+     * @param file CSV trace file
+     * @return parsed trace
+     * @throws IOException failed to read the file
+     */
+    public static LoginTrace load(Path file) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+
+                String[] parts = line.split(",");
+                String serverHash = parts.length > 3 ? parts[3].trim() : Entry.DEFAULT_SERVER_HASH;
+                entries.add(new Entry(Long.parseLong(parts[0].trim()), Operation.valueOf(parts[1].trim()),
+                        parts[2].trim(), serverHash));
+            }
+        }
+
+        return new LoginTrace(entries);
+    }
+
+    /**
+     * Converts recorded traffic into the resolver operations that caused it.
+     *
+     * @param records recorded traffic in recording order
+     * @return trace with the offsets relative to the first record
+     */
+    public static LoginTrace fromTraffic(List<TrafficRecord> records) {
+        List<Entry> entries = new ArrayList<>();
+        if (records.isEmpty()) {
+            return new LoginTrace(entries);
+        }
+
+        long firstMicros = records.get(0).getStartMicros();
+        for (TrafficRecord record : records) {
+            long offset = (record.getStartMicros() - firstMicros) / 1_000;
+
+            URI uri = URI.create(record.getUri());
+            String path = uri.getPath();
+            String lastSegment = path.substring(path.lastIndexOf('/') + 1);
+            if (path.startsWith("/users/profiles/minecraft/") || path.startsWith("/minecraft/profile/lookup/name/")) {
+                entries.add(new Entry(offset, Operation.PROFILE, lastSegment));
+            } else if (path.startsWith("/session/minecraft/hasJoined")) {
+                String name = queryParameter(uri, "username");
+                String serverHash = queryParameter(uri, "serverId");
+                entries.add(new Entry(offset, Operation.JOIN, name, serverHash));
+            } else if (path.startsWith("/session/minecraft/profile/")) {
+                entries.add(new Entry(offset, Operation.SKIN, lastSegment));
+            }
+        }
+
+        return new LoginTrace(entries);
+    }
+
+    /**
+     * Generates a login storm like after a proxy restart. Most players join within the first part of the duration
+     * and each join is followed by a skin download and sometimes by name lookups of other players.
+     *
+     * @param players number of distinct players
+     * @param durationMillis duration of the storm
+     * @param seed random seed for reproducible traces
+     * @return generated trace
+     */
+    public static LoginTrace generateStorm(int players, long durationMillis, long seed) {
+        Random random = new Random(seed);
+        List<Entry> entries = new ArrayList<>();
+        for (int i = 0; i < players; i++) {
+            String name = "Player" + i;
+
+            // squared to crowd the joins at the beginning
+            double position = random.nextDouble();
+            long joinTime = (long) (position * position * durationMillis);
+            entries.add(new Entry(joinTime, Operation.JOIN, name));
+            entries.add(new Entry(joinTime + 50, Operation.SKIN, name));
+
+            // chat mentions and commands looking up other players - often the same popular ones
+            int lookups = random.nextInt(4);
+            for (int j = 0; j < lookups; j++) {
+                int target = (int) (Math.abs(random.nextGaussian()) * players / 10) % players;
+                long offset = joinTime + random.nextInt(10_000);
+                entries.add(new Entry(offset, Operation.PROFILE, "Player" + target));
+            }
+        }
+
+        return new LoginTrace(entries);
+    }
+
+    /**
+     * @param file target CSV file
+     * @throws IOException failed to write the file
+     */
+    public void save(Path file) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (Entry entry : entries) {
+                writer.write(entry.offsetMillis + "," + entry.operation + ',' + entry.name + ','
+                        + entry.serverHash + '\n');
+            }
+        }
+    }
+
+    public ImmutableList<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * @return offset of the last entry
+     */
+    public long getDurationMillis() {
+        if (entries.isEmpty()) {
+            return 0;
+        }
+
+        return entries.get(entries.size() - 1).offsetMillis;
+    }
+
+    private static String queryParameter(URI uri, String key) {
+        String query = uri.getQuery();
+        if (query == null) {
+            return null;
+        }
+
+        for (String parameter : query.split("&")) {
+            int separator = parameter.indexOf('=');
+            if (separator > 0 && parameter.substring(0, separator).equals(key)) {
+                return parameter.substring(separator + 1);
+            }
+        }
+
+        return null;
+    }
+
+    public static class Entry {
+
+        static final String DEFAULT_SERVER_HASH = "serverHash";
+
+        private final long offsetMillis;
+        private final Operation operation;
+        private final String name;
+        private final String serverHash;
+
+        public Entry(long offsetMillis, Operation operation, String name, String serverHash) {
+            this.offsetMillis = offsetMillis;
+            this.operation = operation;
+            this.name = name;
+            this.serverHash = serverHash;
+        }
+
+        public Entry(long offsetMillis, Operation operation, String name) {
+            this(offsetMillis, operation, name, DEFAULT_SERVER_HASH);
+        }
+
+        public long getOffsetMillis() {
+            return offsetMillis;
+        }
+
+        public Operation getOperation() {
+            return operation;
+        }
+
+        /**
+         * @return player name or the undashed UUID for skin downloads
+         */
+        public String getName() {
+            return name;
+        }
+
+        public String getServerHash() {
+            return serverHash;
+        }
+    }
+}
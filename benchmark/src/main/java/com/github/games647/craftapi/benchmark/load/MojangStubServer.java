@@ -0,0 +1,289 @@
+package com.github.games647.craftapi.benchmark.load;
+
+import com.github.games647.craftapi.UUIDAdapter;
+import com.github.games647.craftapi.resolver.ratelimiter.RateLimiter;
+import com.github.games647.craftapi.resolver.ratelimiter.TickingRateLimiter;
+import com.google.common.base.Ticker;
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local HTTP server imitating the Mojang endpoints used by the resolver. Whether a name is premium and the UUID of
+ * premium names are derived from the name, so a load generator can predict the responses.
+ */
+public class MojangStubServer implements Closeable {
+
+    private static final int RATE_LIMIT_CODE = 429;
+    private static final int NO_CONTENT_CODE = 204;
+
+    private final Gson gson = new Gson();
+
+    private LatencyDistribution latency = LatencyDistribution.fixed(0);
+    private double rateLimitProbability;
+    private RateLimiter profileLimiter = () -> true;
+    private int premiumPercent = 70;
+    private int skinPayloadSize = 300;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * @param name player name
+     * @return the UUID the stub uses for this name if it's premium
+     */
+    public static UUID premiumId(String name) {
+        return UUID.nameUUIDFromBytes(("Premium:" + name.toLowerCase()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Starts the server on a free local port.
+     *
+     * @throws IOException failed to bind the port
+     */
+    public void start() throws IOException {
+        executor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+
+        server.createContext("/users/profiles/minecraft/", exchange -> handle(exchange, this::profile));
+        server.createContext("/minecraft/profile/lookup/name/", exchange -> handle(exchange, this::profile));
+        server.createContext("/profiles/minecraft", exchange -> handle(exchange, this::bulkProfiles));
+        server.createContext("/session/minecraft/hasJoined", exchange -> handle(exchange, this::hasJoined));
+        server.createContext("/session/minecraft/profile/", exchange -> handle(exchange, this::skin));
+        server.start();
+    }
+
+    /**
+     * @return base URL that can be used for all URL settings of the resolver options
+     */
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getRateLimited() {
+        return rateLimited.get();
+    }
+
+    /**
+     * @param latency delay before every response
+     */
+    public void setLatency(LatencyDistribution latency) {
+        this.latency = latency;
+    }
+
+    /**
+     * @param rateLimitProbability probability between 0 and 1 that any request is answered with 429
+     */
+    public void setRateLimitProbability(double rateLimitProbability) {
+        this.rateLimitProbability = rateLimitProbability;
+    }
+
+    /**
+     * Limits name lookups like Mojang does. Requests above the limit are answered with 429.
+     *
+     * @param requests maximum number of name lookups within the window
+     * @param window time window
+     */
+    public void setProfileRateLimit(int requests, Duration window) {
+        this.profileLimiter = new TickingRateLimiter(Ticker.systemTicker(), requests, window.toMillis());
+    }
+
+    /**
+     * @param premiumPercent share of names between 0 and 100 that are premium
+     */
+    public void setPremiumPercent(int premiumPercent) {
+        this.premiumPercent = premiumPercent;
+    }
+
+    /**
+     * @param skinPayloadSize approximate size of the decoded skin value in bytes
+     */
+    public void setSkinPayloadSize(int skinPayloadSize) {
+        this.skinPayloadSize = skinPayloadSize;
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    private boolean isPremium(String name) {
+        return Math.floorMod(name.toLowerCase().hashCode(), 100) < premiumPercent;
+    }
+
+    private Response profile(HttpExchange exchange) {
+        if (!profileLimiter.tryAcquire()) {
+            return new Response(RATE_LIMIT_CODE, "");
+        }
+
+        String path = exchange.getRequestURI().getPath();
+        String name = path.substring(path.lastIndexOf('/') + 1);
+        if (!isPremium(name)) {
+            return new Response(NO_CONTENT_CODE, "");
+        }
+
+        return new Response(200, profileJson(name));
+    }
+
+    private Response bulkProfiles(HttpExchange exchange) throws IOException {
+        String[] names;
+        try (Reader reader = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
+            names = gson.fromJson(reader, String[].class);
+        }
+
+        if (!profileLimiter.tryAcquire()) {
+            return new Response(RATE_LIMIT_CODE, "");
+        }
+
+        StringBuilder builder = new StringBuilder("[");
+        for (String name : names) {
+            if (isPremium(name)) {
+                if (builder.length() > 1) {
+                    builder.append(',');
+                }
+
+                builder.append(profileJson(name));
+            }
+        }
+
+        return new Response(200, builder.append(']').toString());
+    }
+
+    private Response hasJoined(HttpExchange exchange) {
+        String name = queryParameter(exchange.getRequestURI(), "username");
+        if (name == null || !isPremium(name)) {
+            return new Response(NO_CONTENT_CODE, "");
+        }
+
+        return new Response(200, texturesJson(premiumId(name), name));
+    }
+
+    private Response skin(HttpExchange exchange) {
+        String path = exchange.getRequestURI().getPath();
+        UUID uuid = UUIDAdapter.parseId(path.substring(path.lastIndexOf('/') + 1));
+        return new Response(200, texturesJson(uuid, "Player"));
+    }
+
+    private String profileJson(String name) {
+        return "{\"id\":\"" + UUIDAdapter.toMojangId(premiumId(name)) + "\",\"name\":\"" + name + "\"}";
+    }
+
+    private String texturesJson(UUID uuid, String name) {
+        Random random = ThreadLocalRandom.current();
+
+        byte[] padding = new byte[Math.max(0, skinPayloadSize - 200)];
+        Arrays.fill(padding, (byte) 'a');
+        String skinJson = "{\"timestamp\":" + System.currentTimeMillis()
+                + ",\"profileId\":\"" + UUIDAdapter.toMojangId(uuid) + "\",\"profileName\":\"" + name + "\""
+                + ",\"signatureRequired\":true,\"textures\":{\"SKIN\":{\"url\":\"http://textures.minecraft.net/"
+                + "texture/" + new String(padding, StandardCharsets.US_ASCII) + "\"}}}";
+
+        byte[] signature = new byte[512];
+        random.nextBytes(signature);
+
+        Base64.Encoder encoder = Base64.getEncoder();
+        return "{\"id\":\"" + UUIDAdapter.toMojangId(uuid) + "\",\"name\":\"" + name + "\",\"properties\":[{"
+                + "\"name\":\"textures\",\"value\":\""
+                + encoder.encodeToString(skinJson.getBytes(StandardCharsets.UTF_8)) + "\",\"signature\":\""
+                + encoder.encodeToString(signature) + "\"}]}";
+    }
+
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        requests.incrementAndGet();
+        try {
+            Random random = ThreadLocalRandom.current();
+            long delay = latency.sampleMillis(random);
+            if (delay > 0) {
+                Thread.sleep(delay);
+            }
+
+            Response response;
+            if (random.nextDouble() < rateLimitProbability) {
+                response = new Response(RATE_LIMIT_CODE, "");
+            } else {
+                response = handler.handle(exchange);
+            }
+
+            if (response.code == RATE_LIMIT_CODE) {
+                rateLimited.incrementAndGet();
+            }
+
+            byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            if (body.length == 0) {
+                exchange.sendResponseHeaders(response.code, -1);
+            } else {
+                exchange.sendResponseHeaders(response.code, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        } catch (InterruptedException interruptedEx) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static String queryParameter(URI uri, String key) {
+        String query = uri.getQuery();
+        if (query == null) {
+            return null;
+        }
+
+        for (String parameter : query.split("&")) {
+            int separator = parameter.indexOf('=');
+            if (separator > 0 && parameter.substring(0, separator).equals(key)) {
+                return parameter.substring(separator + 1);
+            }
+        }
+
+        return null;
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+
+        Response handle(HttpExchange exchange) throws IOException;
+    }
+
+    private static class Response {
+
+        private final int code;
+        private final String body;
+
+        Response(int code, String body) {
+            this.code = code;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.github.games647.craftapi.cache.caffeine;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.games647.craftapi.cache.Cache;
+import com.github.games647.craftapi.metrics.CacheType;
+import com.github.games647.craftapi.metrics.Metrics;
+import com.github.games647.craftapi.metrics.NoopMetrics;
+import com.github.games647.craftapi.model.Profile;
+import com.github.games647.craftapi.model.skin.SkinProperty;
+import com.google.common.collect.ImmutableSet;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Cache for the skins and profiles backed by Caffeine. Compared to the Guava based
+ * {@link com.github.games647.craftapi.cache.MemoryCache} reads don't lock and the W-TinyLFU eviction policy keeps
+ * frequently joining players cached, even if a lot of one-time names are looked up in between.
+ */
+public class CaffeineCache implements Cache {
+
+    private static final int DEFAULT_UUID_EXPIRE = 16_384;
+    private static final int DEFAULT_UUID_SIZE = 60;
+
+    private static final int DEFAULT_SKIN_EXPIRE = 5;
+    private static final int DEFAULT_SKIN_SIZE = 0;
+
+    private final com.github.benmanes.caffeine.cache.Cache<UUID, Profile> uuidToProfileCache;
+    private final com.github.benmanes.caffeine.cache.Cache<String, Profile> nameToProfileCache;
+
+    private final com.github.benmanes.caffeine.cache.Cache<UUID, SkinProperty> skinCache;
+
+    private final Metrics metrics;
+
+    /**
+     * Creates a new cache with custom configuration options.
+     *
+     * @param uuidExpire uuid cache expiration time 0 to disable
+     * @param uuidSize uuid max cache size &le; 0 to disable
+     * @param skinExpire skin cache expiration time 0 to disable
+     * @param skinSize skin max cache size &le; 0 to disable
+     * @param metrics receiver of hit, miss and eviction counts
+     */
+    public CaffeineCache(Duration uuidExpire, int uuidSize, Duration skinExpire, int skinSize, Metrics metrics) {
+        this.metrics = metrics;
+
+        // both profile maps contain the same entries - only count the evictions once
+        uuidToProfileCache = buildCache(uuidExpire, uuidSize, CacheType.PROFILE);
+        nameToProfileCache = buildCache(uuidExpire, uuidSize, null);
+
+        skinCache = buildCache(skinExpire, skinSize, CacheType.SKIN);
+    }
+
+    /**
+     * Creates a new cache with custom configuration options.
+     *
+     * @param uuidExpire uuid cache expiration time 0 to disable
+     * @param uuidSize uuid max cache size &le; 0 to disable
+     * @param skinExpire skin cache expiration time 0 to disable
+     * @param skinSize skin max cache size &le; 0 to disable
+     */
+    public CaffeineCache(Duration uuidExpire, int uuidSize, Duration skinExpire, int skinSize) {
+        this(uuidExpire, uuidSize, skinExpire, skinSize, NoopMetrics.INSTANCE);
+    }
+
+    /**
+     * Creates a new cache with default parameters
+     *
+     * @param metrics receiver of hit, miss and eviction counts
+     */
+    public CaffeineCache(Metrics metrics) {
+        this(Duration.ofMinutes(DEFAULT_UUID_EXPIRE), DEFAULT_UUID_SIZE,
+                Duration.ofMinutes(DEFAULT_SKIN_EXPIRE), DEFAULT_SKIN_SIZE, metrics);
+    }
+
+    /**
+     * Creates a new cache with default parameters
+     */
+    public CaffeineCache() {
+        this(NoopMetrics.INSTANCE);
+    }
+
+    @Override
+    public void add(Profile profile) {
+        if (profile.getId() == null) {
+            System.out.println("Warning UUID is null - Cannot add to cache " + profile);
+        } else {
+            uuidToProfileCache.put(profile.getId(), profile);
+        }
+
+        nameToProfileCache.put(profile.getName().toLowerCase(Locale.ROOT), profile);
+    }
+
+    @Override
+    public void addSkin(UUID uniqueId, SkinProperty property) {
+        skinCache.put(uniqueId, property);
+    }
+
+    @Override
+    public void remove(Profile profile) {
+        uuidToProfileCache.asMap().remove(profile.getId(), profile);
+        nameToProfileCache.asMap().remove(profile.getName().toLowerCase(Locale.ROOT), profile);
+    }
+
+    @Override
+    public void removeSkin(UUID uniqueId) {
+        skinCache.invalidate(uniqueId);
+    }
+
+    @Override
+    public void clear() {
+        uuidToProfileCache.invalidateAll();
+        nameToProfileCache.invalidateAll();
+        skinCache.invalidateAll();
+    }
+
+    @Override
+    public Optional<Profile> getByName(String playerName) {
+        return record(CacheType.PROFILE, nameToProfileCache.getIfPresent(playerName.toLowerCase(Locale.ROOT)));
+    }
+
+    @Override
+    public Optional<Profile> getById(UUID uniqueId) {
+        return record(CacheType.PROFILE, uuidToProfileCache.getIfPresent(uniqueId));
+    }
+
+    @Override
+    public Optional<SkinProperty> getSkin(UUID uniqueId) {
+        return record(CacheType.SKIN, skinCache.getIfPresent(uniqueId));
+    }
+
+    @Override
+    public ImmutableSet<Profile> getCachedProfiles() {
+        return ImmutableSet.copyOf(uuidToProfileCache.asMap().values());
+    }
+
+    @Override
+    public ImmutableSet<SkinProperty> getCachedSkins() {
+        return ImmutableSet.copyOf(skinCache.asMap().values());
+    }
+
+    /**
+     * Runs the pending maintenance like size evictions now instead of on the next cache operations.
+     */
+    public void cleanUp() {
+        uuidToProfileCache.cleanUp();
+        nameToProfileCache.cleanUp();
+        skinCache.cleanUp();
+    }
+
+    private <T> Optional<T> record(CacheType type, T value) {
+        if (value == null) {
+            metrics.recordCacheMiss(type);
+            return Optional.empty();
+        }
+
+        metrics.recordCacheHit(type);
+        return Optional.of(value);
+    }
+
+    private <K, V> com.github.benmanes.caffeine.cache.Cache<K, V> buildCache(Duration expireAfterWrite, int maxSize,
+                                                                              CacheType evictionType) {
+        // run the maintenance on the calling thread - the common pool starts a new thread per task on small hosts
+        Caffeine<Object, Object> builder = Caffeine.newBuilder().executor(Runnable::run);
+        if (expireAfterWrite != null) {
+            builder.expireAfterWrite(expireAfterWrite);
+        }
+
+        if (maxSize > 0) {
+            builder.maximumSize(maxSize);
+        }
+
+        if (evictionType != null) {
+            builder.removalListener((key, value, cause) -> {
+                if (cause.wasEvicted()) {
+                    metrics.recordCacheEviction(evictionType);
+                }
+            });
+        }
+
+        return builder.build();
+    }
+}
@@ -0,0 +1,88 @@
+package com.github.games647.craftapi.cache.caffeine;
+
+import com.github.games647.craftapi.metrics.CacheType;
+import com.github.games647.craftapi.metrics.SimpleMetrics;
+import com.github.games647.craftapi.model.Profile;
+import com.github.games647.craftapi.model.skin.SkinProperty;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class CaffeineCacheTest {
+
+    private SimpleMetrics metrics;
+    private CaffeineCache cache;
+
+    @BeforeEach
+    void setUp() {
+        metrics = new SimpleMetrics();
+        cache = new CaffeineCache(Duration.ofMinutes(1), 1, Duration.ofMinutes(1), 1, metrics);
+    }
+
+    @Test
+    void maxSizeProfile() {
+        cache.add(new Profile(UUID.randomUUID(), "1"));
+        cache.add(new Profile(UUID.randomUUID(), "2"));
+        cache.cleanUp();
+
+        assertAll(
+                () -> assertEquals(1, cache.getCachedProfiles().size()),
+                () -> assertEquals(1, metrics.getCacheEvictions(CacheType.PROFILE))
+        );
+    }
+
+    @Test
+    void addSkin() {
+        UUID profileId = UUID.randomUUID();
+        assertFalse(cache.getSkin(profileId).isPresent());
+
+        SkinProperty property = new SkinProperty("value", "signature");
+        cache.addSkin(profileId, property);
+
+        assertEquals(property, cache.getSkin(profileId).orElse(null));
+    }
+
+    @Test
+    void profileCaseInsensitive() {
+        Profile profile = new Profile(UUID.randomUUID(), "123ABC_abc");
+        cache.add(profile);
+
+        assertAll(
+                () -> assertEquals(profile, cache.getByName("123abc_abc").orElse(null)),
+                () -> assertEquals(profile, cache.getByName("123ABC_ABC").orElse(null)),
+                () -> assertEquals(profile, cache.getById(profile.getId()).orElse(null))
+        );
+    }
+
+    @Test
+    void removeProfile() {
+        Profile profile = new Profile(UUID.randomUUID(), "abc");
+        cache.add(profile);
+        cache.remove(profile);
+
+        assertAll(
+                () -> assertFalse(cache.getByName("abc").isPresent()),
+                () -> assertFalse(cache.getById(profile.getId()).isPresent())
+        );
+    }
+
+    @Test
+    void hitMissMetrics() {
+        Profile profile = new Profile(UUID.randomUUID(), "abc");
+        cache.add(profile);
+
+        cache.getByName("abc");
+        cache.getByName("xyz");
+        assertAll(
+                () -> assertEquals(1, metrics.getCacheHits(CacheType.PROFILE)),
+                () -> assertEquals(1, metrics.getCacheMisses(CacheType.PROFILE))
+        );
+    }
+}
@@ -0,0 +1,73 @@
+package com.github.games647.craftapi.cache;
+
+/**
+ * Case-insensitive handling of player names without creating lower case copies. Valid Minecraft names only contain
+ * ASCII characters, so only A-Z have to be folded.
+ */
+final class AsciiNames {
+
+    static final int MAX_LENGTH = 16;
+
+    private AsciiNames() {
+        // utility class
+    }
+
+    /**
+     * @param name player name
+     * @return hash code that is the same for all case variants of the name
+     */
+    static int hash(CharSequence name) {
+        int hash = 0;
+        for (int i = 0; i < name.length(); i++) {
+            hash = 31 * hash + toLowerCase(name.charAt(i));
+        }
+
+        // spread the higher bits for the power of two tables
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * @param name player name
+     * @return true if the name fits into {@link #MAX_LENGTH} bytes with one byte per character
+     */
+    static boolean isPackable(CharSequence name) {
+        if (name.length() > MAX_LENGTH) {
+            return false;
+        }
+
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) > 0x7F) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @param first player name
+     * @param second player name
+     * @return true if both names are equal ignoring the case of A-Z
+     */
+    static boolean equalsIgnoreCase(CharSequence first, CharSequence second) {
+        if (first.length() != second.length()) {
+            return false;
+        }
+
+        for (int i = 0; i < first.length(); i++) {
+            if (toLowerCase(first.charAt(i)) != toLowerCase(second.charAt(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    static int toLowerCase(int character) {
+        if (character >= 'A' && character <= 'Z') {
+            return character + ('a' - 'A');
+        }
+
+        return character;
+    }
+}
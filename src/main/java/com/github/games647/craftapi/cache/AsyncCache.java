@@ -0,0 +1,107 @@
+package com.github.games647.craftapi.cache;
+
+import com.github.games647.craftapi.model.Profile;
+import com.github.games647.craftapi.model.skin.SkinProperty;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking variant of {@link Cache} for remote backends. Lookups return futures, so a resolver doesn't have to
+ * block a thread while waiting for the network. Failed operations complete the future exceptionally.
+ * <p>
+ * Existing synchronous caches can be used through {@link AsyncCacheAdapter}.
+ */
+public interface AsyncCache {
+
+    /**
+     * Manually adds a profile cache entry.
+     *
+     * @param profile to cached profile
+     * @return completed after the entry is stored
+     */
+    CompletableFuture<Void> add(Profile profile);
+
+    /**
+     * Adds the profiles together, ideally in a single round trip.
+     *
+     * @param profiles to cached profiles
+     * @return completed after all entries are stored
+     */
+    CompletableFuture<Void> putAll(Collection<Profile> profiles);
+
+    /**
+     * Manually adds a skin cache entry.
+     *
+     * @param uniqueId UUID associated to this skin
+     * @param property skin
+     * @return completed after the entry is stored
+     */
+    CompletableFuture<Void> addSkin(UUID uniqueId, SkinProperty property);
+
+    /**
+     * Invalidate profile cache entry
+     *
+     * @param profile profile that should be removed from cache
+     * @return completed after the entry is removed
+     */
+    CompletableFuture<Void> remove(Profile profile);
+
+    /**
+     * Invalidate skin from cache.
+     *
+     * @param uniqueId skin owner id
+     * @return completed after the entry is removed
+     */
+    CompletableFuture<Void> removeSkin(UUID uniqueId);
+
+    /**
+     * Invalidate all cache entries.
+     *
+     * @return completed after all entries are removed
+     */
+    CompletableFuture<Void> clear();
+
+    /**
+     * Get profile by case-insensitive player name
+     *
+     * @param playerName case-insensitive player name
+     * @return profile or empty if not present in cache
+     */
+    CompletableFuture<Optional<Profile>> getByName(String playerName);
+
+    /**
+     * Get profile by premium UUID.
+     *
+     * @param uniqueId premium UUID
+     * @return profile or empty if not present in cache
+     */
+    CompletableFuture<Optional<Profile>> getById(UUID uniqueId);
+
+    /**
+     * Get the profiles of multiple players, ideally in a single round trip.
+     *
+     * @param playerNames case-insensitive player names
+     * @return found profiles by the requested name - missing names are not contained
+     */
+    CompletableFuture<Map<String, Profile>> getAllByName(Collection<String> playerNames);
+
+    /**
+     * Get the profiles of multiple players, ideally in a single round trip.
+     *
+     * @param uniqueIds premium UUIDs
+     * @return found profiles by their UUID - missing ids are not contained
+     */
+    CompletableFuture<Map<UUID, Profile>> getAllById(Collection<UUID> uniqueIds);
+
+    /**
+     * Get the skin from cache.
+     *
+     * @param uniqueId owner id
+     * @return the skin or empty if not present in cache
+     */
+    CompletableFuture<Optional<SkinProperty>> getSkin(UUID uniqueId);
+}
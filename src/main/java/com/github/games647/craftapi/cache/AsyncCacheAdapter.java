@@ -0,0 +1,113 @@
+package com.github.games647.craftapi.cache;
+
+import com.github.games647.craftapi.model.Profile;
+import com.github.games647.craftapi.model.skin.SkinProperty;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Provides a synchronous {@link Cache} as {@link AsyncCache}.
+ * <p>
+ * In-memory caches answer faster than a thread switch, so by default the operations run on the calling thread and
+ * return completed futures. Caches that block, like {@link DiskCache} reading skins from disk, should get an
+ * executor instead.
+ */
+public class AsyncCacheAdapter implements AsyncCache {
+
+    private final Cache cache;
+    private final Executor executor;
+
+    /**
+     * @param cache wrapped cache
+     * @param executor runs the operations of the wrapped cache
+     */
+    public AsyncCacheAdapter(Cache cache, Executor executor) {
+        this.cache = cache;
+        this.executor = executor;
+    }
+
+    /**
+     * Runs the operations on the calling thread.
+     *
+     * @param cache wrapped cache
+     */
+    public AsyncCacheAdapter(Cache cache) {
+        this(cache, Runnable::run);
+    }
+
+    /**
+     * @return the wrapped cache
+     */
+    public Cache getCache() {
+        return cache;
+    }
+
+    @Override
+    public CompletableFuture<Void> add(Profile profile) {
+        return run(() -> cache.add(profile));
+    }
+
+    @Override
+    public CompletableFuture<Void> putAll(Collection<Profile> profiles) {
+        return run(() -> cache.addAll(profiles));
+    }
+
+    @Override
+    public CompletableFuture<Void> addSkin(UUID uniqueId, SkinProperty property) {
+        return run(() -> cache.addSkin(uniqueId, property));
+    }
+
+    @Override
+    public CompletableFuture<Void> remove(Profile profile) {
+        return run(() -> cache.remove(profile));
+    }
+
+    @Override
+    public CompletableFuture<Void> removeSkin(UUID uniqueId) {
+        return run(() -> cache.removeSkin(uniqueId));
+    }
+
+    @Override
+    public CompletableFuture<Void> clear() {
+        return run(cache::clear);
+    }
+
+    @Override
+    public CompletableFuture<Optional<Profile>> getByName(String playerName) {
+        return supply(() -> cache.getByName(playerName));
+    }
+
+    @Override
+    public CompletableFuture<Optional<Profile>> getById(UUID uniqueId) {
+        return supply(() -> cache.getById(uniqueId));
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Profile>> getAllByName(Collection<String> playerNames) {
+        return supply(() -> cache.getAllByName(playerNames).getHits());
+    }
+
+    @Override
+    public CompletableFuture<Map<UUID, Profile>> getAllById(Collection<UUID> uniqueIds) {
+        return supply(() -> cache.getAllById(uniqueIds).getHits());
+    }
+
+    @Override
+    public CompletableFuture<Optional<SkinProperty>> getSkin(UUID uniqueId) {
+        return supply(() -> cache.getSkin(uniqueId));
+    }
+
+    private CompletableFuture<Void> run(Runnable operation) {
+        return CompletableFuture.runAsync(operation, executor);
+    }
+
+    private <T> CompletableFuture<T> supply(Supplier<T> operation) {
+        return CompletableFuture.supplyAsync(operation, executor);
+    }
+}
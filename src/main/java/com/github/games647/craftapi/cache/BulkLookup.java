@@ -0,0 +1,53 @@
+package com.github.games647.craftapi.cache;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of looking up multiple keys at once.
+ *
+ * @param <K> requested key
+ * @param <V> cached value
+ */
+public class BulkLookup<K, V> {
+
+    private final ImmutableMap<K, V> hits;
+    private final ImmutableList<K> misses;
+
+    public BulkLookup(Map<K, V> hits, List<K> misses) {
+        this.hits = ImmutableMap.copyOf(hits);
+        this.misses = ImmutableList.copyOf(misses);
+    }
+
+    /**
+     * @return found values by the key as it was requested
+     */
+    public ImmutableMap<K, V> getHits() {
+        return hits;
+    }
+
+    /**
+     * @return requested keys without a cached value in request order
+     */
+    public ImmutableList<K> getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return true if all keys were found
+     */
+    public boolean isComplete() {
+        return misses.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + '{' +
+                "hits=" + hits +
+                ", misses=" + misses +
+                '}';
+    }
+}
@@ -2,10 +2,19 @@ package com.github.games647.craftapi.cache;
 
 import com.github.games647.craftapi.model.Profile;
 import com.github.games647.craftapi.model.skin.SkinProperty;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * Cache for the skins and profiles.
@@ -19,6 +28,15 @@ public interface Cache {
      */
     void add(Profile profile);
 
+    /**
+     * Adds multiple profile cache entries.
+     *
+     * @param profiles to cached profiles
+     */
+    default void addAll(Collection<Profile> profiles) {
+        profiles.forEach(this::add);
+    }
+
     /**
      * Manually adds a skin cache entry.
      *
@@ -62,6 +80,48 @@ public interface Cache {
      */
     Optional<Profile> getById(UUID uniqueId);
 
+    /**
+     * Get the profiles of multiple players in one pass.
+     *
+     * @param playerNames case-insensitive player names
+     * @return profiles by the requested name and the names that are not present in cache
+     */
+    default BulkLookup<String, Profile> getAllByName(Collection<String> playerNames) {
+        Map<String, Profile> hits = new LinkedHashMap<>();
+        List<String> misses = new ArrayList<>();
+        for (String name : playerNames) {
+            Optional<Profile> profile = getByName(name);
+            if (profile.isPresent()) {
+                hits.put(name, profile.get());
+            } else {
+                misses.add(name);
+            }
+        }
+
+        return new BulkLookup<>(hits, misses);
+    }
+
+    /**
+     * Get the profiles of multiple premium UUIDs in one pass.
+     *
+     * @param uniqueIds premium UUIDs
+     * @return profiles by their UUID and the UUIDs that are not present in cache
+     */
+    default BulkLookup<UUID, Profile> getAllById(Collection<UUID> uniqueIds) {
+        Map<UUID, Profile> hits = new LinkedHashMap<>();
+        List<UUID> misses = new ArrayList<>();
+        for (UUID id : uniqueIds) {
+            Optional<Profile> profile = getById(id);
+            if (profile.isPresent()) {
+                hits.put(id, profile.get());
+            } else {
+                misses.add(id);
+            }
+        }
+
+        return new BulkLookup<>(hits, misses);
+    }
+
     /**
      * Get the skin from cache.
      *
@@ -70,6 +130,48 @@ public interface Cache {
      */
     Optional<SkinProperty> getSkin(UUID uniqueId);
 
+    /**
+     * Get a profile that already expired, but is still within the grace period of the cache. Resolvers use it if
+     * Mojang cannot be reached.
+     *
+     * @param playerName case-insensitive player name
+     * @return expired profile or empty if not present or the cache doesn't keep expired entries
+     */
+    default Optional<Profile> getStaleByName(String playerName) {
+        return Optional.empty();
+    }
+
+    /**
+     * Get a skin that already expired, but is still within the grace period of the cache. Resolvers use it if
+     * Mojang cannot be reached.
+     *
+     * @param uniqueId owner id
+     * @return expired skin or empty if not present or the cache doesn't keep expired entries
+     */
+    default Optional<SkinProperty> getStaleSkin(UUID uniqueId) {
+        return Optional.empty();
+    }
+
+    /**
+     * Get the time since the profile was added without counting it as a lookup.
+     *
+     * @param playerName case-insensitive player name
+     * @return age of the entry or empty if it's not present or the cache doesn't track it
+     */
+    default Optional<Duration> getProfileAge(String playerName) {
+        return Optional.empty();
+    }
+
+    /**
+     * Get the time since the skin was added without counting it as a lookup.
+     *
+     * @param uniqueId owner id
+     * @return age of the entry or empty if it's not present or the cache doesn't track it
+     */
+    default Optional<Duration> getSkinAge(UUID uniqueId) {
+        return Optional.empty();
+    }
+
     /**
      * @return immutable list of all currently cached profiles
      */
@@ -80,4 +182,41 @@ public interface Cache {
      */
     ImmutableSet<SkinProperty> getCachedSkins();
 
+    /**
+     * Finds cached names for tab completion.
+     *
+     * @param prefix case-insensitive start of the names
+     * @param limit maximum number of names
+     * @return matching names sorted case-insensitive
+     */
+    default ImmutableList<String> findNamesByPrefix(String prefix, int limit) {
+        String lowerPrefix = prefix.toLowerCase(Locale.ROOT);
+        return streamProfiles()
+                .map(Profile::getName)
+                .filter(name -> name.toLowerCase(Locale.ROOT).startsWith(lowerPrefix))
+                .sorted(String.CASE_INSENSITIVE_ORDER)
+                .limit(limit)
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    /**
+     * Iterates the cached profiles. Unlike the immutable copy, implementations can stream their entries directly, so
+     * changes made while iterating could be visible.
+     *
+     * @return all currently cached profiles
+     */
+    default Stream<Profile> streamProfiles() {
+        return getCachedProfiles().stream();
+    }
+
+    /**
+     * Iterates the cached skins. Unlike the immutable copy, implementations can stream their entries directly, so
+     * changes made while iterating could be visible.
+     *
+     * @return all currently cached skins
+     */
+    default Stream<SkinProperty> streamSkins() {
+        return getCachedSkins().stream();
+    }
+
 }
@@ -0,0 +1,43 @@
+package com.github.games647.craftapi.cache;
+
+import com.github.games647.craftapi.metrics.CacheType;
+
+import jdk.jfr.Category;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for a cache lookup.
+ */
+@Name("com.github.games647.craftapi.CacheLookup")
+@Label("Cache Lookup")
+@Category({"CraftAPI", "Cache"})
+@StackTrace(false)
+class CacheLookupEvent extends jdk.jfr.Event {
+
+    // checked before creating events, so the lookup path doesn't allocate anything if no recording is running
+    static final EventType TYPE = EventType.getEventType(CacheLookupEvent.class);
+
+    @Label("Cache")
+    String cache;
+
+    @Label("Key")
+    String key;
+
+    @Label("Hit")
+    boolean hit;
+
+    static void emit(CacheType type, Object key, boolean hit) {
+        if (TYPE.isEnabled()) {
+            CacheLookupEvent event = new CacheLookupEvent();
+            if (event.shouldCommit()) {
+                event.cache = type.name();
+                event.key = key.toString();
+                event.hit = hit;
+                event.commit();
+            }
+        }
+    }
+}
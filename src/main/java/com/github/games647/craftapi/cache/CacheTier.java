@@ -0,0 +1,27 @@
+package com.github.games647.craftapi.cache;
+
+import com.github.games647.craftapi.model.Profile;
+import com.github.games647.craftapi.model.skin.SkinProperty;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Cache that can take over entries from another tier of a {@link TieredCache}. The entries keep their age, so moving
+ * them between the tiers doesn't extend their lifetime.
+ */
+interface CacheTier {
+
+    /**
+     * @param profile profile moved from another tier
+     * @param age time since the profile was added to the first tier
+     */
+    void add(Profile profile, Duration age);
+
+    /**
+     * @param uniqueId skin owner
+     * @param property skin moved from another tier
+     * @param age time since the skin was added to the first tier
+     */
+    void addSkin(UUID uniqueId, SkinProperty property, Duration age);
+}
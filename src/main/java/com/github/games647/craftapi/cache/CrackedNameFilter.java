@@ -0,0 +1,310 @@
+package com.github.games647.craftapi.cache;
+
+import com.google.common.base.Ticker;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bloom filter of names that don't belong to a premium account. Resolvers check it before sending a name lookup, so
+ * repeated logins of cracked players don't cost a request. A few percent of the premium names could be reported as
+ * cracked by mistake - configure the false positive rate accordingly.
+ * <p>
+ * Names cannot be removed from a Bloom filter, so the filter uses two generations instead. New names are added to
+ * the current generation and lookups check both. After half of the aging period the old generation is dropped, so
+ * every name is forgotten between half and the full aging period after it was added. Names that became premium in
+ * the meantime are checked again afterwards. The generations are also rotated early if more names than expected were
+ * added, because the false positive rate would rise otherwise.
+ * <p>
+ * The memory usage is fixed: about 1.2 MB per generation for one million names at a 1% false positive rate.
+ */
+public class CrackedNameFilter {
+
+    private static final int MAGIC = 0x43524246;
+    private static final short VERSION = 1;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private final Ticker ticker;
+    private final long rotateNanos;
+    private final int expectedNames;
+    private final int hashes;
+    private final int words;
+
+    private volatile Generations generations;
+
+    /**
+     * Creates a new empty filter.
+     *
+     * @param expectedNames number of cracked names within half of the aging period
+     * @param falsePositiveRate probability that a premium name is reported as cracked
+     * @param agingPeriod time after which names are forgotten at the latest
+     */
+    public CrackedNameFilter(int expectedNames, double falsePositiveRate, Duration agingPeriod) {
+        this(expectedNames, falsePositiveRate, agingPeriod, Ticker.systemTicker());
+    }
+
+    CrackedNameFilter(int expectedNames, double falsePositiveRate, Duration agingPeriod, Ticker ticker) {
+        this(expectedNames, optimalHashes(expectedNames, optimalBits(expectedNames, falsePositiveRate)),
+                toWords(optimalBits(expectedNames, falsePositiveRate)), agingPeriod, ticker);
+    }
+
+    private CrackedNameFilter(int expectedNames, int hashes, int words, Duration agingPeriod, Ticker ticker) {
+        if (expectedNames <= 0) {
+            throw new IllegalArgumentException("Expected names have to be positive: " + expectedNames);
+        }
+
+        this.ticker = ticker;
+        this.rotateNanos = agingPeriod.toNanos() / 2;
+        this.expectedNames = expectedNames;
+        this.hashes = hashes;
+        this.words = words;
+        this.generations = new Generations(new AtomicLongArray(words), new AtomicLongArray(words), ticker.read());
+    }
+
+    /**
+     * Loads a filter saved by {@link #save(Path)}. The time the file was not in use counts to the age of the names.
+     *
+     * @param file saved filter
+     * @param agingPeriod time after which names are forgotten at the latest
+     * @return the loaded filter
+     * @throws IOException failed to read the file or it's not a saved filter
+     */
+    public static CrackedNameFilter load(Path file, Duration agingPeriod) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a cracked name filter " + file);
+            }
+
+            short version = in.readShort();
+            if (version != VERSION) {
+                throw new IOException("Unsupported cracked name filter version " + version);
+            }
+
+            int expectedNames = in.readInt();
+            int hashes = in.readInt();
+            int words = in.readInt();
+            long savedMillis = in.readLong();
+            long ageNanos = in.readLong();
+            int currentNames = in.readInt();
+
+            AtomicLongArray current = readWords(in, words);
+            AtomicLongArray previous = readWords(in, words);
+
+            Ticker ticker = Ticker.systemTicker();
+            CrackedNameFilter filter = new CrackedNameFilter(expectedNames, hashes, words, agingPeriod, ticker);
+            long offlineNanos = Duration.ofMillis(Math.max(0, System.currentTimeMillis() - savedMillis)).toNanos();
+
+            Generations generations = new Generations(current, previous, ticker.read() - ageNanos - offlineNanos);
+            generations.names.add(currentNames);
+            filter.generations = generations;
+            return filter;
+        }
+    }
+
+    /**
+     * Writes the filter to the file. The file is replaced atomically, so a crash leaves the previous version.
+     *
+     * @param file target file
+     * @throws IOException failed to write the file
+     */
+    public void save(Path file) throws IOException {
+        Generations snapshot = currentGenerations();
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(expectedNames);
+            out.writeInt(hashes);
+            out.writeInt(words);
+            out.writeLong(System.currentTimeMillis());
+            out.writeLong(ticker.read() - snapshot.startNanos);
+            out.writeInt(snapshot.names.intValue());
+
+            writeWords(out, snapshot.current);
+            writeWords(out, snapshot.previous);
+        }
+
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @param name case-insensitive player name
+     * @return true if the name was added recently or in rare cases if it's a false positive
+     */
+    public boolean mightBeCracked(String name) {
+        Generations snapshot = currentGenerations();
+
+        long hash = hash(name);
+        long step = step(hash);
+        return contains(snapshot.current, hash, step) || contains(snapshot.previous, hash, step);
+    }
+
+    /**
+     * @param name case-insensitive player name confirmed to not belong to a premium account
+     */
+    public void putCracked(String name) {
+        Generations snapshot = currentGenerations();
+
+        long hash = hash(name);
+        long step = step(hash);
+        long bits = (long) words * Long.SIZE;
+        for (int i = 0; i < hashes; i++) {
+            setBit(snapshot.current, Math.floorMod(hash + i * step, bits));
+        }
+
+        snapshot.names.increment();
+    }
+
+    /**
+     * Forgets all names.
+     */
+    public synchronized void clear() {
+        generations = new Generations(new AtomicLongArray(words), new AtomicLongArray(words), ticker.read());
+    }
+
+    /**
+     * @return memory of both generations in bytes
+     */
+    public long getMemoryBytes() {
+        return 2L * words * Long.BYTES;
+    }
+
+    private Generations currentGenerations() {
+        Generations snapshot = generations;
+        if (ticker.read() - snapshot.startNanos < rotateNanos && snapshot.names.sum() < expectedNames) {
+            return snapshot;
+        }
+
+        synchronized (this) {
+            snapshot = generations;
+            long now = ticker.read();
+            long age = now - snapshot.startNanos;
+            if (age >= 2 * rotateNanos) {
+                // both generations are too old
+                snapshot = new Generations(new AtomicLongArray(words), new AtomicLongArray(words), now);
+                generations = snapshot;
+            } else if (age >= rotateNanos || snapshot.names.sum() >= expectedNames) {
+                snapshot = new Generations(new AtomicLongArray(words), snapshot.current, now);
+                generations = snapshot;
+            }
+
+            return snapshot;
+        }
+    }
+
+    private boolean contains(AtomicLongArray bitSet, long hash, long step) {
+        long bits = (long) words * Long.SIZE;
+        for (int i = 0; i < hashes; i++) {
+            long index = Math.floorMod(hash + i * step, bits);
+            if ((bitSet.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static void setBit(AtomicLongArray bitSet, long index) {
+        int word = (int) (index >>> 6);
+        long mask = 1L << index;
+
+        long current;
+        do {
+            current = bitSet.get(word);
+            if ((current & mask) != 0) {
+                return;
+            }
+        } while (!bitSet.compareAndSet(word, current, current | mask));
+    }
+
+    /**
+     * FNV-1a over the lower case name. Valid names only contain ASCII characters, so this doesn't allocate a lower
+     * case copy.
+     */
+    private static long hash(String name) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < name.length(); i++) {
+            hash ^= AsciiNames.toLowerCase(name.charAt(i));
+            hash *= FNV_PRIME;
+        }
+
+        return mix(hash);
+    }
+
+    /**
+     * @return second hash for double hashing - odd, so that the probes don't repeat early
+     */
+    private static long step(long hash) {
+        return mix(hash ^ GOLDEN_GAMMA) | 1;
+    }
+
+    // finalizer of MurmurHash3
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static long optimalBits(int expectedNames, double falsePositiveRate) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False positive rate has to be between 0 and 1: " + falsePositiveRate);
+        }
+
+        return (long) Math.ceil(-expectedNames * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+    }
+
+    private static int optimalHashes(int expectedNames, long bits) {
+        return Math.max(1, (int) Math.round((double) bits / expectedNames * Math.log(2)));
+    }
+
+    private static int toWords(long bits) {
+        return Math.toIntExact(Math.max(1, (bits + Long.SIZE - 1) / Long.SIZE));
+    }
+
+    private static AtomicLongArray readWords(DataInputStream in, int words) throws IOException {
+        AtomicLongArray bitSet = new AtomicLongArray(words);
+        for (int i = 0; i < words; i++) {
+            bitSet.set(i, in.readLong());
+        }
+
+        return bitSet;
+    }
+
+    private static void writeWords(DataOutputStream out, AtomicLongArray bitSet) throws IOException {
+        for (int i = 0; i < bitSet.length(); i++) {
+            out.writeLong(bitSet.get(i));
+        }
+    }
+
+    private static final class Generations {
+
+        private final AtomicLongArray current;
+        private final AtomicLongArray previous;
+        private final long startNanos;
+
+        // names added to the current generation
+        private final LongAdder names = new LongAdder();
+
+        Generations(AtomicLongArray current, AtomicLongArray previous, long startNanos) {
+            this.current = current;
+            this.previous = previous;
+            this.startNanos = startNanos;
+        }
+    }
+}
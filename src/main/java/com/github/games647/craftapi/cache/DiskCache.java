@@ -0,0 +1,638 @@
+package com.github.games647.craftapi.cache;
+
+import com.github.games647.craftapi.metrics.CacheType;
+import com.github.games647.craftapi.metrics.Metrics;
+import com.github.games647.craftapi.metrics.NoopMetrics;
+import com.github.games647.craftapi.model.Profile;
+import com.github.games647.craftapi.model.skin.SkinProperty;
+import com.google.common.collect.ImmutableSet;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Cache that survives restarts by appending all changes to a log file. On startup the log is scanned to rebuild the
+ * index, so the cache is warm right away instead of draining the rate limit with lookups.
+ * <p>
+ * Profiles are small and kept in memory. Skins are only indexed by their position in the log and read from disk on
+ * access. All writes are queued and appended by a background thread, which also syncs the file at most once per
+ * second and compacts the log once most of it consists of overwritten or expired entries. Close the cache to flush
+ * the pending writes.
+ */
+public class DiskCache implements Cache, CacheTier, Closeable {
+
+    private static final int DEFAULT_UUID_EXPIRE = 16_384;
+    private static final int DEFAULT_SKIN_EXPIRE = 5;
+
+    private static final long SYNC_INTERVAL = TimeUnit.SECONDS.toMillis(1);
+
+    // compact if the overwritten records outnumber the live entries by this amount
+    private static final int MIN_GARBAGE_RECORDS = 1_000;
+
+    // reused by every lookup of the thread to find names without allocating a lower case copy
+    private static final ThreadLocal<NameKey> NAME_PROBE = ThreadLocal.withInitial(NameKey::new);
+
+    private final Path file;
+    private final long uuidExpireMillis;
+    private final long skinExpireMillis;
+    private final Metrics metrics;
+
+    private final ConcurrentMap<UUID, ProfileEntry> profiles = new ConcurrentHashMap<>();
+    private final ConcurrentMap<NameKey, ProfileEntry> nameIndex = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<UUID, SkinEntry> skins = new ConcurrentHashMap<>();
+    private final ConcurrentMap<UUID, Write> pendingSkins = new ConcurrentHashMap<>();
+
+    private final BlockingQueue<Write> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private volatile boolean closed;
+
+    // the channel is only replaced by a compaction - skin reads hold the read lock
+    private final ReadWriteLock channelLock = new ReentrantReadWriteLock();
+    private FileChannel channel;
+
+    // only accessed by the writer thread
+    private long recordCount;
+    private long lastSync = System.currentTimeMillis();
+
+    /**
+     * Opens or creates the cache log.
+     *
+     * @param file log file
+     * @param uuidExpire profile expiration time or null to disable
+     * @param skinExpire skin expiration time or null to disable
+     * @param metrics receiver of hit and miss counts
+     * @throws IOException failed to read the file or it isn't a cache log
+     */
+    public DiskCache(Path file, Duration uuidExpire, Duration skinExpire, Metrics metrics) throws IOException {
+        this.file = file;
+        this.uuidExpireMillis = uuidExpire == null ? Long.MAX_VALUE : uuidExpire.toMillis();
+        this.skinExpireMillis = skinExpire == null ? Long.MAX_VALUE : skinExpire.toMillis();
+        this.metrics = metrics;
+
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            load();
+        } catch (IOException ioEx) {
+            channel.close();
+            throw ioEx;
+        }
+
+        writer = new Thread(this::writeLoop, "craftapi-disk-cache");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Opens or creates the cache log with the default expiration times of {@link MemoryCache}.
+     *
+     * @param file log file
+     * @throws IOException failed to read the file or it isn't a cache log
+     */
+    public DiskCache(Path file) throws IOException {
+        this(file, Duration.ofMinutes(DEFAULT_UUID_EXPIRE), Duration.ofMinutes(DEFAULT_SKIN_EXPIRE),
+                NoopMetrics.INSTANCE);
+    }
+
+    @Override
+    public void add(Profile profile) {
+        add(profile, Duration.ZERO);
+    }
+
+    /**
+     * Adds a profile moved from another tier. It expires after the remaining time of its lifetime.
+     *
+     * @param profile profile moved from another tier
+     * @param age time since the profile was added to the first tier
+     */
+    @Override
+    public void add(Profile profile, Duration age) {
+        if (profile.getId() == null) {
+            System.out.println("Warning UUID is null - Cannot add to cache " + profile);
+            return;
+        }
+
+        if (age.toMillis() >= uuidExpireMillis) {
+            return;
+        }
+
+        long writeMillis = System.currentTimeMillis() - age.toMillis();
+        putProfile(profile, writeMillis);
+        enqueue(new Write(DiskCacheLog.profile(profile, writeMillis)));
+    }
+
+    @Override
+    public void addSkin(UUID uniqueId, SkinProperty property) {
+        addSkin(uniqueId, property, Duration.ZERO);
+    }
+
+    /**
+     * Adds a skin moved from another tier. It expires after the remaining time of its lifetime.
+     *
+     * @param uniqueId skin owner
+     * @param property skin moved from another tier
+     * @param age time since the skin was added to the first tier
+     */
+    @Override
+    public void addSkin(UUID uniqueId, SkinProperty property, Duration age) {
+        if (age.toMillis() >= skinExpireMillis) {
+            return;
+        }
+
+        long writeMillis = System.currentTimeMillis() - age.toMillis();
+        Write write = new Write(DiskCacheLog.skin(uniqueId, property, writeMillis), uniqueId, property, writeMillis);
+        pendingSkins.put(uniqueId, write);
+        enqueue(write);
+    }
+
+    @Override
+    public void remove(Profile profile) {
+        if (profile.getId() == null) {
+            return;
+        }
+
+        ProfileEntry removed = profiles.remove(profile.getId());
+        if (removed != null) {
+            unlink(removed);
+            enqueue(new Write(DiskCacheLog.remove(DiskCacheLog.REMOVE_PROFILE, profile.getId())));
+        }
+    }
+
+    @Override
+    public void removeSkin(UUID uniqueId) {
+        boolean pending = pendingSkins.remove(uniqueId) != null;
+        if (skins.remove(uniqueId) != null || pending) {
+            enqueue(new Write(DiskCacheLog.remove(DiskCacheLog.REMOVE_SKIN, uniqueId)));
+        }
+    }
+
+    @Override
+    public void clear() {
+        profiles.clear();
+        nameIndex.clear();
+        skins.clear();
+        pendingSkins.clear();
+        enqueue(new Write(DiskCacheLog.clear()));
+    }
+
+    @Override
+    public Optional<Profile> getByName(String playerName) {
+        NameKey probe = NAME_PROBE.get().set(playerName);
+        ProfileEntry entry;
+        try {
+            entry = nameIndex.get(probe);
+        } finally {
+            probe.clear();
+        }
+
+        return record(CacheType.PROFILE, playerName, liveProfile(entry));
+    }
+
+    @Override
+    public Optional<Profile> getById(UUID uniqueId) {
+        return record(CacheType.PROFILE, uniqueId, liveProfile(profiles.get(uniqueId)));
+    }
+
+    @Override
+    public Optional<SkinProperty> getSkin(UUID uniqueId) {
+        Write pending = pendingSkins.get(uniqueId);
+        SkinProperty property;
+        if (pending == null) {
+            property = readSkin(uniqueId);
+        } else {
+            property = isExpired(pending.writeMillis, skinExpireMillis) ? null : pending.skin;
+        }
+
+        return record(CacheType.SKIN, uniqueId, Optional.ofNullable(property));
+    }
+
+    @Override
+    public Optional<Duration> getProfileAge(String playerName) {
+        NameKey probe = NAME_PROBE.get().set(playerName);
+        ProfileEntry entry;
+        try {
+            entry = nameIndex.get(probe);
+        } finally {
+            probe.clear();
+        }
+
+        return entry == null ? Optional.empty() : age(entry.writeMillis, uuidExpireMillis);
+    }
+
+    @Override
+    public Optional<Duration> getSkinAge(UUID uniqueId) {
+        Write pending = pendingSkins.get(uniqueId);
+        if (pending != null) {
+            return age(pending.writeMillis, skinExpireMillis);
+        }
+
+        SkinEntry entry = skins.get(uniqueId);
+        return entry == null ? Optional.empty() : age(entry.writeMillis, skinExpireMillis);
+    }
+
+    @Override
+    public ImmutableSet<Profile> getCachedProfiles() {
+        ImmutableSet.Builder<Profile> builder = ImmutableSet.builder();
+        for (ProfileEntry entry : profiles.values()) {
+            liveProfile(entry).ifPresent(builder::add);
+        }
+
+        return builder.build();
+    }
+
+    @Override
+    public ImmutableSet<SkinProperty> getCachedSkins() {
+        ImmutableSet.Builder<SkinProperty> builder = ImmutableSet.builder();
+        for (Write pending : pendingSkins.values()) {
+            if (!isExpired(pending.writeMillis, skinExpireMillis)) {
+                builder.add(pending.skin);
+            }
+        }
+
+        for (UUID owner : skins.keySet()) {
+            SkinProperty property = readSkin(owner);
+            if (property != null) {
+                builder.add(property);
+            }
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Writes all queued changes to the disk and closes the log file.
+     *
+     * @throws IOException failed to sync or close the file
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        queue.add(Write.STOP);
+        try {
+            writer.join();
+        } catch (InterruptedException interruptedEx) {
+            Thread.currentThread().interrupt();
+        }
+
+        Lock lock = channelLock.writeLock();
+        lock.lock();
+        try {
+            channel.force(true);
+            channel.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void load() throws IOException {
+        if (channel.size() == 0) {
+            channel.write(DiskCacheLog.header(), 0);
+        }
+
+        if (channel.size() > Integer.MAX_VALUE) {
+            throw new IOException("Cache log too large " + file);
+        }
+
+        long now = System.currentTimeMillis();
+        ByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+        int end = DiskCacheLog.scan(buffer, new DiskCacheLog.Visitor() {
+            @Override
+            public void profile(Profile profile, long writeMillis) {
+                if (now - writeMillis < uuidExpireMillis) {
+                    putProfile(profile, writeMillis);
+                }
+
+                recordCount++;
+            }
+
+            @Override
+            public void skin(UUID owner, long position, long writeMillis) {
+                if (now - writeMillis < skinExpireMillis) {
+                    skins.put(owner, new SkinEntry(position, writeMillis));
+                }
+
+                recordCount++;
+            }
+
+            @Override
+            public void remove(byte type, UUID id) {
+                if (type == DiskCacheLog.REMOVE_PROFILE) {
+                    ProfileEntry removed = profiles.remove(id);
+                    if (removed != null) {
+                        unlink(removed);
+                    }
+                } else {
+                    skins.remove(id);
+                }
+
+                recordCount++;
+            }
+
+            @Override
+            public void clear() {
+                profiles.clear();
+                nameIndex.clear();
+                skins.clear();
+                recordCount++;
+            }
+        });
+
+        // drop a partially written record from a crash
+        if (end < channel.size()) {
+            channel.truncate(end);
+        }
+
+        channel.position(end);
+    }
+
+    private void putProfile(Profile profile, long writeMillis) {
+        ProfileEntry entry = new ProfileEntry(profile, writeMillis);
+        ProfileEntry previous = profiles.put(profile.getId(), entry);
+        nameIndex.put(new NameKey(profile.getName()), entry);
+        if (previous != null) {
+            // renamed player or a refreshed entry
+            unlink(previous);
+        }
+    }
+
+    /**
+     * Removes the name mapping of the profile, but only if it still points to exactly this entry.
+     *
+     * @param entry the removed entry
+     */
+    private void unlink(ProfileEntry entry) {
+        NameKey name = new NameKey(entry.profile.getName());
+        nameIndex.computeIfPresent(name, (key, current) -> current == entry ? null : current);
+    }
+
+    private Optional<Profile> liveProfile(ProfileEntry entry) {
+        if (entry == null || System.currentTimeMillis() - entry.writeMillis >= uuidExpireMillis) {
+            return Optional.empty();
+        }
+
+        return entry.result;
+    }
+
+    private static boolean isExpired(long writeMillis, long expireMillis) {
+        return System.currentTimeMillis() - writeMillis >= expireMillis;
+    }
+
+    private static Optional<Duration> age(long writeMillis, long expireMillis) {
+        long age = System.currentTimeMillis() - writeMillis;
+        return age < expireMillis ? Optional.of(Duration.ofMillis(age)) : Optional.empty();
+    }
+
+    private SkinProperty readSkin(UUID owner) {
+        Lock lock = channelLock.readLock();
+        lock.lock();
+        try {
+            // look up the position under the lock - a compaction moves the records
+            SkinEntry entry = skins.get(owner);
+            if (entry == null || System.currentTimeMillis() - entry.writeMillis >= skinExpireMillis
+                    || !channel.isOpen()) {
+                return null;
+            }
+
+            return DiskCacheLog.readSkin(channel, entry.position);
+        } catch (IOException ioEx) {
+            System.out.println("Failed to read skin of " + owner + " from " + file);
+            ioEx.printStackTrace();
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void enqueue(Write write) {
+        if (!closed) {
+            queue.add(write);
+        }
+    }
+
+    private void writeLoop() {
+        List<Write> batch = new ArrayList<>();
+        boolean running = true;
+        while (running) {
+            try {
+                Write first = queue.poll(SYNC_INTERVAL, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch);
+                }
+
+                for (Write write : batch) {
+                    if (write == Write.STOP) {
+                        running = false;
+                        break;
+                    }
+
+                    append(write);
+                }
+
+                batch.clear();
+                if (System.currentTimeMillis() - lastSync >= SYNC_INTERVAL || !running) {
+                    channel.force(false);
+                    removeExpired();
+                    lastSync = System.currentTimeMillis();
+                }
+
+                // also before stopping, so the next start doesn't have to scan the garbage
+                long live = profiles.size() + skins.size();
+                if (recordCount - live > live + MIN_GARBAGE_RECORDS) {
+                    compact();
+                }
+            } catch (InterruptedException interruptedEx) {
+                running = false;
+            } catch (IOException ioEx) {
+                System.out.println("Failed to write cache log " + file);
+                ioEx.printStackTrace();
+                batch.clear();
+            }
+        }
+    }
+
+    private void append(Write write) throws IOException {
+        long position = channel.position();
+        while (write.record.hasRemaining()) {
+            channel.write(write.record);
+        }
+
+        recordCount++;
+        if (write.skin != null) {
+            // only index the record if the skin wasn't replaced or removed in the meantime
+            SkinEntry entry = new SkinEntry(position, write.writeMillis);
+            pendingSkins.computeIfPresent(write.owner, (owner, pending) -> {
+                if (pending == write) {
+                    skins.put(owner, entry);
+                    return null;
+                }
+
+                return pending;
+            });
+        }
+    }
+
+    /**
+     * Drops the expired entries from the index, so they count as garbage of the log.
+     */
+    private void removeExpired() {
+        long now = System.currentTimeMillis();
+        for (ProfileEntry entry : profiles.values()) {
+            if (now - entry.writeMillis >= uuidExpireMillis && profiles.remove(entry.profile.getId(), entry)) {
+                unlink(entry);
+            }
+        }
+
+        skins.values().removeIf(entry -> now - entry.writeMillis >= skinExpireMillis);
+    }
+
+    /**
+     * Rewrites the log with only the live entries. This runs on the writer thread, so no records are appended in the
+     * meantime. Changes made during the compaction are still queued and appended to the new log afterwards.
+     */
+    private void compact() throws IOException {
+        removeExpired();
+
+        Path compactFile = file.resolveSibling(file.getFileName() + ".compact");
+        Map<UUID, SkinEntry> moved = new HashMap<>();
+        Map<UUID, SkinEntry> positions = new HashMap<>();
+        long count = 0;
+
+        try (FileChannel out = FileChannel.open(compactFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(out, DiskCacheLog.header());
+
+            for (ProfileEntry entry : profiles.values()) {
+                write(out, DiskCacheLog.profile(entry.profile, entry.writeMillis));
+                count++;
+            }
+
+            for (Map.Entry<UUID, SkinEntry> entry : skins.entrySet()) {
+                SkinEntry skin = entry.getValue();
+                SkinProperty property = DiskCacheLog.readSkin(channel, skin.position);
+
+                long position = out.position();
+                write(out, DiskCacheLog.skin(entry.getKey(), property, skin.writeMillis));
+                moved.put(entry.getKey(), skin);
+                positions.put(entry.getKey(), new SkinEntry(position, skin.writeMillis));
+                count++;
+            }
+
+            out.force(true);
+        }
+
+        Lock lock = channelLock.writeLock();
+        lock.lock();
+        try {
+            try {
+                channel.close();
+                Files.move(compactFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                // continue with the old log if the move failed
+                channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                channel.position(channel.size());
+            }
+
+            for (Map.Entry<UUID, SkinEntry> entry : positions.entrySet()) {
+                SkinEntry old = moved.get(entry.getKey());
+                skins.replace(entry.getKey(), old, entry.getValue());
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        recordCount = count;
+    }
+
+    private static void write(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    private <T> Optional<T> record(CacheType type, Object key, Optional<T> result) {
+        CacheLookupEvent.emit(type, key, result.isPresent());
+
+        if (result.isPresent()) {
+            metrics.recordCacheHit(type);
+        } else {
+            metrics.recordCacheMiss(type);
+        }
+
+        return result;
+    }
+
+    private static final class ProfileEntry {
+
+        private final Profile profile;
+
+        // created once, so hits don't allocate
+        private final Optional<Profile> result;
+        private final long writeMillis;
+
+        ProfileEntry(Profile profile, long writeMillis) {
+            this.profile = profile;
+            this.result = Optional.of(profile);
+            this.writeMillis = writeMillis;
+        }
+    }
+
+    private static final class SkinEntry {
+
+        private final long position;
+        private final long writeMillis;
+
+        SkinEntry(long position, long writeMillis) {
+            this.position = position;
+            this.writeMillis = writeMillis;
+        }
+    }
+
+    private static final class Write {
+
+        private static final Write STOP = new Write(ByteBuffer.allocate(0));
+
+        private final ByteBuffer record;
+        private final UUID owner;
+        private final SkinProperty skin;
+        private final long writeMillis;
+
+        Write(ByteBuffer record) {
+            this(record, null, null, 0);
+        }
+
+        Write(ByteBuffer record, UUID owner, SkinProperty skin, long writeMillis) {
+            this.record = record;
+            this.owner = owner;
+            this.skin = skin;
+            this.writeMillis = writeMillis;
+        }
+    }
+}
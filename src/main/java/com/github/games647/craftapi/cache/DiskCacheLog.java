@@ -0,0 +1,236 @@
+package com.github.games647.craftapi.cache;
+
+import com.github.games647.craftapi.model.Profile;
+import com.github.games647.craftapi.model.skin.CompactSkinProperty;
+import com.github.games647.craftapi.model.skin.SkinProperty;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/**
+ * Binary format of the {@link DiskCache} log. The file starts with a short header followed by the appended records:
+ * <pre>
+ * header:  int magic, short version
+ * record:  int payloadLength, int crc32(payload), payload
+ * payload: byte type, long writeMillis, long uuidMost, long uuidLeast, entry
+ * entry:   profile: short nameLength, name
+ *          skin:    byte flags, int valueLength, value, int signatureLength, signature
+ * </pre>
+ * Skin values and signatures are stored decoded from Base64 if they encode back to the same string. Names are UTF-8
+ * encoded. A record with a wrong checksum marks the end of the log - it was only partially written before a crash.
+ */
+final class DiskCacheLog {
+
+    static final int HEADER_SIZE = Integer.BYTES + Short.BYTES;
+
+    static final byte PROFILE = 1;
+    static final byte REMOVE_PROFILE = 2;
+    static final byte SKIN = 3;
+    static final byte REMOVE_SKIN = 4;
+    static final byte CLEAR = 5;
+
+    private static final int MAGIC = 0x43524443;
+    private static final short VERSION = 1;
+
+    private static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int PAYLOAD_HEADER_SIZE = Byte.BYTES + 3 * Long.BYTES;
+
+    private static final int FLAG_DECODED = 1;
+
+    private DiskCacheLog() {
+    }
+
+    /**
+     * Receives the records of a log scan in file order.
+     */
+    interface Visitor {
+
+        void profile(Profile profile, long writeMillis);
+
+        void skin(UUID owner, long position, long writeMillis);
+
+        void remove(byte type, UUID id);
+
+        void clear();
+    }
+
+    static ByteBuffer header() {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE);
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+        return buffer.flip();
+    }
+
+    static ByteBuffer profile(Profile profile, long writeMillis) {
+        byte[] name = profile.getName().getBytes(StandardCharsets.UTF_8);
+
+        ByteBuffer buffer = begin(PROFILE, writeMillis, profile.getId(), Short.BYTES + name.length);
+        buffer.putShort((short) name.length);
+        buffer.put(name);
+        return finish(buffer);
+    }
+
+    static ByteBuffer skin(UUID owner, SkinProperty property, long writeMillis) {
+        property = CompactSkinProperty.compact(property);
+
+        byte[] value = null;
+        byte[] signature = null;
+        boolean decoded = property instanceof CompactSkinProperty;
+        if (decoded) {
+            value = ((CompactSkinProperty) property).getDecodedValue();
+            signature = ((CompactSkinProperty) property).getDecodedSignature();
+        } else {
+            value = property.getValue().getBytes(StandardCharsets.UTF_8);
+            signature = property.getSignature().getBytes(StandardCharsets.UTF_8);
+        }
+
+        int entrySize = Byte.BYTES + Integer.BYTES + value.length + Integer.BYTES + signature.length;
+        ByteBuffer buffer = begin(SKIN, writeMillis, owner, entrySize);
+        buffer.put((byte) (decoded ? FLAG_DECODED : 0));
+        buffer.putInt(value.length);
+        buffer.put(value);
+        buffer.putInt(signature.length);
+        buffer.put(signature);
+        return finish(buffer);
+    }
+
+    static ByteBuffer remove(byte type, UUID id) {
+        return finish(begin(type, System.currentTimeMillis(), id, 0));
+    }
+
+    static ByteBuffer clear() {
+        return finish(begin(CLEAR, System.currentTimeMillis(), new UUID(0, 0), 0));
+    }
+
+    /**
+     * Replays all complete records.
+     *
+     * @param buffer the log including the header
+     * @param visitor receiver of the records
+     * @return position after the last complete record
+     * @throws IOException not a log file
+     */
+    static int scan(ByteBuffer buffer, Visitor visitor) throws IOException {
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a cache log");
+        }
+
+        short version = buffer.getShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported cache log version " + version);
+        }
+
+        CRC32 crc = new CRC32();
+        while (buffer.remaining() >= RECORD_HEADER_SIZE) {
+            int position = buffer.position();
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length < PAYLOAD_HEADER_SIZE || length > buffer.remaining()) {
+                buffer.position(position);
+                break;
+            }
+
+            ByteBuffer payload = buffer.slice().limit(length);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                buffer.position(position);
+                break;
+            }
+
+            buffer.position(buffer.position() + length);
+            visit(payload, position, visitor);
+        }
+
+        return buffer.position();
+    }
+
+    /**
+     * Reads a single skin record.
+     *
+     * @param channel log file
+     * @param position start of the record
+     * @return the stored skin
+     * @throws IOException failed to read the file or the record isn't a skin
+     */
+    static SkinProperty readSkin(FileChannel channel, long position) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+        readFully(channel, header, position);
+
+        ByteBuffer payload = ByteBuffer.allocate(header.flip().getInt());
+        readFully(channel, payload, position + RECORD_HEADER_SIZE);
+        payload.flip();
+
+        if (payload.get() != SKIN) {
+            throw new IOException("No skin record at " + position);
+        }
+
+        payload.position(PAYLOAD_HEADER_SIZE);
+        boolean decoded = (payload.get() & FLAG_DECODED) != 0;
+        byte[] value = new byte[payload.getInt()];
+        payload.get(value);
+        byte[] signature = new byte[payload.getInt()];
+        payload.get(signature);
+        if (decoded) {
+            return new CompactSkinProperty(value, signature);
+        }
+
+        String valueText = new String(value, StandardCharsets.UTF_8);
+        return new SkinProperty(valueText, new String(signature, StandardCharsets.UTF_8));
+    }
+
+    private static void visit(ByteBuffer payload, int position, Visitor visitor) {
+        byte type = payload.get();
+        long writeMillis = payload.getLong();
+        UUID id = new UUID(payload.getLong(), payload.getLong());
+        switch (type) {
+            case PROFILE:
+                byte[] name = new byte[payload.getShort()];
+                payload.get(name);
+                visitor.profile(new Profile(id, new String(name, StandardCharsets.UTF_8)), writeMillis);
+                break;
+            case SKIN:
+                visitor.skin(id, position, writeMillis);
+                break;
+            case CLEAR:
+                visitor.clear();
+                break;
+            default:
+                visitor.remove(type, id);
+                break;
+        }
+    }
+
+    private static ByteBuffer begin(byte type, long writeMillis, UUID id, int entrySize) {
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER_SIZE + PAYLOAD_HEADER_SIZE + entrySize);
+        buffer.position(RECORD_HEADER_SIZE);
+        buffer.put(type);
+        buffer.putLong(writeMillis);
+        buffer.putLong(id.getMostSignificantBits());
+        buffer.putLong(id.getLeastSignificantBits());
+        return buffer;
+    }
+
+    private static ByteBuffer finish(ByteBuffer buffer) {
+        int length = buffer.position() - RECORD_HEADER_SIZE;
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), RECORD_HEADER_SIZE, length);
+        buffer.putInt(0, length);
+        buffer.putInt(Integer.BYTES, (int) crc.getValue());
+        return buffer.flip();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of cache log at " + position);
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.github.games647.craftapi.cache;
+
+import com.github.games647.craftapi.model.Profile;
+import com.github.games647.craftapi.model.skin.SkinProperty;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Receives the entries that a cache dropped to make room for new ones. Expired and explicitly removed entries are not
+ * reported.
+ */
+interface EvictionListener {
+
+    /**
+     * @param profile evicted profile
+     * @param age time since the profile was added
+     */
+    void onProfileEvicted(Profile profile, Duration age);
+
+    /**
+     * @param owner skin owner
+     * @param property evicted skin
+     * @param age time since the skin was added
+     */
+    void onSkinEvicted(UUID owner, SkinProperty property, Duration age);
+}
@@ -0,0 +1,51 @@
+package com.github.games647.craftapi.cache;
+
+import com.github.games647.craftapi.model.Profile;
+
+import java.time.Duration;
+
+/**
+ * Computes the lifetime of each cached profile. See {@link MemoryCache#setExpiryPolicy(ExpiryPolicy)}.
+ */
+public interface ExpiryPolicy {
+
+    /**
+     * @param profile newly cached profile
+     * @return time until the entry expires - zero or negative to not cache it
+     */
+    Duration expireAfterCreate(Profile profile);
+
+    /**
+     * Called if a cached profile is replaced, for example by a refresh or after a rename.
+     *
+     * @param profile the new profile
+     * @param previous the replaced profile with the same UUID
+     * @param age time since the replaced profile was added
+     * @return time until the entry expires - zero or negative to not cache it
+     */
+    default Duration expireAfterUpdate(Profile profile, Profile previous, Duration age) {
+        return expireAfterCreate(profile);
+    }
+
+    /**
+     * Keeps names that were confirmed by a refresh longer. Names are only reused by other players after they were
+     * free for a while, so a name that didn't change since the last lookup is unlikely to move soon.
+     *
+     * @param recent lifetime of new and renamed profiles
+     * @param stable lifetime of profiles whose name didn't change on update
+     * @return the policy
+     */
+    static ExpiryPolicy stableNames(Duration recent, Duration stable) {
+        return new ExpiryPolicy() {
+            @Override
+            public Duration expireAfterCreate(Profile profile) {
+                return recent;
+            }
+
+            @Override
+            public Duration expireAfterUpdate(Profile profile, Profile previous, Duration age) {
+                return profile.getName().equals(previous.getName()) ? stable : recent;
+            }
+        };
+    }
+}
@@ -0,0 +1,87 @@
+package com.github.games647.craftapi.cache;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * {@link RemoteStore} within the same JVM. Messages are delivered synchronously to all subscribers. It's intended for
+ * tests and for sharing a store between multiple caches of a single server.
+ */
+public class InMemoryRemoteStore implements RemoteStore {
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final List<Consumer<String>> subscribers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public Map<String, String> getAll(Collection<String> keys) {
+        long now = System.currentTimeMillis();
+
+        Map<String, String> found = new HashMap<>();
+        for (String key : keys) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt > now) {
+                found.put(key, entry.value);
+            }
+        }
+
+        return found;
+    }
+
+    @Override
+    public void putAll(Map<String, String> values, Duration expire) {
+        long expiresAt = expire == null ? Long.MAX_VALUE : System.currentTimeMillis() + expire.toMillis();
+        values.forEach((key, value) -> entries.put(key, new Entry(value, expiresAt)));
+    }
+
+    @Override
+    public void removeAll(Collection<String> keys) {
+        entries.keySet().removeAll(keys);
+    }
+
+    @Override
+    public void clear() {
+        entries.clear();
+    }
+
+    @Override
+    public void publish(String message) {
+        for (Consumer<String> subscriber : subscribers) {
+            subscriber.accept(message);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<String> listener) {
+        subscribers.add(listener);
+    }
+
+    @Override
+    public void unsubscribe(Consumer<String> listener) {
+        subscribers.remove(listener);
+    }
+
+    /**
+     * @return number of stored entries including expired ones
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private static final class Entry {
+
+        private final String value;
+        private final long expiresAt;
+
+        Entry(String value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -1,30 +1,147 @@
 package com.github.games647.craftapi.cache;
 
+import com.github.games647.craftapi.metrics.CacheType;
+import com.github.games647.craftapi.metrics.Metrics;
+import com.github.games647.craftapi.metrics.NoopMetrics;
 import com.github.games647.craftapi.model.Profile;
+import com.github.games647.craftapi.model.skin.CompactSkinProperty;
 import com.github.games647.craftapi.model.skin.SkinProperty;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 
 /**
  * In memory cache for the skins and profiles.
+ * <p>
+ * Profiles are stored once by their UUID. The name index only points to the stored entries and is cleaned up
+ * whenever an entry is removed, evicted or replaced, so both lookups always return the same profile.
+ * <p>
+ * Skins differ a lot in size depending on the textures, so the default skin cache is bounded by the estimated heap
+ * usage of the entries instead of their count. See {@link #withSkinBudget(Duration, int, Duration, long, Metrics)}.
+ * They are stored as {@link CompactSkinProperty} to avoid keeping the Base64 text.
+ * <p>
+ * With {@link #setGracePeriod(Duration)} expired entries are kept a while longer, so that resolvers can still serve
+ * them while Mojang is unavailable.
+ * <p>
+ * An {@link ExpiryPolicy} can shorten the lifetime of single profiles. Those entries are tracked in a
+ * {@link TimerWheel} and removed by the next write after they expired. Until then they are already served as stale.
+ * <p>
+ * Tab completion can use a sorted name index, see {@link #setPrefixIndex(boolean)}.
+ * <p>
+ * Entries moved in from another tier of a {@link TieredCache} keep their age. Guava starts the expiration again for
+ * them, so the age is checked on each read and profiles that would outlive their remaining time are tracked in the
+ * {@link TimerWheel} as well.
  */
-public class MemoryCache implements Cache {
+public class MemoryCache implements Cache, CacheTier {
 
     private static final int DEFAULT_UUID_EXPIRE = 16_384;
     private static final int DEFAULT_UUID_SIZE = 60;
 
     private static final int DEFAULT_SKIN_EXPIRE = 5;
-    private static final int DEFAULT_SKIN_SIZE = 0;
+    private static final long DEFAULT_SKIN_BYTES = 16 * 1024 * 1024;
 
-    private final ConcurrentMap<UUID, Profile> uuidToProfileCache;
-    private final ConcurrentMap<String, Profile> nameToProfileCache;
+    // rough layout of a compressed oops JVM: object headers, references, the backing array of Latin-1 strings and
+    // the map entry with its UUID key
+    private static final int STRING_OVERHEAD = 24 + 16;
+    private static final int COMPACT_OVERHEAD = 24 + 2 * 16;
+    private static final int ENTRY_OVERHEAD = 16 + 8 + 48 + 32;
 
-    private final ConcurrentMap<UUID, SkinProperty> skinCache;
+    // reused by every lookup of the thread to find names without allocating a lower case copy
+    private static final ThreadLocal<NameKey> NAME_PROBE = ThreadLocal.withInitial(NameKey::new);
+
+    private final com.google.common.cache.Cache<UUID, Entry> profileStorage;
+    private final ConcurrentMap<UUID, Entry> uuidToProfileCache;
+    private final ConcurrentMap<NameKey, Entry> nameIndex = new ConcurrentHashMap<>();
+
+    // case-insensitive sorted names or null if disabled
+    private volatile ConcurrentNavigableMap<String, Entry> prefixIndex;
+    private final long uuidExpireNanos;
+    private final long skinExpireNanos;
+    private final int uuidSize;
+
+    private final com.google.common.cache.Cache<UUID, SkinEntry> skinStorage;
+    private final ConcurrentMap<UUID, SkinEntry> skinCache;
+    private final AtomicLong skinBytes = new AtomicLong();
+    private final int skinSize;
+    private final long maxSkinBytes;
+
+    // expired entries within the grace period or null if disabled
+    private volatile ConcurrentMap<NameKey, Entry> staleProfiles;
+    private volatile ConcurrentMap<UUID, SkinEntry> staleSkins;
+    private volatile long graceNanos;
+
+    private final Metrics metrics;
+    private volatile EvictionListener evictionListener;
+
+    // created with the first policy and guarded by itself
+    private volatile ExpiryPolicy expiryPolicy;
+    private volatile TimerWheel<Entry> timerWheel;
+
+    /**
+     * Creates a new memory cache with custom configuration options.
+     *
+     * @param uuidExpire uuid cache expiration time 0 to disable
+     * @param uuidSize uuid max cache size &le; 0 to disable
+     * @param skinExpire skin cache expiration time 0 to disable
+     * @param skinSize skin max cache size &le; 0 to disable
+     * @param metrics receiver of hit, miss and eviction counts
+     */
+    public MemoryCache(Duration uuidExpire, int uuidSize, Duration skinExpire, int skinSize, Metrics metrics) {
+        this(uuidExpire, uuidSize, skinExpire, skinSize, 0, metrics);
+    }
+
+    private MemoryCache(Duration uuidExpire, int uuidSize, Duration skinExpire, int skinSize, long maxSkinBytes,
+                        Metrics metrics) {
+        this.metrics = metrics;
+        this.uuidExpireNanos = uuidExpire == null ? Long.MAX_VALUE : uuidExpire.toNanos();
+        this.skinExpireNanos = skinExpire == null ? Long.MAX_VALUE : skinExpire.toNanos();
+        this.uuidSize = uuidSize;
+        this.skinSize = skinSize;
+        this.maxSkinBytes = maxSkinBytes;
+
+        profileStorage = newBuilder(uuidExpire, uuidSize)
+                .removalListener(this::onProfileRemoval)
+                .build();
+        uuidToProfileCache = profileStorage.asMap();
+
+        skinStorage = newSkinBuilder(skinExpire)
+                .removalListener(this::onSkinRemoval)
+                .build();
+        skinCache = skinStorage.asMap();
+    }
+
+    /**
+     * Creates a new memory cache with a skin cache that is bounded by the estimated heap usage of the skins.
+     *
+     * @param uuidExpire uuid cache expiration time 0 to disable
+     * @param uuidSize uuid max cache size &le; 0 to disable
+     * @param skinExpire skin cache expiration time 0 to disable
+     * @param maxSkinBytes heap budget of the skin cache in bytes &le; 0 to disable - with a grace period the stale
+     *                     skins get a budget of the same size in addition
+     * @param metrics receiver of hit, miss and eviction counts
+     * @return the created cache
+     */
+    public static MemoryCache withSkinBudget(Duration uuidExpire, int uuidSize, Duration skinExpire,
+                                             long maxSkinBytes, Metrics metrics) {
+        return new MemoryCache(uuidExpire, uuidSize, skinExpire, 0, maxSkinBytes, metrics);
+    }
 
     /**
      * Creates a new memory cache with custom configuration options.
@@ -35,80 +152,726 @@ public class MemoryCache implements Cache {
      * @param skinSize skin max cache size &le; 0 to disable
      */
     public MemoryCache(Duration uuidExpire, int uuidSize, Duration skinExpire, int skinSize) {
-        uuidToProfileCache = buildCache(uuidExpire, uuidSize);
-        nameToProfileCache = buildCache(uuidExpire, uuidSize);
+        this(uuidExpire, uuidSize, skinExpire, skinSize, NoopMetrics.INSTANCE);
+    }
 
-        skinCache = buildCache(skinExpire, skinSize);
+    /**
+     * Creates a new memory cache with default parameters
+     *
+     * @param metrics receiver of hit, miss and eviction counts
+     */
+    public MemoryCache(Metrics metrics) {
+        this(Duration.ofMinutes(DEFAULT_UUID_EXPIRE), DEFAULT_UUID_SIZE,
+                Duration.ofMinutes(DEFAULT_SKIN_EXPIRE), 0, DEFAULT_SKIN_BYTES, metrics);
     }
 
     /**
      * Creates a new skin cache with default parameters
      */
     public MemoryCache() {
-        this(Duration.ofMinutes(DEFAULT_UUID_EXPIRE), DEFAULT_UUID_SIZE,
-                Duration.ofMinutes(DEFAULT_SKIN_EXPIRE), DEFAULT_SKIN_SIZE);
+        this(NoopMetrics.INSTANCE);
     }
 
     @Override
     public void add(Profile profile) {
-        if (profile.getId() == null) {
-            System.out.println("Warning UUID is null - Cannot add to cache " + profile);
-        } else {
-            uuidToProfileCache.put(profile.getId(), profile);
-        }
+        long now = System.nanoTime();
+        put(profile, now, now);
+    }
 
-        nameToProfileCache.put(profile.getName().toLowerCase(), profile);
+    /**
+     * Adds a profile moved from another tier. It expires after the remaining time of its lifetime.
+     *
+     * @param profile profile moved from another tier
+     * @param age time since the profile was added to the first tier
+     */
+    @Override
+    public void add(Profile profile, Duration age) {
+        long now = System.nanoTime();
+        put(profile, now - age.toNanos(), now);
+    }
+
+    @Override
+    public void addAll(Collection<Profile> profiles) {
+        // same write time for the whole batch
+        long now = System.nanoTime();
+        for (Profile profile : profiles) {
+            put(profile, now, now);
+        }
     }
 
     @Override
     public void addSkin(UUID uniqueId, SkinProperty property) {
-        skinCache.put(uniqueId, property);
+        putSkin(uniqueId, property, System.nanoTime());
+    }
+
+    /**
+     * Adds a skin moved from another tier. It is hidden after the remaining time of its lifetime.
+     *
+     * @param uniqueId skin owner
+     * @param property skin moved from another tier
+     * @param age time since the skin was added to the first tier
+     */
+    @Override
+    public void addSkin(UUID uniqueId, SkinProperty property, Duration age) {
+        if (age.toNanos() >= skinExpireNanos) {
+            return;
+        }
+
+        putSkin(uniqueId, property, System.nanoTime() - age.toNanos());
+    }
+
+    private void putSkin(UUID uniqueId, SkinProperty property, long writeNanos) {
+        SkinProperty compact = CompactSkinProperty.compact(property);
+
+        // added before the insert, because the removal listener could already subtract it
+        skinBytes.addAndGet(estimateBytes(compact));
+        skinCache.put(uniqueId, new SkinEntry(compact, writeNanos));
+
+        ConcurrentMap<UUID, SkinEntry> stale = staleSkins;
+        if (stale != null) {
+            stale.remove(uniqueId);
+        }
     }
 
     @Override
     public void remove(Profile profile) {
-        uuidToProfileCache.remove(profile.getId(), profile);
-        nameToProfileCache.remove(profile.getName().toLowerCase(), profile);
+        if (profile.getId() == null) {
+            return;
+        }
+
+        Entry removed = uuidToProfileCache.remove(profile.getId());
+        if (removed != null) {
+            unlink(removed);
+            deschedule(removed);
+        }
+
+        ConcurrentMap<NameKey, Entry> stale = staleProfiles;
+        if (stale != null) {
+            stale.values().removeIf(entry -> profile.getId().equals(entry.profile.getId()));
+        }
     }
 
     @Override
     public void removeSkin(UUID uniqueId) {
         skinCache.remove(uniqueId);
+
+        ConcurrentMap<UUID, SkinEntry> stale = staleSkins;
+        if (stale != null) {
+            stale.remove(uniqueId);
+        }
     }
 
     @Override
     public void clear() {
         uuidToProfileCache.clear();
-        nameToProfileCache.clear();
+        nameIndex.clear();
         skinCache.clear();
+
+        ConcurrentNavigableMap<String, Entry> prefixes = prefixIndex;
+        if (prefixes != null) {
+            prefixes.clear();
+        }
+
+        TimerWheel<Entry> wheel = timerWheel;
+        if (wheel != null) {
+            synchronized (wheel) {
+                wheel.clear();
+            }
+        }
+
+        ConcurrentMap<NameKey, Entry> stale = staleProfiles;
+        if (stale != null) {
+            stale.clear();
+        }
+
+        ConcurrentMap<UUID, SkinEntry> staleSkinMap = staleSkins;
+        if (staleSkinMap != null) {
+            staleSkinMap.clear();
+        }
     }
 
     @Override
     public Optional<Profile> getByName(String playerName) {
-        return Optional.ofNullable(nameToProfileCache.get(playerName.toLowerCase()));
+        NameKey probe = NAME_PROBE.get().set(playerName);
+        Entry entry;
+        try {
+            entry = findName(probe);
+        } finally {
+            probe.clear();
+        }
+
+        Optional<Profile> result = Optional.empty();
+        if (entry != null && System.nanoTime() - entry.writeNanos < entry.ttlNanos) {
+            result = entry.result;
+        }
+
+        return record(CacheType.PROFILE, playerName, result);
     }
 
     @Override
     public Optional<Profile> getById(UUID uniqueId) {
-        return Optional.ofNullable(uuidToProfileCache.get(uniqueId));
+        Entry entry = uuidToProfileCache.get(uniqueId);
+        return record(CacheType.PROFILE, uniqueId, entry == null || !isAlive(entry) ? Optional.empty() : entry.result);
+    }
+
+    @Override
+    public BulkLookup<String, Profile> getAllByName(Collection<String> playerNames) {
+        Map<String, Profile> hits = new LinkedHashMap<>();
+        List<String> misses = new ArrayList<>();
+
+        // one probe and one clock read for all names
+        NameKey probe = NAME_PROBE.get();
+        long now = System.nanoTime();
+        try {
+            for (String name : playerNames) {
+                Entry entry = findName(probe.set(name));
+                if (entry != null && now - entry.writeNanos < entry.ttlNanos) {
+                    hits.put(name, entry.profile);
+                } else {
+                    misses.add(name);
+                }
+            }
+        } finally {
+            probe.clear();
+        }
+
+        return recordAll(CacheType.PROFILE, hits, misses);
+    }
+
+    @Override
+    public BulkLookup<UUID, Profile> getAllById(Collection<UUID> uniqueIds) {
+        Map<UUID, Profile> hits = new LinkedHashMap<>();
+        List<UUID> misses = new ArrayList<>();
+        for (UUID id : uniqueIds) {
+            Entry entry = uuidToProfileCache.get(id);
+            if (entry == null || !isAlive(entry)) {
+                misses.add(id);
+            } else {
+                hits.put(id, entry.profile);
+            }
+        }
+
+        return recordAll(CacheType.PROFILE, hits, misses);
     }
 
     @Override
     public Optional<SkinProperty> getSkin(UUID uniqueId) {
-        return Optional.ofNullable(skinCache.get(uniqueId));
+        SkinEntry entry = skinCache.get(uniqueId);
+        return record(CacheType.SKIN, uniqueId, entry == null || !isAlive(entry) ? Optional.empty() : entry.result);
+    }
+
+    @Override
+    public Optional<Profile> getStaleByName(String playerName) {
+        ConcurrentMap<NameKey, Entry> stale = staleProfiles;
+        if (stale == null) {
+            return Optional.empty();
+        }
+
+        // move entries that expired, but weren't cleaned up by Guava yet
+        profileStorage.cleanUp();
+
+        NameKey name = new NameKey(playerName);
+        Entry entry = stale.get(name);
+        if (entry == null) {
+            // the timer wheel only moves expired entries with the next write
+            entry = findName(name);
+            if (entry == null || isAlive(entry)
+                    || System.nanoTime() - entry.writeNanos - entry.ttlNanos >= graceNanos) {
+                return Optional.empty();
+            }
+        }
+
+        return entry.result;
+    }
+
+    @Override
+    public Optional<SkinProperty> getStaleSkin(UUID uniqueId) {
+        ConcurrentMap<UUID, SkinEntry> stale = staleSkins;
+        if (stale == null) {
+            return Optional.empty();
+        }
+
+        skinStorage.cleanUp();
+
+        SkinEntry entry = stale.get(uniqueId);
+        return entry == null ? Optional.empty() : entry.result;
+    }
+
+    @Override
+    public Optional<Duration> getProfileAge(String playerName) {
+        NameKey probe = NAME_PROBE.get().set(playerName);
+        Entry entry;
+        try {
+            entry = findName(probe);
+        } finally {
+            probe.clear();
+        }
+
+        if (entry == null) {
+            return Optional.empty();
+        }
+
+        long age = System.nanoTime() - entry.writeNanos;
+        return age < entry.ttlNanos ? Optional.of(Duration.ofNanos(age)) : Optional.empty();
+    }
+
+    @Override
+    public Optional<Duration> getSkinAge(UUID uniqueId) {
+        SkinEntry entry = skinCache.get(uniqueId);
+        if (entry == null) {
+            return Optional.empty();
+        }
+
+        long age = System.nanoTime() - entry.writeNanos;
+        return age < skinExpireNanos ? Optional.of(Duration.ofNanos(age)) : Optional.empty();
     }
 
     @Override
     public ImmutableSet<Profile> getCachedProfiles() {
-        return ImmutableSet.copyOf(uuidToProfileCache.values());
+        ImmutableSet.Builder<Profile> builder = ImmutableSet.builder();
+        for (Entry entry : uuidToProfileCache.values()) {
+            if (isAlive(entry)) {
+                builder.add(entry.profile);
+            }
+        }
+
+        return builder.build();
     }
 
     @Override
     public ImmutableSet<SkinProperty> getCachedSkins() {
-        return ImmutableSet.copyOf(skinCache.values());
+        ImmutableSet.Builder<SkinProperty> builder = ImmutableSet.builder();
+        for (SkinEntry entry : skinCache.values()) {
+            if (isAlive(entry)) {
+                builder.add(entry.property);
+            }
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Uses the prefix index if enabled. Otherwise all profiles are scanned.
+     *
+     * @param prefix case-insensitive start of the names
+     * @param limit maximum number of names
+     * @return matching names sorted case-insensitive
+     */
+    @Override
+    public ImmutableList<String> findNamesByPrefix(String prefix, int limit) {
+        ConcurrentNavigableMap<String, Entry> prefixes = prefixIndex;
+        if (prefixes == null) {
+            return Cache.super.findNamesByPrefix(prefix, limit);
+        }
+
+        ImmutableList.Builder<String> names = ImmutableList.builder();
+        int found = 0;
+        for (Map.Entry<String, Entry> candidate : prefixes.tailMap(prefix, true).entrySet()) {
+            String name = candidate.getKey();
+            if (found >= limit || !name.regionMatches(true, 0, prefix, 0, prefix.length())) {
+                break;
+            }
+
+            // skip names that were replaced while the index was built
+            Entry entry = candidate.getValue();
+            if (isAlive(entry) && !entry.unlinked) {
+                // the key keeps the first spelling, even if the name only changed its case
+                names.add(entry.profile.getName());
+                found++;
+            }
+        }
+
+        return names.build();
+    }
+
+    @Override
+    public Stream<Profile> streamProfiles() {
+        return uuidToProfileCache.values().stream().filter(this::isAlive).map(entry -> entry.profile);
+    }
+
+    @Override
+    public Stream<SkinProperty> streamSkins() {
+        return skinCache.values().stream().filter(this::isAlive).map(entry -> entry.property);
+    }
+
+    /**
+     * @return estimated heap usage of the cached skins in bytes including the stale ones
+     */
+    public long getSkinBytes() {
+        return skinBytes.get();
     }
 
-    private <K, V> ConcurrentMap<K, V> buildCache(Duration expireAfterWrite, int maxSize) {
+    /**
+     * Keeps expired entries for the given time. They are only returned by {@link #getStaleByName(String)} and
+     * {@link #getStaleSkin(UUID)}. Changing the period drops all currently kept entries.
+     * <p>
+     * Stale skins are bounded separately by the same skin budget, so the skins can use up to twice the budget. They
+     * are included in {@link #getSkinBytes()}.
+     *
+     * @param gracePeriod time after the expiration or null to disable
+     */
+    public void setGracePeriod(Duration gracePeriod) {
+        ConcurrentMap<UUID, SkinEntry> previousSkins = staleSkins;
+        if (gracePeriod == null || gracePeriod.isZero()) {
+            staleProfiles = null;
+            staleSkins = null;
+        } else {
+            graceNanos = gracePeriod.toNanos();
+            staleProfiles = newBuilder(gracePeriod, uuidSize).<NameKey, Entry>build().asMap();
+            staleSkins = newSkinBuilder(gracePeriod)
+                    .removalListener(this::onStaleSkinRemoval)
+                    .<UUID, SkinEntry>build().asMap();
+        }
+
+        if (previousSkins != null) {
+            // releases their bytes
+            previousSkins.clear();
+        }
+    }
+
+    /**
+     * Maintains a sorted index of the cached names, so that {@link #findNamesByPrefix(String, int)} only visits the
+     * matching names instead of scanning all profiles. The index is a concurrent skip list - lookups don't copy and
+     * don't block writers. It costs roughly one skip list node per profile.
+     *
+     * @param enabled true to build the index from the current profiles, false to drop it
+     */
+    public void setPrefixIndex(boolean enabled) {
+        if (!enabled) {
+            prefixIndex = null;
+            return;
+        }
+
+        ConcurrentNavigableMap<String, Entry> prefixes = new ConcurrentSkipListMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (Entry entry : uuidToProfileCache.values()) {
+            prefixes.putIfAbsent(entry.profile.getName(), entry);
+        }
+
+        prefixIndex = prefixes;
+
+        // profiles added while the index was built - newer ones were already put after the publication
+        for (Entry entry : uuidToProfileCache.values()) {
+            if (!entry.unlinked) {
+                prefixes.putIfAbsent(entry.profile.getName(), entry);
+            }
+        }
+    }
+
+    /**
+     * Computes the lifetime of each profile added afterwards. The expiration of the constructor stays the upper
+     * bound, so configure a long one or null to keep profiles longer than the default.
+     *
+     * @param policy lifetime of the entries or null to use the fixed expiration of the constructor
+     */
+    public void setExpiryPolicy(ExpiryPolicy policy) {
+        if (policy != null) {
+            timerWheel();
+        }
+
+        this.expiryPolicy = policy;
+    }
+
+    /**
+     * @param listener receiver of the entries dropped because of the size limit
+     */
+    void setEvictionListener(EvictionListener listener) {
+        this.evictionListener = listener;
+    }
+
+    private <T> Optional<T> record(CacheType type, Object key, Optional<T> result) {
+        CacheLookupEvent.emit(type, key, result.isPresent());
+
+        if (result.isPresent()) {
+            metrics.recordCacheHit(type);
+        } else {
+            metrics.recordCacheMiss(type);
+        }
+
+        return result;
+    }
+
+    private <K> BulkLookup<K, Profile> recordAll(CacheType type, Map<K, Profile> hits, List<K> misses) {
+        if (CacheLookupEvent.TYPE.isEnabled()) {
+            hits.keySet().forEach(key -> CacheLookupEvent.emit(type, key, true));
+            misses.forEach(key -> CacheLookupEvent.emit(type, key, false));
+        }
+
+        metrics.recordCacheHits(type, hits.size());
+        metrics.recordCacheMisses(type, misses.size());
+        return new BulkLookup<>(hits, misses);
+    }
+
+    private void onProfileRemoval(RemovalNotification<UUID, Entry> notification) {
+        // explicit removals and replacements are unlinked by the caller
+        if (notification.wasEvicted()) {
+            metrics.recordCacheEviction(CacheType.PROFILE);
+            unlink(notification.getValue());
+            deschedule(notification.getValue());
+
+            ConcurrentMap<NameKey, Entry> stale = staleProfiles;
+            if (stale != null && notification.getCause() == RemovalCause.EXPIRED) {
+                Entry entry = notification.getValue();
+                stale.put(new NameKey(entry.profile.getName()), entry);
+            }
+
+            EvictionListener listener = evictionListener;
+            if (listener != null && notification.getCause() == RemovalCause.SIZE) {
+                Entry entry = notification.getValue();
+                listener.onProfileEvicted(entry.profile, Duration.ofNanos(System.nanoTime() - entry.writeNanos));
+            }
+        }
+    }
+
+    private void onSkinRemoval(RemovalNotification<UUID, SkinEntry> notification) {
+        // replaced and explicitly removed skins are released too
+        SkinProperty property = notification.getValue().property;
+        skinBytes.addAndGet(-estimateBytes(property));
+        if (notification.wasEvicted()) {
+            metrics.recordCacheEviction(CacheType.SKIN);
+
+            ConcurrentMap<UUID, SkinEntry> stale = staleSkins;
+            if (stale != null && notification.getCause() == RemovalCause.EXPIRED) {
+                // released again by the stale map
+                skinBytes.addAndGet(estimateBytes(property));
+                stale.put(notification.getKey(), notification.getValue());
+            }
+
+            EvictionListener listener = evictionListener;
+            if (listener != null && notification.getCause() == RemovalCause.SIZE) {
+                long age = System.nanoTime() - notification.getValue().writeNanos;
+                listener.onSkinEvicted(notification.getKey(), property, Duration.ofNanos(age));
+            }
+        }
+    }
+
+    private void onStaleSkinRemoval(RemovalNotification<UUID, SkinEntry> notification) {
+        skinBytes.addAndGet(-estimateBytes(notification.getValue().property));
+    }
+
+    /**
+     * @param profile added profile
+     * @param writeNanos time the profile was added to the first tier
+     * @param nowNanos current time
+     */
+    private void put(Profile profile, long writeNanos, long nowNanos) {
+        if (profile.getId() == null) {
+            System.out.println("Warning UUID is null - Cannot add to cache " + profile);
+            return;
+        }
+
+        long ttlNanos = uuidExpireNanos;
+        ExpiryPolicy policy = expiryPolicy;
+        if (policy != null) {
+            Entry current = uuidToProfileCache.get(profile.getId());
+            Duration ttl;
+            if (current == null) {
+                ttl = policy.expireAfterCreate(profile);
+            } else {
+                Duration age = Duration.ofNanos(nowNanos - current.writeNanos);
+                ttl = policy.expireAfterUpdate(profile, current.profile, age);
+            }
+
+            if (ttl.isZero() || ttl.isNegative()) {
+                if (current != null) {
+                    removeEntry(current);
+                }
+
+                return;
+            }
+
+            if (ttl.compareTo(Duration.ofNanos(uuidExpireNanos)) < 0) {
+                ttlNanos = ttl.toNanos();
+            }
+        }
+
+        // moved from another tier after its lifetime ended
+        long remainingNanos = ttlNanos - (nowNanos - writeNanos);
+        if (remainingNanos <= 0) {
+            return;
+        }
+
+        Entry entry = new Entry(profile, writeNanos, ttlNanos);
+        Entry previous = uuidToProfileCache.put(profile.getId(), entry);
+        NameKey name = new NameKey(profile.getName());
+        nameIndex.put(name, entry);
+
+        ConcurrentNavigableMap<String, Entry> prefixes = prefixIndex;
+        if (prefixes != null) {
+            prefixes.put(profile.getName(), entry);
+        }
+
+        ConcurrentMap<NameKey, Entry> stale = staleProfiles;
+        if (stale != null) {
+            stale.remove(name);
+        }
+
+        if (previous != null) {
+            // renamed player or a refreshed entry
+            unlink(previous);
+        }
+
+        // Guava removes entries with the fixed expiration, unless they were moved in with an age
+        boolean schedule = ttlNanos != Long.MAX_VALUE && remainingNanos < uuidExpireNanos;
+        TimerWheel<Entry> wheel = schedule ? timerWheel() : timerWheel;
+        if (wheel != null) {
+            List<Entry> expired = new ArrayList<>();
+            synchronized (wheel) {
+                if (previous != null && previous.timer != null) {
+                    wheel.deschedule(previous.timer);
+                }
+
+                wheel.advance(nowNanos, expired::add);
+                if (schedule) {
+                    entry.timer = wheel.schedule(entry, writeNanos + ttlNanos);
+                }
+            }
+
+            // outside the lock, because the removal could notify listeners
+            expired.forEach(this::expire);
+        }
+    }
+
+    /**
+     * Looks up the name index and drops the mapping if it points to an entry that was already unlinked.
+     * <p>
+     * Both indexes are updated one after the other, so concurrent writes of the same UUID or an eviction in between
+     * can leave a name behind. The flag is checked instead of reading the UUID cache, because Guava records the
+     * access of size bounded caches and that allocates.
+     *
+     * @param probe case-insensitive name
+     * @return the entry that is still cached or null
+     */
+    private Entry findName(NameKey probe) {
+        Entry entry = nameIndex.get(probe);
+        if (entry == null || !entry.unlinked) {
+            return entry;
+        }
+
+        nameIndex.remove(probe, entry);
+        return null;
+    }
+
+    /**
+     * Removes the entry from both indexes if it wasn't replaced in the meantime.
+     */
+    private void removeEntry(Entry entry) {
+        if (uuidToProfileCache.remove(entry.profile.getId(), entry)) {
+            unlink(entry);
+            deschedule(entry);
+        }
+    }
+
+    /**
+     * Removes the entry if it wasn't replaced in the meantime.
+     *
+     * @param entry entry with an expired lifetime of the policy
+     */
+    private void expire(Entry entry) {
+        if (!uuidToProfileCache.remove(entry.profile.getId(), entry)) {
+            return;
+        }
+
+        metrics.recordCacheEviction(CacheType.PROFILE);
+        unlink(entry);
+
+        ConcurrentMap<NameKey, Entry> stale = staleProfiles;
+        if (stale != null) {
+            stale.put(new NameKey(entry.profile.getName()), entry);
+        }
+    }
+
+    private TimerWheel<Entry> timerWheel() {
+        TimerWheel<Entry> wheel = timerWheel;
+        if (wheel == null) {
+            synchronized (this) {
+                wheel = timerWheel;
+                if (wheel == null) {
+                    wheel = new TimerWheel<>(System.nanoTime());
+                    timerWheel = wheel;
+                }
+            }
+        }
+
+        return wheel;
+    }
+
+    private void deschedule(Entry entry) {
+        TimerWheel<Entry> wheel = timerWheel;
+        if (wheel != null) {
+            synchronized (wheel) {
+                if (entry.timer != null) {
+                    wheel.deschedule(entry.timer);
+                    entry.timer = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return false if the entry outlived its lifetime, but wasn't removed yet
+     */
+    private boolean isAlive(Entry entry) {
+        return System.nanoTime() - entry.writeNanos < entry.ttlNanos;
+    }
+
+    /**
+     * @return false if the skin outlived its lifetime, but wasn't removed yet
+     */
+    private boolean isAlive(SkinEntry entry) {
+        return System.nanoTime() - entry.writeNanos < skinExpireNanos;
+    }
+
+    /**
+     * Removes the name mapping of the profile, but only if it still points to exactly this entry. A newer profile
+     * could already use the same name.
+     *
+     * @param entry the removed entry
+     */
+    private void unlink(Entry entry) {
+        // before the removal - a concurrent put could map the name to this entry again
+        entry.unlinked = true;
+
+        NameKey name = new NameKey(entry.profile.getName());
+        nameIndex.computeIfPresent(name, (key, current) -> current == entry ? null : current);
+
+        ConcurrentNavigableMap<String, Entry> prefixes = prefixIndex;
+        if (prefixes != null) {
+            prefixes.remove(entry.profile.getName(), entry);
+        }
+    }
+
+    /**
+     * @param property cached skin
+     * @return estimated retained heap size of the skin and its cache entry in bytes
+     */
+    static int estimateBytes(SkinProperty property) {
+        if (property instanceof CompactSkinProperty) {
+            return ENTRY_OVERHEAD + COMPACT_OVERHEAD + ((CompactSkinProperty) property).getDecodedLength();
+        }
+
+        int bytes = ENTRY_OVERHEAD;
+        if (property.getValue() != null) {
+            bytes += STRING_OVERHEAD + property.getValue().length();
+        }
+
+        if (property.getSignature() != null) {
+            bytes += STRING_OVERHEAD + property.getSignature().length();
+        }
+
+        return bytes;
+    }
+
+    private CacheBuilder<Object, Object> newSkinBuilder(Duration expireAfterWrite) {
+        CacheBuilder<Object, Object> builder = newBuilder(expireAfterWrite, skinSize);
+        if (maxSkinBytes > 0) {
+            builder.maximumWeight(maxSkinBytes)
+                    .weigher((key, value) -> estimateBytes(((SkinEntry) value).property));
+        }
+
+        return builder;
+    }
+
+    private static CacheBuilder<Object, Object> newBuilder(Duration expireAfterWrite, int maxSize) {
         CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder();
         if (expireAfterWrite != null) {
             builder.expireAfterWrite(expireAfterWrite);
@@ -118,6 +881,42 @@ public class MemoryCache implements Cache {
             builder.maximumSize(maxSize);
         }
 
-        return builder.<K, V>build().asMap();
+        return builder;
+    }
+
+    private static final class Entry {
+
+        private final Profile profile;
+
+        // created once, so hits don't allocate
+        private final Optional<Profile> result;
+        private final long writeNanos;
+        private final long ttlNanos;
+
+        // scheduled expiration of a shorter lifetime - guarded by the timer wheel
+        private TimerWheel.Node<Entry> timer;
+
+        // removed, replaced or evicted from the UUID cache
+        private volatile boolean unlinked;
+
+        Entry(Profile profile, long writeNanos, long ttlNanos) {
+            this.profile = profile;
+            this.result = Optional.of(profile);
+            this.writeNanos = writeNanos;
+            this.ttlNanos = ttlNanos;
+        }
+    }
+
+    private static final class SkinEntry {
+
+        private final SkinProperty property;
+        private final Optional<SkinProperty> result;
+        private final long writeNanos;
+
+        SkinEntry(SkinProperty property, long writeNanos) {
+            this.property = property;
+            this.result = Optional.of(property);
+            this.writeNanos = writeNanos;
+        }
     }
 }
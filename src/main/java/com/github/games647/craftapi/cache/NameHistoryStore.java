@@ -0,0 +1,331 @@
+package com.github.games647.craftapi.cache;
+
+import com.github.games647.craftapi.model.NameHistory;
+import com.github.games647.craftapi.model.Profile;
+import com.google.common.collect.ImmutableList;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.CRC32;
+
+/**
+ * Timeline of the names each UUID had, built from the profiles the resolvers receive. Mojang removed the name history
+ * endpoint, so this answers historical lookups offline instead.
+ * <p>
+ * Only name changes are stored: an interval starts when a UUID is seen with a new name and lasts until the same UUID
+ * is seen with another one. Both the UUID and the name timeline are sorted arrays, so lookups are binary searches.
+ * Names that were used before the first observation are unknown.
+ * <p>
+ * Optionally the changes are appended to a file and replayed on startup. The format is:
+ * <pre>
+ * header:  int magic, short version
+ * record:  int payloadLength, int crc32(payload), payload
+ * payload: long startMillis, long uuidMost, long uuidLeast, short nameLength, name
+ * </pre>
+ */
+public class NameHistoryStore implements Closeable {
+
+    private static final int MAGIC = 0x4352484e;
+    private static final short VERSION = 1;
+
+    private static final int HEADER_SIZE = Integer.BYTES + Short.BYTES;
+    private static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int PAYLOAD_HEADER_SIZE = 3 * Long.BYTES + Short.BYTES;
+
+    private static final Interval[] EMPTY = new Interval[0];
+
+    // replaced on every change, so readers don't need a lock
+    private final ConcurrentMap<UUID, Interval[]> idTimelines = new ConcurrentHashMap<>();
+    private final ConcurrentMap<NameKey, Interval[]> nameTimelines = new ConcurrentHashMap<>();
+
+    // null if only kept in memory
+    private final FileChannel channel;
+
+    /**
+     * Creates a store that is only kept in memory.
+     */
+    public NameHistoryStore() {
+        this.channel = null;
+    }
+
+    /**
+     * Opens or creates a persistent store.
+     *
+     * @param file log of the name changes
+     * @throws IOException failed to read the file or it isn't a name history log
+     */
+    public NameHistoryStore(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            load(file);
+        } catch (IOException ioEx) {
+            channel.close();
+            throw ioEx;
+        }
+    }
+
+    /**
+     * @param profile profile received from Mojang
+     * @param time when the profile was received
+     */
+    public void record(Profile profile, Instant time) {
+        record(profile.getId(), profile.getName(), time);
+    }
+
+    /**
+     * Records that the player used the name at the given time.
+     *
+     * @param uniqueId premium UUID
+     * @param name case-sensitive player name
+     * @param time when the name was seen
+     */
+    public synchronized void record(UUID uniqueId, String name, Instant time) {
+        if (apply(uniqueId, name, time.toEpochMilli()) && channel != null) {
+            try {
+                write(uniqueId, name, time.toEpochMilli());
+            } catch (IOException ioEx) {
+                System.out.println("Failed to write name history of " + uniqueId + ": " + ioEx);
+            }
+        }
+    }
+
+    /**
+     * @param name case-insensitive player name
+     * @param time time the player had this name
+     * @return the profile that had the name at this time or empty if unknown
+     */
+    public Optional<Profile> findProfile(String name, Instant time) {
+        Interval[] claims = nameTimelines.getOrDefault(new NameKey(name), EMPTY);
+        long millis = time.toEpochMilli();
+
+        int index = floor(claims, millis);
+        if (index < 0) {
+            return Optional.empty();
+        }
+
+        // the owner could have changed to another name before
+        Interval claim = claims[index];
+        Interval[] history = idTimelines.getOrDefault(claim.id, EMPTY);
+        int position = floor(history, claim.startMillis);
+        if (position + 1 < history.length && history[position + 1].startMillis <= millis) {
+            return Optional.empty();
+        }
+
+        return Optional.of(new Profile(claim.id, claim.name));
+    }
+
+    /**
+     * @param uniqueId premium UUID
+     * @return seen names from the oldest to the current one or empty if unknown. All except the current one contain
+     * the time they were seen first.
+     */
+    public ImmutableList<NameHistory> findNames(UUID uniqueId) {
+        Interval[] history = idTimelines.getOrDefault(uniqueId, EMPTY);
+
+        ImmutableList.Builder<NameHistory> names = ImmutableList.builder();
+        for (int i = 0; i < history.length; i++) {
+            Interval interval = history[i];
+            if (i == history.length - 1) {
+                names.add(new NameHistory(interval.name));
+            } else {
+                names.add(new NameHistory(interval.name, Instant.ofEpochMilli(interval.startMillis)));
+            }
+        }
+
+        return names.build();
+    }
+
+    /**
+     * @return number of known UUIDs
+     */
+    public int size() {
+        return idTimelines.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    /**
+     * @return true if the timeline changed
+     */
+    private boolean apply(UUID id, String name, long millis) {
+        Interval[] history = idTimelines.getOrDefault(id, EMPTY);
+        int index = floor(history, millis);
+        if (index >= 0 && history[index].name.equalsIgnoreCase(name)) {
+            // still the same interval - the casing could have changed, but it isn't worth a record
+            return false;
+        }
+
+        Interval interval = new Interval(id, name, millis);
+        if (index + 1 < history.length && history[index + 1].name.equalsIgnoreCase(name)) {
+            // seen earlier than recorded before
+            Interval later = history[index + 1];
+            idTimelines.put(id, replace(history, index + 1, interval));
+
+            NameKey key = new NameKey(name);
+            Interval[] claims = nameTimelines.get(key);
+            nameTimelines.put(key, insert(remove(claims, later), interval));
+            return true;
+        }
+
+        idTimelines.put(id, insert(history, interval));
+        nameTimelines.merge(new NameKey(name), new Interval[]{interval}, (claims, added) -> insert(claims, interval));
+        return true;
+    }
+
+    private void load(Path file) throws IOException {
+        if (channel.size() == 0) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putShort(VERSION).flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+
+            return;
+        }
+
+        if (channel.size() > Integer.MAX_VALUE) {
+            throw new IOException("Name history too large " + file);
+        }
+
+        ByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a name history " + file);
+        }
+
+        short version = buffer.getShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported name history version " + version);
+        }
+
+        CRC32 crc = new CRC32();
+        while (buffer.remaining() >= RECORD_HEADER_SIZE) {
+            int position = buffer.position();
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length < PAYLOAD_HEADER_SIZE || length > buffer.remaining()) {
+                buffer.position(position);
+                break;
+            }
+
+            ByteBuffer payload = buffer.slice().limit(length);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                buffer.position(position);
+                break;
+            }
+
+            buffer.position(buffer.position() + length);
+
+            long startMillis = payload.getLong();
+            UUID id = new UUID(payload.getLong(), payload.getLong());
+            byte[] name = new byte[payload.getShort()];
+            payload.get(name);
+            apply(id, new String(name, StandardCharsets.UTF_8), startMillis);
+        }
+
+        // drop a partially written record from a crash
+        int end = buffer.position();
+        if (end < channel.size()) {
+            channel.truncate(end);
+        }
+
+        channel.position(end);
+    }
+
+    private void write(UUID id, String name, long startMillis) throws IOException {
+        byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+        int length = PAYLOAD_HEADER_SIZE + encoded.length;
+
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER_SIZE + length);
+        buffer.position(RECORD_HEADER_SIZE);
+        buffer.putLong(startMillis);
+        buffer.putLong(id.getMostSignificantBits());
+        buffer.putLong(id.getLeastSignificantBits());
+        buffer.putShort((short) encoded.length);
+        buffer.put(encoded);
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), RECORD_HEADER_SIZE, length);
+        buffer.putInt(0, length);
+        buffer.putInt(Integer.BYTES, (int) crc.getValue());
+        buffer.flip();
+
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * @return index of the last interval that started at or before the time or -1 if none
+     */
+    private static int floor(Interval[] timeline, long millis) {
+        int low = 0;
+        int high = timeline.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (timeline[middle].startMillis <= millis) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        return high;
+    }
+
+    private static Interval[] insert(Interval[] timeline, Interval interval) {
+        int index = floor(timeline, interval.startMillis) + 1;
+
+        Interval[] copy = new Interval[timeline.length + 1];
+        System.arraycopy(timeline, 0, copy, 0, index);
+        copy[index] = interval;
+        System.arraycopy(timeline, index, copy, index + 1, timeline.length - index);
+        return copy;
+    }
+
+    private static Interval[] remove(Interval[] timeline, Interval interval) {
+        int index = Arrays.asList(timeline).indexOf(interval);
+
+        Interval[] copy = new Interval[timeline.length - 1];
+        System.arraycopy(timeline, 0, copy, 0, index);
+        System.arraycopy(timeline, index + 1, copy, index, timeline.length - index - 1);
+        return copy;
+    }
+
+    private static Interval[] replace(Interval[] timeline, int index, Interval interval) {
+        Interval[] copy = timeline.clone();
+        copy[index] = interval;
+        return copy;
+    }
+
+    private static final class Interval {
+
+        private final UUID id;
+        private final String name;
+        private final long startMillis;
+
+        Interval(UUID id, String name, long startMillis) {
+            this.id = id;
+            this.name = name;
+            this.startMillis = startMillis;
+        }
+    }
+}
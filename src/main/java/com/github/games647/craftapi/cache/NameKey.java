@@ -0,0 +1,56 @@
+package com.github.games647.craftapi.cache;
+
+/**
+ * Case-insensitive map key for player names. A lookup can reuse a single mutable instance per thread, so neither a
+ * lower case copy of the name nor a new key is created.
+ */
+final class NameKey {
+
+    private CharSequence name;
+    private int hash;
+
+    NameKey() {
+        // probe key
+    }
+
+    NameKey(CharSequence name) {
+        set(name);
+    }
+
+    NameKey set(CharSequence name) {
+        this.name = name;
+        this.hash = AsciiNames.hash(name);
+        return this;
+    }
+
+    /**
+     * Drops the reference to the last looked up name.
+     */
+    void clear() {
+        this.name = null;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+
+        if (other instanceof NameKey) {
+            NameKey that = (NameKey) other;
+            return hash == that.hash && AsciiNames.equalsIgnoreCase(name, that.name);
+        }
+
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(name);
+    }
+}
@@ -0,0 +1,448 @@
+package com.github.games647.craftapi.cache;
+
+import com.github.games647.craftapi.metrics.CacheType;
+import com.github.games647.craftapi.metrics.Metrics;
+import com.github.games647.craftapi.metrics.NoopMetrics;
+import com.github.games647.craftapi.model.Profile;
+import com.github.games647.craftapi.model.skin.SkinProperty;
+import com.google.common.collect.ImmutableSet;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * Cache shared by all nodes of a network through a {@link RemoteStore}. A small {@link MemoryCache} in front answers
+ * the repeated lookups, so hits don't need a round trip. Only local misses ask the store.
+ * <p>
+ * Writes are applied to the local cache immediately and sent to the store by a background thread in batches. After
+ * each batch, the other nodes are told to drop their local copies of the changed profiles and skins, so renames and
+ * skin changes propagate. Close the cache to send the pending writes.
+ * <p>
+ * The local cache shouldn't be used elsewhere and should be created without metrics - this cache records the hits,
+ * misses and the tier (1 local, 2 remote) that contained the entry.
+ */
+public class NearCache implements Cache, Closeable {
+
+    private static final String PROFILE_ID_PREFIX = "craftapi:profile:id:";
+    private static final String PROFILE_NAME_PREFIX = "craftapi:profile:name:";
+    private static final String SKIN_PREFIX = "craftapi:skin:";
+
+    // invalidation messages: sender node, type and the UUID if any
+    private static final String PROFILE_MESSAGE = "P";
+    private static final String SKIN_MESSAGE = "S";
+    private static final String CLEAR_MESSAGE = "C";
+
+    private static final int LOCAL_TIER = 1;
+    private static final int REMOTE_TIER = 2;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final MemoryCache local;
+    private final RemoteStore store;
+    private final Duration remoteExpire;
+    private final Metrics metrics;
+    private final Consumer<String> invalidationListener = this::onMessage;
+
+    private final BlockingQueue<Write> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private volatile boolean closed;
+
+    /**
+     * Creates a new near cache and subscribes to the invalidation messages of the store.
+     *
+     * @param local cache of this node
+     * @param store store shared by all nodes
+     * @param remoteExpire expiration time of the shared entries or null to disable
+     * @param metrics receiver of hit, miss and tier counts
+     */
+    public NearCache(MemoryCache local, RemoteStore store, Duration remoteExpire, Metrics metrics) {
+        this.local = local;
+        this.store = store;
+        this.remoteExpire = remoteExpire;
+        this.metrics = metrics;
+
+        store.subscribe(invalidationListener);
+
+        writer = new Thread(this::writeLoop, "craftapi-near-cache");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Creates a new near cache and subscribes to the invalidation messages of the store.
+     *
+     * @param local cache of this node
+     * @param store store shared by all nodes
+     * @param remoteExpire expiration time of the shared entries or null to disable
+     */
+    public NearCache(MemoryCache local, RemoteStore store, Duration remoteExpire) {
+        this(local, store, remoteExpire, NoopMetrics.INSTANCE);
+    }
+
+    @Override
+    public void add(Profile profile) {
+        UUID id = profile.getId();
+        if (id == null) {
+            System.out.println("Warning UUID is null - Cannot add to cache " + profile);
+            return;
+        }
+
+        // the old name mapping of a renamed player has to be removed from the store too
+        Optional<Profile> previous = local.getById(id);
+        local.add(profile);
+
+        if (previous.isPresent() && !previous.get().getName().equalsIgnoreCase(profile.getName())) {
+            enqueue(Write.remove(nameKey(previous.get().getName())));
+        }
+
+        enqueue(Write.put(idKey(id), profile.getName()));
+        enqueue(Write.put(nameKey(profile.getName()), id + " " + profile.getName()));
+        enqueue(Write.publish(message(PROFILE_MESSAGE, id)));
+    }
+
+    @Override
+    public void addSkin(UUID uniqueId, SkinProperty property) {
+        local.addSkin(uniqueId, property);
+
+        // Base64 doesn't contain line breaks
+        enqueue(Write.put(skinKey(uniqueId), property.getValue() + '\n' + property.getSignature()));
+        enqueue(Write.publish(message(SKIN_MESSAGE, uniqueId)));
+    }
+
+    @Override
+    public void remove(Profile profile) {
+        UUID id = profile.getId();
+        if (id == null) {
+            return;
+        }
+
+        local.remove(profile);
+
+        enqueue(Write.remove(idKey(id)));
+        if (profile.getName() != null) {
+            enqueue(Write.remove(nameKey(profile.getName())));
+        }
+
+        enqueue(Write.publish(message(PROFILE_MESSAGE, id)));
+    }
+
+    @Override
+    public void removeSkin(UUID uniqueId) {
+        local.removeSkin(uniqueId);
+
+        enqueue(Write.remove(skinKey(uniqueId)));
+        enqueue(Write.publish(message(SKIN_MESSAGE, uniqueId)));
+    }
+
+    /**
+     * Clears the local cache, the store and the local caches of all other nodes.
+     */
+    @Override
+    public void clear() {
+        local.clear();
+        enqueue(Write.CLEAR);
+        enqueue(Write.publish(nodeId + ' ' + CLEAR_MESSAGE));
+    }
+
+    @Override
+    public Optional<Profile> getByName(String playerName) {
+        Optional<Profile> profile = local.getByName(playerName);
+        if (profile.isPresent()) {
+            return recordHit(CacheType.PROFILE, LOCAL_TIER, profile);
+        }
+
+        String value = fetch(nameKey(playerName));
+        if (value != null) {
+            int separator = value.indexOf(' ');
+            UUID id = UUID.fromString(value.substring(0, separator));
+            String name = value.substring(separator + 1);
+
+            // a node without the old profile cannot remove the name key of a rename - the id key has the current name
+            if (name.equalsIgnoreCase(fetch(idKey(id)))) {
+                profile = Optional.of(new Profile(id, name));
+                local.add(profile.get());
+                return recordHit(CacheType.PROFILE, REMOTE_TIER, profile);
+            }
+
+            // drop the outdated mapping, so the next lookups don't need two round trips
+            enqueue(Write.remove(nameKey(playerName)));
+        }
+
+        metrics.recordCacheMiss(CacheType.PROFILE);
+        return profile;
+    }
+
+    @Override
+    public Optional<Profile> getById(UUID uniqueId) {
+        Optional<Profile> profile = local.getById(uniqueId);
+        if (profile.isPresent()) {
+            return recordHit(CacheType.PROFILE, LOCAL_TIER, profile);
+        }
+
+        String name = fetch(idKey(uniqueId));
+        if (name != null) {
+            profile = Optional.of(new Profile(uniqueId, name));
+            local.add(profile.get());
+            return recordHit(CacheType.PROFILE, REMOTE_TIER, profile);
+        }
+
+        metrics.recordCacheMiss(CacheType.PROFILE);
+        return profile;
+    }
+
+    @Override
+    public Optional<SkinProperty> getSkin(UUID uniqueId) {
+        Optional<SkinProperty> skin = local.getSkin(uniqueId);
+        if (skin.isPresent()) {
+            return recordHit(CacheType.SKIN, LOCAL_TIER, skin);
+        }
+
+        String value = fetch(skinKey(uniqueId));
+        if (value != null) {
+            int separator = value.indexOf('\n');
+            SkinProperty property = new SkinProperty(value.substring(0, separator), value.substring(separator + 1));
+            local.addSkin(uniqueId, property);
+            return recordHit(CacheType.SKIN, REMOTE_TIER, Optional.of(property));
+        }
+
+        metrics.recordCacheMiss(CacheType.SKIN);
+        return skin;
+    }
+
+    /**
+     * @return the profiles of the local cache
+     */
+    @Override
+    public ImmutableSet<Profile> getCachedProfiles() {
+        return local.getCachedProfiles();
+    }
+
+    /**
+     * @return the skins of the local cache
+     */
+    @Override
+    public ImmutableSet<SkinProperty> getCachedSkins() {
+        return local.getCachedSkins();
+    }
+
+    /**
+     * Waits until all previous writes were sent to the store.
+     *
+     * @throws InterruptedException interrupted while waiting
+     */
+    public void flush() throws InterruptedException {
+        if (closed) {
+            return;
+        }
+
+        CountDownLatch latch = new CountDownLatch(1);
+        queue.add(Write.flush(latch));
+        latch.await();
+    }
+
+    /**
+     * Sends the pending writes and stops listening to invalidation messages.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        queue.add(Write.STOP);
+        try {
+            writer.join();
+        } catch (InterruptedException interruptedEx) {
+            Thread.currentThread().interrupt();
+        }
+
+        store.unsubscribe(invalidationListener);
+    }
+
+    private String fetch(String key) {
+        try {
+            return store.getAll(Collections.singleton(key)).get(key);
+        } catch (IOException ioEx) {
+            // handle it like a miss, the resolver can still ask Mojang
+            System.out.println("Failed to read " + key + " from the remote store: " + ioEx);
+            return null;
+        }
+    }
+
+    private void onMessage(String message) {
+        String[] parts = message.split(" ");
+        if (parts[0].equals(nodeId)) {
+            // the local cache already has the change
+            return;
+        }
+
+        switch (parts[1]) {
+            case PROFILE_MESSAGE:
+                local.remove(new Profile(UUID.fromString(parts[2]), null));
+                break;
+            case SKIN_MESSAGE:
+                local.removeSkin(UUID.fromString(parts[2]));
+                break;
+            case CLEAR_MESSAGE:
+                local.clear();
+                break;
+            default:
+                System.out.println("Unknown invalidation message " + message);
+        }
+    }
+
+    private void enqueue(Write write) {
+        if (closed) {
+            System.out.println("Cache is closed - Cannot share " + write.key);
+            return;
+        }
+
+        queue.add(write);
+    }
+
+    private void writeLoop() {
+        List<Write> batch = new ArrayList<>();
+        boolean running = true;
+        while (running) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch);
+                running = send(batch);
+            } catch (InterruptedException interruptedEx) {
+                running = false;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Merges the writes into as few requests as possible. The invalidation messages are sent last, so that the other
+     * nodes find the new entries when they ask the store again.
+     *
+     * @return false if the cache was closed
+     */
+    private boolean send(List<Write> batch) {
+        Map<String, String> puts = new LinkedHashMap<>();
+        Set<String> removals = new LinkedHashSet<>();
+        Set<String> messages = new LinkedHashSet<>();
+        List<CountDownLatch> flushed = new ArrayList<>();
+
+        boolean running = true;
+        try {
+            for (Write write : batch) {
+                if (write == Write.STOP) {
+                    running = false;
+                    break;
+                }
+
+                if (write == Write.CLEAR) {
+                    // previous writes are cleared anyway
+                    puts.clear();
+                    removals.clear();
+                    store.clear();
+                } else if (write.latch != null) {
+                    flushed.add(write.latch);
+                } else if (write.message != null) {
+                    messages.add(write.message);
+                } else if (write.value == null) {
+                    puts.remove(write.key);
+                    removals.add(write.key);
+                } else {
+                    removals.remove(write.key);
+                    puts.put(write.key, write.value);
+                }
+            }
+
+            if (!removals.isEmpty()) {
+                store.removeAll(removals);
+            }
+
+            if (!puts.isEmpty()) {
+                store.putAll(puts, remoteExpire);
+            }
+
+            for (String message : messages) {
+                store.publish(message);
+            }
+        } catch (IOException ioEx) {
+            System.out.println("Failed to write " + batch.size() + " changes to the remote store: " + ioEx);
+        } finally {
+            flushed.forEach(CountDownLatch::countDown);
+        }
+
+        return running;
+    }
+
+    private String message(String type, UUID id) {
+        return nodeId + ' ' + type + ' ' + id;
+    }
+
+    private static String idKey(UUID id) {
+        return PROFILE_ID_PREFIX + id;
+    }
+
+    private static String nameKey(String name) {
+        return PROFILE_NAME_PREFIX + name.toLowerCase(Locale.ROOT);
+    }
+
+    private static String skinKey(UUID id) {
+        return SKIN_PREFIX + id;
+    }
+
+    private <T> Optional<T> recordHit(CacheType type, int tier, Optional<T> result) {
+        metrics.recordCacheHit(type);
+        metrics.recordTierHit(type, tier);
+        return result;
+    }
+
+    private static final class Write {
+
+        private static final Write STOP = new Write(null, null, null, null);
+        private static final Write CLEAR = new Write(null, null, null, null);
+
+        private final String key;
+        private final String value;
+        private final String message;
+        private final CountDownLatch latch;
+
+        private Write(String key, String value, String message, CountDownLatch latch) {
+            this.key = key;
+            this.value = value;
+            this.message = message;
+            this.latch = latch;
+        }
+
+        static Write put(String key, String value) {
+            return new Write(key, value, null, null);
+        }
+
+        static Write remove(String key) {
+            return new Write(key, null, null, null);
+        }
+
+        static Write publish(String message) {
+            return new Write(null, null, message, null);
+        }
+
+        static Write flush(CountDownLatch latch) {
+            return new Write(null, null, null, latch);
+        }
+    }
+}
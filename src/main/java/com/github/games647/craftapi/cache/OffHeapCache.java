@@ -0,0 +1,616 @@
+package com.github.games647.craftapi.cache;
+
+import com.github.games647.craftapi.metrics.CacheType;
+import com.github.games647.craftapi.metrics.Metrics;
+import com.github.games647.craftapi.metrics.NoopMetrics;
+import com.github.games647.craftapi.model.Profile;
+import com.github.games647.craftapi.model.skin.CompactSkinProperty;
+import com.github.games647.craftapi.model.skin.SkinProperty;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Cache that keeps the profiles outside the Java heap. This is intended for network wide caches with millions of
+ * profiles, where the UUID, name and map objects of {@link MemoryCache} would slow down the garbage collector.
+ * <p>
+ * Profiles are stored in an open addressing table keyed by the two UUID longs, together with the name as packed ASCII
+ * bytes. A second table maps case-insensitive name hashes to the profile slots. {@link Profile} objects are only
+ * created on reads. Profiles with names that are longer than 16 characters or contain non ASCII characters are not
+ * cached. If the capacity is reached, the oldest entry of a few random samples is evicted.
+ * <p>
+ * Skins are comparatively rare and large, so they are cached on the heap in their compact form like in
+ * {@link MemoryCache}.
+ * <p>
+ * Entries moved in from another tier of a {@link TieredCache} keep their write time and expire as if they had been
+ * added here.
+ */
+public class OffHeapCache implements Cache, CacheTier {
+
+    // slot layout: most significant UUID bits, least significant bits, write time, state, name length, name
+    private static final int MSB_OFFSET = 0;
+    private static final int LSB_OFFSET = 8;
+    private static final int WRITE_TIME_OFFSET = 16;
+    private static final int STATE_OFFSET = 24;
+    private static final int LENGTH_OFFSET = 25;
+    private static final int NAME_OFFSET = 26;
+    private static final int SLOT_SIZE = 48;
+
+    private static final byte EMPTY = 0;
+    private static final byte FULL = 1;
+
+    // name index entries are the profile slot + 1
+    private static final int INDEX_EMPTY = 0;
+
+    private static final int MAX_TABLE_SIZE = Integer.MAX_VALUE / SLOT_SIZE;
+    private static final int EVICTION_SAMPLES = 8;
+
+    private static final long SKIN_EXPIRE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final int capacity;
+    private final int tableSize;
+    private final long expireMillis;
+
+    private final ConcurrentMap<UUID, SkinEntry> skinCache;
+    private final Metrics metrics;
+
+    // guarded by the lock
+    private final ByteBuffer slots;
+    private final ByteBuffer nameIndex;
+    private int size;
+
+    /**
+     * Creates a new off heap cache. The memory for all entries is allocated immediately.
+     *
+     * @param capacity maximum number of profiles
+     * @param expire profile expiration time or null to disable
+     * @param metrics receiver of hit, miss and eviction counts
+     */
+    public OffHeapCache(int capacity, Duration expire, Metrics metrics) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+
+        // at most 3/4 of the table is used, so the probe sequences stay short
+        long minTableSize = (long) capacity * 4 / 3 + 1;
+        long powerOfTwo = Long.highestOneBit(minTableSize - 1) << 1;
+        if (powerOfTwo > MAX_TABLE_SIZE) {
+            throw new IllegalArgumentException("Capacity is too large for a single buffer: " + capacity);
+        }
+
+        this.capacity = capacity;
+        this.tableSize = (int) powerOfTwo;
+        this.expireMillis = expire == null ? 0 : expire.toMillis();
+        this.metrics = metrics;
+
+        this.slots = ByteBuffer.allocateDirect(tableSize * SLOT_SIZE);
+        this.nameIndex = ByteBuffer.allocateDirect(tableSize * Integer.BYTES);
+
+        this.skinCache = CacheBuilder.newBuilder()
+                .expireAfterWrite(SKIN_EXPIRE_MILLIS, TimeUnit.MILLISECONDS)
+                .<UUID, SkinEntry>build().asMap();
+    }
+
+    /**
+     * Creates a new off heap cache. The memory for all entries is allocated immediately.
+     *
+     * @param capacity maximum number of profiles
+     * @param expire profile expiration time or null to disable
+     */
+    public OffHeapCache(int capacity, Duration expire) {
+        this(capacity, expire, NoopMetrics.INSTANCE);
+    }
+
+    @Override
+    public void add(Profile profile) {
+        add(profile, Duration.ZERO);
+    }
+
+    /**
+     * Adds a profile moved from another tier. It expires after the remaining time of its lifetime.
+     *
+     * @param profile profile moved from another tier
+     * @param age time since the profile was added to the first tier
+     */
+    @Override
+    public void add(Profile profile, Duration age) {
+        UUID id = profile.getId();
+        String name = profile.getName();
+        if (id == null || !AsciiNames.isPackable(name)) {
+            System.out.println("Warning cannot store profile off heap " + profile);
+            return;
+        }
+
+        if (expireMillis > 0 && age.toMillis() >= expireMillis) {
+            return;
+        }
+
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        long writeTime = System.currentTimeMillis() - age.toMillis();
+
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            int slot = findSlot(msb, lsb);
+            if (slot >= 0) {
+                // renamed or refreshed profile
+                unlinkName(slot);
+                writeEntry(slot, msb, lsb, writeTime, name);
+                linkName(slot, name);
+                return;
+            }
+
+            if (size >= capacity) {
+                evictOne();
+            }
+
+            slot = insertionSlot(msb, lsb);
+            writeEntry(slot, msb, lsb, writeTime, name);
+            linkName(slot, name);
+            size++;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void addSkin(UUID uniqueId, SkinProperty property) {
+        addSkin(uniqueId, property, Duration.ZERO);
+    }
+
+    /**
+     * Adds a skin moved from another tier. It is hidden after the remaining time of its lifetime.
+     *
+     * @param uniqueId skin owner
+     * @param property skin moved from another tier
+     * @param age time since the skin was added to the first tier
+     */
+    @Override
+    public void addSkin(UUID uniqueId, SkinProperty property, Duration age) {
+        if (age.toMillis() >= SKIN_EXPIRE_MILLIS) {
+            return;
+        }
+
+        long writeTime = System.currentTimeMillis() - age.toMillis();
+        skinCache.put(uniqueId, new SkinEntry(CompactSkinProperty.compact(property), writeTime));
+    }
+
+    @Override
+    public void remove(Profile profile) {
+        UUID id = profile.getId();
+        if (id == null) {
+            return;
+        }
+
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            int slot = findSlot(id.getMostSignificantBits(), id.getLeastSignificantBits());
+            if (slot >= 0) {
+                removeSlot(slot);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void removeSkin(UUID uniqueId) {
+        skinCache.remove(uniqueId);
+    }
+
+    @Override
+    public void clear() {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            clearBuffer(slots);
+            clearBuffer(nameIndex);
+            size = 0;
+        } finally {
+            writeLock.unlock();
+        }
+
+        skinCache.clear();
+    }
+
+    @Override
+    public Optional<Profile> getByName(String playerName) {
+        Profile profile = null;
+
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            int slot = findByName(playerName);
+            if (slot >= 0 && !isExpired(slot, System.currentTimeMillis())) {
+                profile = readProfile(slot);
+            }
+        } finally {
+            readLock.unlock();
+        }
+
+        return record(CacheType.PROFILE, playerName, profile);
+    }
+
+    @Override
+    public Optional<Profile> getById(UUID uniqueId) {
+        Profile profile = null;
+
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            int slot = findSlot(uniqueId.getMostSignificantBits(), uniqueId.getLeastSignificantBits());
+            if (slot >= 0 && !isExpired(slot, System.currentTimeMillis())) {
+                profile = readProfile(slot);
+            }
+        } finally {
+            readLock.unlock();
+        }
+
+        return record(CacheType.PROFILE, uniqueId, profile);
+    }
+
+    @Override
+    public Optional<SkinProperty> getSkin(UUID uniqueId) {
+        SkinEntry entry = skinCache.get(uniqueId);
+        return record(CacheType.SKIN, uniqueId, entry == null || entry.isExpired() ? null : entry.property);
+    }
+
+    @Override
+    public Optional<Duration> getProfileAge(String playerName) {
+        long now = System.currentTimeMillis();
+
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            int slot = findByName(playerName);
+            if (slot < 0 || isExpired(slot, now)) {
+                return Optional.empty();
+            }
+
+            return Optional.of(Duration.ofMillis(now - slots.getLong(slot * SLOT_SIZE + WRITE_TIME_OFFSET)));
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public Optional<Duration> getSkinAge(UUID uniqueId) {
+        SkinEntry entry = skinCache.get(uniqueId);
+        if (entry == null || entry.isExpired()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(Duration.ofMillis(System.currentTimeMillis() - entry.writeTime));
+    }
+
+    @Override
+    public ImmutableSet<Profile> getCachedProfiles() {
+        ImmutableSet.Builder<Profile> builder = ImmutableSet.builder();
+
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            long now = System.currentTimeMillis();
+            for (int slot = 0; slot < tableSize; slot++) {
+                if (slots.get(slot * SLOT_SIZE + STATE_OFFSET) == FULL && !isExpired(slot, now)) {
+                    builder.add(readProfile(slot));
+                }
+            }
+        } finally {
+            readLock.unlock();
+        }
+
+        return builder.build();
+    }
+
+    @Override
+    public ImmutableSet<SkinProperty> getCachedSkins() {
+        ImmutableSet.Builder<SkinProperty> builder = ImmutableSet.builder();
+        for (SkinEntry entry : skinCache.values()) {
+            if (!entry.isExpired()) {
+                builder.add(entry.property);
+            }
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * @return number of stored profiles including expired ones that were not overwritten yet
+     */
+    public int size() {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            return size;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private int hash(long msb, long lsb) {
+        long hash = (msb ^ lsb) * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & (tableSize - 1);
+    }
+
+    private int findSlot(long msb, long lsb) {
+        int mask = tableSize - 1;
+        for (int slot = hash(msb, lsb), probes = 0; probes < tableSize; slot = (slot + 1) & mask, probes++) {
+            int offset = slot * SLOT_SIZE;
+            byte state = slots.get(offset + STATE_OFFSET);
+            if (state == EMPTY) {
+                return -1;
+            }
+
+            if (slots.getLong(offset + MSB_OFFSET) == msb
+                    && slots.getLong(offset + LSB_OFFSET) == lsb) {
+                return slot;
+            }
+        }
+
+        return -1;
+    }
+
+    private int insertionSlot(long msb, long lsb) {
+        int mask = tableSize - 1;
+        int slot = hash(msb, lsb);
+        while (slots.get(slot * SLOT_SIZE + STATE_OFFSET) == FULL) {
+            slot = (slot + 1) & mask;
+        }
+
+        return slot;
+    }
+
+    private int findByName(CharSequence name) {
+        int mask = tableSize - 1;
+        for (int index = AsciiNames.hash(name) & mask, probes = 0; probes < tableSize;
+             index = (index + 1) & mask, probes++) {
+            int entry = nameIndex.getInt(index * Integer.BYTES);
+            if (entry == INDEX_EMPTY) {
+                return -1;
+            }
+
+            if (nameEquals(entry - 1, name)) {
+                return entry - 1;
+            }
+        }
+
+        return -1;
+    }
+
+    private void linkName(int slot, CharSequence name) {
+        // the latest owner of a name wins like in MemoryCache
+        int previousOwner = findByName(name);
+        if (previousOwner >= 0) {
+            unlinkName(previousOwner);
+        }
+
+        int mask = tableSize - 1;
+        int index = AsciiNames.hash(name) & mask;
+        while (true) {
+            if (nameIndex.getInt(index * Integer.BYTES) == INDEX_EMPTY) {
+                nameIndex.putInt(index * Integer.BYTES, slot + 1);
+                return;
+            }
+
+            index = (index + 1) & mask;
+        }
+    }
+
+    private void unlinkName(int slot) {
+        int index = findNameEntry(slot);
+        if (index < 0) {
+            // the name was taken over by another profile
+            return;
+        }
+
+        // backward shift deletion: move later entries of the probe sequence into the hole
+        int mask = tableSize - 1;
+        int hole = index;
+        for (int next = (hole + 1) & mask; ; next = (next + 1) & mask) {
+            int entry = nameIndex.getInt(next * Integer.BYTES);
+            if (entry == INDEX_EMPTY) {
+                break;
+            }
+
+            int home = nameHash(entry - 1) & mask;
+            if (!isBetween(home, hole, next)) {
+                nameIndex.putInt(hole * Integer.BYTES, entry);
+                hole = next;
+            }
+        }
+
+        nameIndex.putInt(hole * Integer.BYTES, INDEX_EMPTY);
+    }
+
+    private int findNameEntry(int slot) {
+        int mask = tableSize - 1;
+        for (int index = nameHash(slot) & mask, probes = 0; probes < tableSize; index = (index + 1) & mask, probes++) {
+            int entry = nameIndex.getInt(index * Integer.BYTES);
+            if (entry == INDEX_EMPTY) {
+                return -1;
+            }
+
+            if (entry == slot + 1) {
+                return index;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * @return true if the home position lies cyclically in (hole, position] - the entry at position can't be moved
+     *          before its home position
+     */
+    private static boolean isBetween(int home, int hole, int position) {
+        if (hole <= position) {
+            return hole < home && home <= position;
+        }
+
+        return hole < home || home <= position;
+    }
+
+    private int nameHash(int slot) {
+        int offset = slot * SLOT_SIZE;
+        int length = slots.get(offset + LENGTH_OFFSET);
+
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + AsciiNames.toLowerCase(slots.get(offset + NAME_OFFSET + i));
+        }
+
+        return hash ^ (hash >>> 16);
+    }
+
+    private boolean nameEquals(int slot, CharSequence name) {
+        int offset = slot * SLOT_SIZE;
+        int length = slots.get(offset + LENGTH_OFFSET);
+        if (length != name.length()) {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++) {
+            int stored = AsciiNames.toLowerCase(slots.get(offset + NAME_OFFSET + i));
+            if (stored != AsciiNames.toLowerCase(name.charAt(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void writeEntry(int slot, long msb, long lsb, long writeTime, String name) {
+        int offset = slot * SLOT_SIZE;
+        slots.putLong(offset + MSB_OFFSET, msb);
+        slots.putLong(offset + LSB_OFFSET, lsb);
+        slots.putLong(offset + WRITE_TIME_OFFSET, writeTime);
+        slots.put(offset + STATE_OFFSET, FULL);
+        slots.put(offset + LENGTH_OFFSET, (byte) name.length());
+        for (int i = 0; i < name.length(); i++) {
+            slots.put(offset + NAME_OFFSET + i, (byte) name.charAt(i));
+        }
+    }
+
+    private Profile readProfile(int slot) {
+        int offset = slot * SLOT_SIZE;
+        UUID id = new UUID(slots.getLong(offset + MSB_OFFSET), slots.getLong(offset + LSB_OFFSET));
+
+        byte[] name = new byte[slots.get(offset + LENGTH_OFFSET)];
+        for (int i = 0; i < name.length; i++) {
+            name[i] = slots.get(offset + NAME_OFFSET + i);
+        }
+
+        return new Profile(id, new String(name, StandardCharsets.US_ASCII));
+    }
+
+    private boolean isExpired(int slot, long now) {
+        return expireMillis > 0 && slots.getLong(slot * SLOT_SIZE + WRITE_TIME_OFFSET) + expireMillis <= now;
+    }
+
+    private void removeSlot(int slot) {
+        unlinkName(slot);
+        size--;
+
+        // backward shift deletion like for the name index, so no deleted markers lengthen the probe sequences
+        int mask = tableSize - 1;
+        int hole = slot;
+        for (int next = (hole + 1) & mask; ; next = (next + 1) & mask) {
+            int offset = next * SLOT_SIZE;
+            if (slots.get(offset + STATE_OFFSET) == EMPTY) {
+                break;
+            }
+
+            int home = hash(slots.getLong(offset + MSB_OFFSET), slots.getLong(offset + LSB_OFFSET));
+            if (!isBetween(home, hole, next)) {
+                moveSlot(next, hole);
+                hole = next;
+            }
+        }
+
+        slots.put(hole * SLOT_SIZE + STATE_OFFSET, EMPTY);
+    }
+
+    private void moveSlot(int from, int to) {
+        int nameEntry = findNameEntry(from);
+        for (int i = 0; i < SLOT_SIZE; i += Long.BYTES) {
+            slots.putLong(to * SLOT_SIZE + i, slots.getLong(from * SLOT_SIZE + i));
+        }
+
+        if (nameEntry >= 0) {
+            nameIndex.putInt(nameEntry * Integer.BYTES, to + 1);
+        }
+    }
+
+    private void evictOne() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int mask = tableSize - 1;
+
+        int victim = -1;
+        long oldest = Long.MAX_VALUE;
+        for (int sample = 0; sample < EVICTION_SAMPLES; sample++) {
+            int slot = random.nextInt(tableSize);
+            while (slots.get(slot * SLOT_SIZE + STATE_OFFSET) != FULL) {
+                slot = (slot + 1) & mask;
+            }
+
+            long writeTime = slots.getLong(slot * SLOT_SIZE + WRITE_TIME_OFFSET);
+            if (writeTime < oldest) {
+                oldest = writeTime;
+                victim = slot;
+            }
+        }
+
+        removeSlot(victim);
+        metrics.recordCacheEviction(CacheType.PROFILE);
+    }
+
+    private static void clearBuffer(ByteBuffer buffer) {
+        for (int i = 0; i < buffer.capacity(); i += Long.BYTES) {
+            buffer.putLong(i, 0);
+        }
+    }
+
+    private <T> Optional<T> record(CacheType type, Object key, T value) {
+        CacheLookupEvent.emit(type, key, value != null);
+
+        if (value == null) {
+            metrics.recordCacheMiss(type);
+            return Optional.empty();
+        }
+
+        metrics.recordCacheHit(type);
+        return Optional.of(value);
+    }
+
+    private static final class SkinEntry {
+
+        private final SkinProperty property;
+        private final long writeTime;
+
+        SkinEntry(SkinProperty property, long writeTime) {
+            this.property = property;
+            this.writeTime = writeTime;
+        }
+
+        // Guava starts the expiration again for skins moved in with an age
+        boolean isExpired() {
+            return System.currentTimeMillis() - writeTime >= SKIN_EXPIRE_MILLIS;
+        }
+    }
+}
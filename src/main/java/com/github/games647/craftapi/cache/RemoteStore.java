@@ -0,0 +1,61 @@
+package com.github.games647.craftapi.cache;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Key-value store shared by all nodes of a network, for example backed by Redis. It's used by {@link NearCache}.
+ * Implementations have to be thread-safe.
+ */
+public interface RemoteStore {
+
+    /**
+     * @param keys requested keys
+     * @return the found entries - missing keys are not contained
+     * @throws IOException failed to reach the store
+     */
+    Map<String, String> getAll(Collection<String> keys) throws IOException;
+
+    /**
+     * Stores all entries together, ideally in a single round trip.
+     *
+     * @param entries entries to store
+     * @param expire time after which the entries are removed or null to keep them
+     * @throws IOException failed to reach the store
+     */
+    void putAll(Map<String, String> entries, Duration expire) throws IOException;
+
+    /**
+     * @param keys entries to remove
+     * @throws IOException failed to reach the store
+     */
+    void removeAll(Collection<String> keys) throws IOException;
+
+    /**
+     * Removes all entries.
+     *
+     * @throws IOException failed to reach the store
+     */
+    void clear() throws IOException;
+
+    /**
+     * Sends a message to all subscribers including the ones of this node.
+     *
+     * @param message invalidation message
+     * @throws IOException failed to reach the store
+     */
+    void publish(String message) throws IOException;
+
+    /**
+     * @param listener receiver of all published messages
+     */
+    void subscribe(Consumer<String> listener);
+
+    /**
+     * @param listener previously subscribed receiver
+     */
+    void unsubscribe(Consumer<String> listener);
+}
@@ -0,0 +1,507 @@
+package com.github.games647.craftapi.cache;
+
+import com.github.games647.craftapi.metrics.CacheType;
+import com.github.games647.craftapi.metrics.Metrics;
+import com.github.games647.craftapi.metrics.NoopMetrics;
+import com.github.games647.craftapi.model.Profile;
+import com.github.games647.craftapi.model.skin.CompactSkinProperty;
+import com.github.games647.craftapi.model.skin.SkinProperty;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Profile cache in a memory mapped file that can be shared by all JVMs on the same host, like a proxy and its
+ * backend servers. A profile resolved by one of them is a memory read for all others.
+ * <p>
+ * The file contains two open addressing tables with the same entries: one keyed by the UUID and one by the
+ * case-insensitive name. Name hits are verified against the UUID table, so renamed players are not returned by their
+ * old name. The tables are lock-free: every slot has a sequence number that is odd while a process writes to it.
+ * Writers claim a slot by a compare-and-set of that number and readers retry if it changed while they read (seqlock).
+ * <p>
+ * Keys are only searched within a window of {@value #PROBE_WINDOW} slots. If the window is full, the oldest entry is
+ * overwritten. Slots are never emptied again - removed entries are marked as expired instead. Profiles with names
+ * longer than 16 characters or non ASCII characters are not cached. Two processes adding the same new profile at the
+ * same time could store it twice, which only wastes a slot.
+ * <p>
+ * Skins are comparatively rare and large, so they are cached on the heap of each JVM like in {@link OffHeapCache}.
+ */
+public class SharedMemoryCache implements Cache {
+
+    private static final int MAGIC = 0x43525348;
+    private static final int VERSION = 1;
+
+    // header: magic, version, slots per table
+    private static final int HEADER_SIZE = 64;
+    private static final int TABLE_SIZE_OFFSET = 8;
+
+    // slot layout: sequence number, most significant UUID bits, least significant bits, write time, name length, name
+    private static final int SEQUENCE_OFFSET = 0;
+    private static final int MSB_OFFSET = 8;
+    private static final int LSB_OFFSET = 16;
+    private static final int WRITE_TIME_OFFSET = 24;
+    private static final int LENGTH_OFFSET = 32;
+    private static final int NAME_OFFSET = 33;
+    private static final int SLOT_SIZE = 64;
+
+    private static final int PROBE_WINDOW = 16;
+    private static final int MAX_RETRIES = 64;
+
+    // write time of removed entries
+    private static final long REMOVED = 0;
+
+    private static final int DEFAULT_SKIN_EXPIRE = 5;
+
+    private static final VarHandle SEQUENCE = MethodHandles.byteBufferViewVarHandle(long[].class,
+            ByteOrder.nativeOrder());
+
+    private final MappedByteBuffer buffer;
+    private final int tableSize;
+    private final int idTable;
+    private final int nameTable;
+    private final long expireMillis;
+
+    private final ConcurrentMap<UUID, SkinProperty> skinCache;
+    private final Metrics metrics;
+
+    /**
+     * Opens the shared cache or creates it if the file doesn't exist yet. The size of an existing file is kept.
+     *
+     * @param file shared file - preferably on a memory backed file system like /dev/shm
+     * @param capacity number of profiles per table if the file is created
+     * @param expire profile expiration time or null to disable
+     * @param metrics receiver of hit and miss counts
+     * @throws IOException failed to create or map the file or the file is not a shared cache
+     */
+    public SharedMemoryCache(Path file, int capacity, Duration expire, Metrics metrics) throws IOException {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+
+        this.expireMillis = expire == null ? 0 : expire.toMillis();
+        this.metrics = metrics;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            int slots;
+
+            // only one process should initialize the file
+            FileLock lock = channel.lock();
+            try {
+                slots = initialize(channel, capacity);
+            } finally {
+                lock.release();
+            }
+
+            long fileSize = HEADER_SIZE + 2L * slots * SLOT_SIZE;
+            if (fileSize > Integer.MAX_VALUE) {
+                throw new IOException("Shared cache is too large for a single mapping: " + slots);
+            }
+
+            this.buffer = channel.map(MapMode.READ_WRITE, 0, fileSize);
+            this.buffer.order(ByteOrder.nativeOrder());
+            this.tableSize = slots;
+            this.idTable = HEADER_SIZE;
+            this.nameTable = HEADER_SIZE + slots * SLOT_SIZE;
+        }
+
+        this.skinCache = CacheBuilder.newBuilder()
+                .expireAfterWrite(Duration.ofMinutes(DEFAULT_SKIN_EXPIRE))
+                .<UUID, SkinProperty>build().asMap();
+    }
+
+    /**
+     * Opens the shared cache or creates it if the file doesn't exist yet. The size of an existing file is kept.
+     *
+     * @param file shared file - preferably on a memory backed file system like /dev/shm
+     * @param capacity number of profiles per table if the file is created
+     * @param expire profile expiration time or null to disable
+     * @throws IOException failed to create or map the file or the file is not a shared cache
+     */
+    public SharedMemoryCache(Path file, int capacity, Duration expire) throws IOException {
+        this(file, capacity, expire, NoopMetrics.INSTANCE);
+    }
+
+    @Override
+    public void add(Profile profile) {
+        UUID id = profile.getId();
+        String name = profile.getName();
+        if (id == null || !AsciiNames.isPackable(name)) {
+            System.out.println("Warning cannot store profile in shared memory " + profile);
+            return;
+        }
+
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        long now = System.currentTimeMillis();
+
+        // the name table is written last, so a name hit always finds the new UUID entry
+        if (put(idTable, idHash(msb, lsb), msb, lsb, now, name, false)) {
+            metrics.recordCacheEviction(CacheType.PROFILE);
+        }
+
+        put(nameTable, AsciiNames.hash(name), msb, lsb, now, name, true);
+    }
+
+    @Override
+    public void addSkin(UUID uniqueId, SkinProperty property) {
+        skinCache.put(uniqueId, CompactSkinProperty.compact(property));
+    }
+
+    @Override
+    public void remove(Profile profile) {
+        UUID id = profile.getId();
+        if (id == null) {
+            return;
+        }
+
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        Snapshot snapshot = new Snapshot();
+
+        int home = idHash(msb, lsb);
+        for (int probe = 0; probe < PROBE_WINDOW; probe++) {
+            int offset = slotOffset(idTable, home + probe);
+            long sequence = read(offset, snapshot);
+            if (sequence == 0) {
+                return;
+            }
+
+            if (sequence > 0 && snapshot.msb == msb && snapshot.lsb == lsb) {
+                markRemoved(offset);
+            }
+        }
+    }
+
+    @Override
+    public void removeSkin(UUID uniqueId) {
+        skinCache.remove(uniqueId);
+    }
+
+    @Override
+    public void clear() {
+        for (int slot = 0; slot < tableSize; slot++) {
+            markRemoved(slotOffset(idTable, slot));
+            markRemoved(slotOffset(nameTable, slot));
+        }
+
+        skinCache.clear();
+    }
+
+    @Override
+    public Optional<Profile> getByName(String playerName) {
+        Profile profile = null;
+        if (AsciiNames.isPackable(playerName)) {
+            Snapshot snapshot = findByName(playerName, System.currentTimeMillis());
+            if (snapshot != null) {
+                profile = snapshot.toProfile();
+            }
+        }
+
+        return record(CacheType.PROFILE, playerName, profile);
+    }
+
+    @Override
+    public Optional<Profile> getById(UUID uniqueId) {
+        Snapshot snapshot = findById(uniqueId.getMostSignificantBits(), uniqueId.getLeastSignificantBits(),
+                System.currentTimeMillis());
+        return record(CacheType.PROFILE, uniqueId, snapshot == null ? null : snapshot.toProfile());
+    }
+
+    @Override
+    public Optional<SkinProperty> getSkin(UUID uniqueId) {
+        return record(CacheType.SKIN, uniqueId, skinCache.get(uniqueId));
+    }
+
+    @Override
+    public ImmutableSet<Profile> getCachedProfiles() {
+        ImmutableSet.Builder<Profile> builder = ImmutableSet.builder();
+
+        long now = System.currentTimeMillis();
+        Snapshot snapshot = new Snapshot();
+        for (int slot = 0; slot < tableSize; slot++) {
+            if (read(slotOffset(idTable, slot), snapshot) > 0 && isValid(snapshot, now)) {
+                builder.add(snapshot.toProfile());
+            }
+        }
+
+        return builder.build();
+    }
+
+    @Override
+    public ImmutableSet<SkinProperty> getCachedSkins() {
+        return ImmutableSet.copyOf(skinCache.values());
+    }
+
+    private static int initialize(FileChannel channel, int capacity) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.nativeOrder());
+        if (channel.size() == 0) {
+            // at most half of the table is used, so the probe windows rarely overflow
+            long minTableSize = (long) capacity * 2;
+            long slots = Long.highestOneBit(minTableSize - 1) << 1;
+            if (slots > Integer.MAX_VALUE / SLOT_SIZE / 2) {
+                throw new IllegalArgumentException("Capacity is too large for a single mapping: " + capacity);
+            }
+
+            header.putInt(MAGIC);
+            header.putInt(VERSION);
+            header.putInt((int) slots);
+            header.clear();
+            channel.write(header, 0);
+
+            // extends the file with zeros - zero sequence numbers are empty slots
+            channel.write(ByteBuffer.allocate(1), HEADER_SIZE + 2 * slots * SLOT_SIZE - 1);
+            return (int) slots;
+        }
+
+        channel.read(header, 0);
+        header.flip();
+        if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+            throw new IOException("Not a shared cache file");
+        }
+
+        int version = header.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported shared cache version " + version);
+        }
+
+        int slots = header.getInt(TABLE_SIZE_OFFSET);
+        if (Integer.bitCount(slots) != 1) {
+            throw new IOException("Corrupted shared cache header");
+        }
+
+        return slots;
+    }
+
+    private Snapshot findById(long msb, long lsb, long now) {
+        Snapshot snapshot = new Snapshot();
+
+        int home = idHash(msb, lsb);
+        for (int probe = 0; probe < PROBE_WINDOW; probe++) {
+            long sequence = read(slotOffset(idTable, home + probe), snapshot);
+            if (sequence == 0) {
+                return null;
+            }
+
+            if (sequence > 0 && snapshot.msb == msb && snapshot.lsb == lsb && isValid(snapshot, now)) {
+                return snapshot;
+            }
+        }
+
+        return null;
+    }
+
+    private Snapshot findByName(String name, long now) {
+        Snapshot snapshot = new Snapshot();
+
+        int home = AsciiNames.hash(name);
+        for (int probe = 0; probe < PROBE_WINDOW; probe++) {
+            long sequence = read(slotOffset(nameTable, home + probe), snapshot);
+            if (sequence == 0) {
+                return null;
+            }
+
+            if (sequence > 0 && snapshot.nameEquals(name) && isValid(snapshot, now)) {
+                // the player could have been renamed in the meantime
+                Snapshot current = findById(snapshot.msb, snapshot.lsb, now);
+                if (current != null && current.nameEquals(name)) {
+                    return current;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Updates the entry with the same key or stores it in an empty slot or instead of the oldest entry of the window.
+     *
+     * @return true if a valid entry of another key was overwritten
+     */
+    private boolean put(int table, int home, long msb, long lsb, long writeTime, String name, boolean byName) {
+        Snapshot snapshot = new Snapshot();
+        for (int attempt = 0; attempt < MAX_RETRIES; attempt++) {
+            int target = -1;
+            long targetSequence = -1;
+            long oldest = Long.MAX_VALUE;
+            boolean evicted = false;
+            for (int probe = 0; probe < PROBE_WINDOW; probe++) {
+                int offset = slotOffset(table, home + probe);
+                long sequence = read(offset, snapshot);
+                if (sequence < 0) {
+                    // locked by another writer
+                    continue;
+                }
+
+                boolean sameKey = sequence > 0 && (byName ? snapshot.nameEquals(name)
+                        : snapshot.msb == msb && snapshot.lsb == lsb);
+                if (sequence == 0 || sameKey) {
+                    target = offset;
+                    targetSequence = sequence;
+                    evicted = false;
+                    break;
+                }
+
+                if (snapshot.writeTime < oldest) {
+                    oldest = snapshot.writeTime;
+                    target = offset;
+                    targetSequence = sequence;
+                    evicted = isValid(snapshot, writeTime);
+                }
+            }
+
+            if (target >= 0 && write(target, targetSequence, msb, lsb, writeTime, name)) {
+                return evicted;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Reads a consistent copy of the slot.
+     *
+     * @return the sequence number of the copy, 0 if the slot was never used or -1 if it's locked by a writer
+     */
+    private long read(int offset, Snapshot into) {
+        for (int attempt = 0; attempt < MAX_RETRIES; attempt++) {
+            long before = (long) SEQUENCE.getAcquire(buffer, offset + SEQUENCE_OFFSET);
+            if (before == 0) {
+                return 0;
+            }
+
+            if ((before & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+
+            into.msb = buffer.getLong(offset + MSB_OFFSET);
+            into.lsb = buffer.getLong(offset + LSB_OFFSET);
+            into.writeTime = buffer.getLong(offset + WRITE_TIME_OFFSET);
+
+            // a torn length must not read out of the slot, the copy is discarded anyway
+            into.length = Math.min(buffer.get(offset + LENGTH_OFFSET) & 0xFF, AsciiNames.MAX_LENGTH);
+            for (int i = 0; i < into.length; i++) {
+                into.name[i] = buffer.get(offset + NAME_OFFSET + i);
+            }
+
+            VarHandle.acquireFence();
+            long after = (long) SEQUENCE.getOpaque(buffer, offset + SEQUENCE_OFFSET);
+            if (before == after) {
+                return before;
+            }
+        }
+
+        return -1;
+    }
+
+    private boolean write(int offset, long sequence, long msb, long lsb, long writeTime, String name) {
+        // sequence numbers start at 2, because 0 marks empty slots
+        long claimed = sequence == 0 ? 1 : sequence + 1;
+        if (!SEQUENCE.compareAndSet(buffer, offset + SEQUENCE_OFFSET, sequence, claimed)) {
+            return false;
+        }
+
+        buffer.putLong(offset + MSB_OFFSET, msb);
+        buffer.putLong(offset + LSB_OFFSET, lsb);
+        buffer.putLong(offset + WRITE_TIME_OFFSET, writeTime);
+        buffer.put(offset + LENGTH_OFFSET, (byte) name.length());
+        for (int i = 0; i < name.length(); i++) {
+            buffer.put(offset + NAME_OFFSET + i, (byte) name.charAt(i));
+        }
+
+        SEQUENCE.setRelease(buffer, offset + SEQUENCE_OFFSET, claimed + 1);
+        return true;
+    }
+
+    private void markRemoved(int offset) {
+        for (int attempt = 0; attempt < MAX_RETRIES; attempt++) {
+            long sequence = (long) SEQUENCE.getAcquire(buffer, offset + SEQUENCE_OFFSET);
+            if (sequence == 0) {
+                return;
+            }
+
+            if ((sequence & 1) == 0
+                    && SEQUENCE.compareAndSet(buffer, offset + SEQUENCE_OFFSET, sequence, sequence + 1)) {
+                // keep the key, so the probe sequences of other keys stay intact
+                buffer.putLong(offset + WRITE_TIME_OFFSET, REMOVED);
+                SEQUENCE.setRelease(buffer, offset + SEQUENCE_OFFSET, sequence + 2);
+                return;
+            }
+
+            Thread.onSpinWait();
+        }
+    }
+
+    private boolean isValid(Snapshot snapshot, long now) {
+        if (snapshot.writeTime == REMOVED) {
+            return false;
+        }
+
+        return expireMillis <= 0 || snapshot.writeTime + expireMillis > now;
+    }
+
+    private int slotOffset(int table, int slot) {
+        return table + (slot & (tableSize - 1)) * SLOT_SIZE;
+    }
+
+    private static int idHash(long msb, long lsb) {
+        long hash = (msb ^ lsb) * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    private <T> Optional<T> record(CacheType type, Object key, T value) {
+        CacheLookupEvent.emit(type, key, value != null);
+
+        if (value == null) {
+            metrics.recordCacheMiss(type);
+            return Optional.empty();
+        }
+
+        metrics.recordCacheHit(type);
+        return Optional.of(value);
+    }
+
+    private static final class Snapshot {
+
+        private long msb;
+        private long lsb;
+        private long writeTime;
+        private int length;
+        private final byte[] name = new byte[AsciiNames.MAX_LENGTH];
+
+        boolean nameEquals(CharSequence other) {
+            if (length != other.length()) {
+                return false;
+            }
+
+            for (int i = 0; i < length; i++) {
+                if (AsciiNames.toLowerCase(name[i]) != AsciiNames.toLowerCase(other.charAt(i))) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        Profile toProfile() {
+            return new Profile(new UUID(msb, lsb), new String(name, 0, length, StandardCharsets.US_ASCII));
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.github.games647.craftapi.cache;
+
+import com.github.games647.craftapi.metrics.CacheType;
+import com.github.games647.craftapi.metrics.Metrics;
+import com.github.games647.craftapi.metrics.NoopMetrics;
+import com.github.games647.craftapi.model.Profile;
+import com.github.games647.craftapi.model.skin.SkinProperty;
+import com.google.common.collect.ImmutableSet;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Two level cache with a small and fast {@link MemoryCache} in front of a larger second tier like a
+ * {@link DiskCache} or {@link OffHeapCache}. Entries that the first tier drops because of its size limit are moved to
+ * the second one. Hits in the second tier are moved back to the first tier.
+ * <p>
+ * Moved entries keep their original write time, so moving them doesn't extend their lifetime. Second tiers that don't
+ * implement {@link CacheTier} or don't report the age of their entries start the expiration again.
+ * <p>
+ * Each entry lives in only one tier. The tiers should be created without metrics - this cache records the hits,
+ * misses and the tier that contained the entry.
+ */
+public class TieredCache implements Cache {
+
+    private static final int FIRST_TIER = 1;
+    private static final int SECOND_TIER = 2;
+
+    private final MemoryCache first;
+    private final Cache second;
+    private final Metrics metrics;
+
+    /**
+     * Creates a new two level cache.
+     *
+     * @param first fast tier - it shouldn't be used elsewhere, because its evictions are redirected
+     * @param second large tier for entries dropped from the first
+     * @param metrics receiver of the hit, miss and tier counts
+     */
+    public TieredCache(MemoryCache first, Cache second, Metrics metrics) {
+        this.first = first;
+        this.second = second;
+        this.metrics = metrics;
+
+        first.setEvictionListener(new EvictionListener() {
+            @Override
+            public void onProfileEvicted(Profile profile, Duration age) {
+                if (second instanceof CacheTier) {
+                    ((CacheTier) second).add(profile, age);
+                } else {
+                    second.add(profile);
+                }
+            }
+
+            @Override
+            public void onSkinEvicted(UUID owner, SkinProperty property, Duration age) {
+                if (second instanceof CacheTier) {
+                    ((CacheTier) second).addSkin(owner, property, age);
+                } else {
+                    second.addSkin(owner, property);
+                }
+            }
+        });
+    }
+
+    /**
+     * Creates a new two level cache.
+     *
+     * @param first fast tier - it shouldn't be used elsewhere, because its evictions are redirected
+     * @param second large tier for entries dropped from the first
+     */
+    public TieredCache(MemoryCache first, Cache second) {
+        this(first, second, NoopMetrics.INSTANCE);
+    }
+
+    @Override
+    public void add(Profile profile) {
+        first.add(profile);
+
+        // an older copy could still be found by its previous name
+        second.remove(profile);
+    }
+
+    @Override
+    public void addSkin(UUID uniqueId, SkinProperty property) {
+        first.addSkin(uniqueId, property);
+        second.removeSkin(uniqueId);
+    }
+
+    @Override
+    public void remove(Profile profile) {
+        first.remove(profile);
+        second.remove(profile);
+    }
+
+    @Override
+    public void removeSkin(UUID uniqueId) {
+        first.removeSkin(uniqueId);
+        second.removeSkin(uniqueId);
+    }
+
+    @Override
+    public void clear() {
+        first.clear();
+        second.clear();
+    }
+
+    @Override
+    public Optional<Profile> getByName(String playerName) {
+        Optional<Profile> profile = first.getByName(playerName);
+        if (profile.isPresent()) {
+            return recordHit(CacheType.PROFILE, FIRST_TIER, profile);
+        }
+
+        return promote(second.getByName(playerName));
+    }
+
+    @Override
+    public Optional<Profile> getById(UUID uniqueId) {
+        Optional<Profile> profile = first.getById(uniqueId);
+        if (profile.isPresent()) {
+            return recordHit(CacheType.PROFILE, FIRST_TIER, profile);
+        }
+
+        return promote(second.getById(uniqueId));
+    }
+
+    @Override
+    public Optional<SkinProperty> getSkin(UUID uniqueId) {
+        Optional<SkinProperty> skin = first.getSkin(uniqueId);
+        if (skin.isPresent()) {
+            return recordHit(CacheType.SKIN, FIRST_TIER, skin);
+        }
+
+        skin = second.getSkin(uniqueId);
+        if (skin.isPresent()) {
+            Optional<Duration> age = second.getSkinAge(uniqueId);
+            if (age.isPresent()) {
+                first.addSkin(uniqueId, skin.get(), age.get());
+            } else {
+                first.addSkin(uniqueId, skin.get());
+            }
+
+            second.removeSkin(uniqueId);
+            return recordHit(CacheType.SKIN, SECOND_TIER, skin);
+        }
+
+        metrics.recordCacheMiss(CacheType.SKIN);
+        return skin;
+    }
+
+    @Override
+    public Optional<Profile> getStaleByName(String playerName) {
+        Optional<Profile> profile = first.getStaleByName(playerName);
+        return profile.isPresent() ? profile : second.getStaleByName(playerName);
+    }
+
+    @Override
+    public Optional<SkinProperty> getStaleSkin(UUID uniqueId) {
+        Optional<SkinProperty> skin = first.getStaleSkin(uniqueId);
+        return skin.isPresent() ? skin : second.getStaleSkin(uniqueId);
+    }
+
+    @Override
+    public Optional<Duration> getProfileAge(String playerName) {
+        Optional<Duration> age = first.getProfileAge(playerName);
+        return age.isPresent() ? age : second.getProfileAge(playerName);
+    }
+
+    @Override
+    public Optional<Duration> getSkinAge(UUID uniqueId) {
+        Optional<Duration> age = first.getSkinAge(uniqueId);
+        return age.isPresent() ? age : second.getSkinAge(uniqueId);
+    }
+
+    @Override
+    public ImmutableSet<Profile> getCachedProfiles() {
+        return ImmutableSet.<Profile>builder()
+                .addAll(first.getCachedProfiles())
+                .addAll(second.getCachedProfiles())
+                .build();
+    }
+
+    @Override
+    public ImmutableSet<SkinProperty> getCachedSkins() {
+        return ImmutableSet.<SkinProperty>builder()
+                .addAll(first.getCachedSkins())
+                .addAll(second.getCachedSkins())
+                .build();
+    }
+
+    private Optional<Profile> promote(Optional<Profile> profile) {
+        if (profile.isPresent()) {
+            // read before the removal
+            Optional<Duration> age = second.getProfileAge(profile.get().getName());
+            if (age.isPresent()) {
+                first.add(profile.get(), age.get());
+            } else {
+                first.add(profile.get());
+            }
+
+            second.remove(profile.get());
+            return recordHit(CacheType.PROFILE, SECOND_TIER, profile);
+        }
+
+        metrics.recordCacheMiss(CacheType.PROFILE);
+        return profile;
+    }
+
+    private <T> Optional<T> recordHit(CacheType type, int tier, Optional<T> result) {
+        metrics.recordCacheHit(type);
+        metrics.recordTierHit(type, tier);
+        return result;
+    }
+}
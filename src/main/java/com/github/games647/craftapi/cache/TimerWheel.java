@@ -0,0 +1,217 @@
+package com.github.games647.craftapi.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timer wheel for entries with different lifetimes. Scheduling and descheduling are O(1). Advancing only
+ * visits the buckets whose time passed - entries of coarse buckets are moved down to finer ones until they expire.
+ * <p>
+ * The levels have buckets of about 1 second, 1 minute, 1 hour and 1.6 days. Entries further in the future than 6.5
+ * days wait in a single overflow bucket. Entries expire up to one bucket late, never early.
+ * <p>
+ * Not thread-safe.
+ *
+ * @param <T> scheduled value
+ */
+final class TimerWheel<T> {
+
+    private static final int[] BUCKETS = {64, 64, 32, 4, 1};
+
+    // power of two nanoseconds per bucket of each level - a bucket spans a whole previous level, so that each level
+    // starts where the previous one ends. The span of the overflow level is repeated to find it.
+    private static final long[] SPANS = new long[BUCKETS.length + 1];
+    private static final int[] SHIFT = new int[BUCKETS.length];
+
+    static {
+        // 1.07 seconds
+        SPANS[0] = 1L << 30;
+        for (int i = 0; i < BUCKETS.length; i++) {
+            SPANS[i + 1] = SPANS[i] * BUCKETS[i];
+            SHIFT[i] = Long.numberOfTrailingZeros(SPANS[i]);
+        }
+    }
+
+    private final Node<T>[][] wheel;
+
+    // System.nanoTime can be negative - times are relative to the creation, so that the ticks only grow
+    private final long origin;
+    private long time;
+    private int size;
+
+    TimerWheel(long nowNanos) {
+        this.origin = nowNanos;
+
+        wheel = newWheel();
+        for (int level = 0; level < wheel.length; level++) {
+            for (int bucket = 0; bucket < wheel[level].length; bucket++) {
+                wheel[level][bucket] = new Node<>(null, 0);
+            }
+        }
+    }
+
+    /**
+     * @param value scheduled value
+     * @param expireNanos expiration in {@link System#nanoTime()}
+     * @return handle to deschedule the value
+     */
+    Node<T> schedule(T value, long expireNanos) {
+        Node<T> node = new Node<>(value, expireNanos - origin);
+        link(node);
+        size++;
+        return node;
+    }
+
+    /**
+     * @param node scheduled handle - ignored if it already expired or was descheduled
+     */
+    void deschedule(Node<T> node) {
+        if (node.next == null) {
+            return;
+        }
+
+        unlink(node);
+        size--;
+    }
+
+    /**
+     * Passes all values that expired until now to the consumer. They are descheduled before.
+     *
+     * @param nowNanos current {@link System#nanoTime()}
+     * @param expired receiver of the expired values
+     */
+    void advance(long nowNanos, Consumer<T> expired) {
+        long previousTime = time;
+        time = nowNanos - origin;
+
+        for (int level = 0; level < SHIFT.length; level++) {
+            long previousTicks = previousTime >>> SHIFT[level];
+            long currentTicks = time >>> SHIFT[level];
+            if (currentTicks <= previousTicks) {
+                // coarser levels cannot have passed a bucket either
+                break;
+            }
+
+            expire(level, previousTicks, currentTicks - previousTicks, expired);
+        }
+    }
+
+    /**
+     * Removes all values.
+     */
+    void clear() {
+        for (Node<T>[] level : wheel) {
+            for (Node<T> sentinel : level) {
+                Node<T> node = sentinel.next;
+                while (node != sentinel) {
+                    Node<T> next = node.next;
+                    node.prev = null;
+                    node.next = null;
+                    node = next;
+                }
+
+                sentinel.prev = sentinel;
+                sentinel.next = sentinel;
+            }
+        }
+
+        size = 0;
+    }
+
+    /**
+     * @return number of scheduled values
+     */
+    int size() {
+        return size;
+    }
+
+    private void expire(int level, long previousTicks, long delta, Consumer<T> expired) {
+        Node<T>[] buckets = wheel[level];
+        int mask = buckets.length - 1;
+
+        // visit the buckets that passed including the one of the previous time, at most the whole level
+        int steps = (int) Math.min(delta + 1, buckets.length);
+        int start = (int) (previousTicks & mask);
+        for (int i = start; i < start + steps; i++) {
+            Node<T> sentinel = buckets[i & mask];
+            Node<T> node = sentinel.next;
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+
+            while (node != sentinel) {
+                Node<T> next = node.next;
+                node.prev = null;
+                node.next = null;
+
+                if (node.time - time > 0) {
+                    // not yet expired, but the bucket covered a longer range - move it to a finer level
+                    link(node);
+                } else {
+                    size--;
+                    expired.accept(node.value);
+                }
+
+                node = next;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Node<T>[][] newWheel() {
+        Node<?>[][] wheel = new Node<?>[BUCKETS.length][];
+        for (int level = 0; level < wheel.length; level++) {
+            wheel[level] = new Node<?>[BUCKETS[level]];
+        }
+
+        return (Node<T>[][]) wheel;
+    }
+
+    private void link(Node<T> node) {
+        Node<T> sentinel = findBucket(node.time);
+        node.prev = sentinel.prev;
+        node.next = sentinel;
+        sentinel.prev.next = node;
+        sentinel.prev = node;
+    }
+
+    private static <T> void unlink(Node<T> node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = null;
+        node.next = null;
+    }
+
+    private Node<T> findBucket(long expireTime) {
+        long duration = expireTime - time;
+        int last = wheel.length - 1;
+        for (int level = 0; level < last; level++) {
+            if (duration < SPANS[level + 1]) {
+                long ticks = expireTime >>> SHIFT[level];
+                return wheel[level][(int) (ticks & (wheel[level].length - 1))];
+            }
+        }
+
+        return wheel[last][0];
+    }
+
+    static final class Node<T> {
+
+        private final T value;
+
+        // relative to the origin of the wheel
+        private final long time;
+
+        private Node<T> prev;
+        private Node<T> next;
+
+        Node(T value, long time) {
+            this.value = value;
+            this.time = time;
+
+            // sentinels link to themselves, scheduled nodes are linked on insert
+            if (value == null) {
+                prev = this;
+                next = this;
+            }
+        }
+    }
+}
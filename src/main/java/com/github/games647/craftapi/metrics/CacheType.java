@@ -0,0 +1,22 @@
+package com.github.games647.craftapi.metrics;
+
+/**
+ * Kind of cached data.
+ */
+public enum CacheType {
+
+    /**
+     * Game profiles mapping names to UUIDs
+     */
+    PROFILE,
+
+    /**
+     * Skin properties of players
+     */
+    SKIN,
+
+    /**
+     * Names known to not belong to a premium account
+     */
+    CRACKED_NAME
+}
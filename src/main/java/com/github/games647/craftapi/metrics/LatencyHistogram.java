@@ -0,0 +1,161 @@
+package com.github.games647.craftapi.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram with log-linear buckets similar to HdrHistogram. Values below 128 are counted exactly, larger
+ * values are grouped into buckets with a relative width of less than 1/64 (~1.6%). Values above the highest
+ * trackable value are counted in the last bucket.
+ */
+public class LatencyHistogram {
+
+    // number of linear sub buckets per power of two
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKET_HALF = 1 << SUB_BUCKET_BITS;
+
+    private static final long DEFAULT_HIGHEST_VALUE = TimeUnit.MINUTES.toNanos(1);
+
+    private final AtomicLongArray counts;
+    private final long highestTrackableValue;
+
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalSum = new LongAdder();
+    private final AtomicLong maxValue = new AtomicLong();
+
+    /**
+     * Creates a new histogram.
+     *
+     * @param highestTrackableValue highest value that can be distinguished from larger ones
+     */
+    public LatencyHistogram(long highestTrackableValue) {
+        if (highestTrackableValue < 2 * SUB_BUCKET_HALF) {
+            throw new IllegalArgumentException("Highest trackable value too low " + highestTrackableValue);
+        }
+
+        this.highestTrackableValue = highestTrackableValue;
+        this.counts = new AtomicLongArray(indexOf(highestTrackableValue) + 1);
+    }
+
+    /**
+     * Creates a new histogram for nanosecond latencies up to one minute.
+     */
+    public LatencyHistogram() {
+        this(DEFAULT_HIGHEST_VALUE);
+    }
+
+    /**
+     * @param value measured value - negative values are counted as 0
+     */
+    public void record(long value) {
+        long clamped = Math.max(0, Math.min(value, highestTrackableValue));
+        counts.incrementAndGet(indexOf(clamped));
+
+        totalCount.increment();
+        totalSum.add(clamped);
+        maxValue.accumulateAndGet(clamped, Math::max);
+    }
+
+    /**
+     * @return number of recorded values
+     */
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    /**
+     * @return the largest recorded value
+     */
+    public long getMax() {
+        return maxValue.get();
+    }
+
+    /**
+     * @return arithmetic mean of all recorded values or 0 if empty
+     */
+    public double getMean() {
+        long count = totalCount.sum();
+        if (count == 0) {
+            return 0;
+        }
+
+        return (double) totalSum.sum() / count;
+    }
+
+    /**
+     * Get the value at the given percentile. Concurrent recordings during the calculation may or may not be included.
+     *
+     * @param percentile between 0 and 100
+     * @return the highest value of the bucket that includes the percentile or 0 if empty
+     */
+    public long getValueAtPercentile(double percentile) {
+        long total = 0;
+        long[] snapshot = new long[counts.length()];
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+
+        if (total == 0) {
+            return 0;
+        }
+
+        double clamped = Math.max(0, Math.min(100, percentile));
+        long target = Math.max(1, (long) Math.ceil(clamped / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= target) {
+                return Math.min(highestValueOf(i), maxValue.get());
+            }
+        }
+
+        return maxValue.get();
+    }
+
+    /**
+     * Removes all recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+
+        totalCount.reset();
+        totalSum.reset();
+        maxValue.set(0);
+    }
+
+    static int indexOf(long value) {
+        if (value < 2 * SUB_BUCKET_HALF) {
+            return (int) value;
+        }
+
+        // shift the value, so that it fits into the upper half of the sub buckets
+        int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS - 1;
+        int subBucket = (int) (value >>> shift);
+        return shift * SUB_BUCKET_HALF + subBucket;
+    }
+
+    static long highestValueOf(int index) {
+        if (index < 2 * SUB_BUCKET_HALF) {
+            return index;
+        }
+
+        int shift = index / SUB_BUCKET_HALF - 1;
+        long subBucket = index - (long) shift * SUB_BUCKET_HALF;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + '{' +
+                "count=" + getCount() +
+                ", p50=" + getValueAtPercentile(50) +
+                ", p99=" + getValueAtPercentile(99) +
+                ", max=" + getMax() +
+                '}';
+    }
+}
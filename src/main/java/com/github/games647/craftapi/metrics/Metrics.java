@@ -0,0 +1,96 @@
+package com.github.games647.craftapi.metrics;
+
+import com.github.games647.craftapi.resolver.Endpoint;
+
+/**
+ * Receives measurements of the resolvers and caches. Implementations have to be thread-safe and should return
+ * quickly, because they are called on the lookup paths.
+ */
+public interface Metrics {
+
+    /**
+     * Status code used if no response was received.
+     */
+    int NO_RESPONSE = -1;
+
+    /**
+     * Records a completed or failed HTTP exchange.
+     *
+     * @param endpoint contacted endpoint
+     * @param statusCode response code or {@link #NO_RESPONSE} if the request failed
+     * @param durationNanos time until the response was received in nanoseconds
+     */
+    void recordRequest(Endpoint endpoint, int statusCode, long durationNanos);
+
+    /**
+     * @param type cache that contained the entry
+     */
+    void recordCacheHit(CacheType type);
+
+    /**
+     * @param type cache that didn't contain the entry
+     */
+    void recordCacheMiss(CacheType type);
+
+    /**
+     * Records the hits of a bulk lookup.
+     *
+     * @param type cache that contained the entries
+     * @param count number of found entries
+     */
+    default void recordCacheHits(CacheType type, int count) {
+        for (int i = 0; i < count; i++) {
+            recordCacheHit(type);
+        }
+    }
+
+    /**
+     * Records the misses of a bulk lookup.
+     *
+     * @param type cache that didn't contain the entries
+     * @param count number of missing entries
+     */
+    default void recordCacheMisses(CacheType type, int count) {
+        for (int i = 0; i < count; i++) {
+            recordCacheMiss(type);
+        }
+    }
+
+    /**
+     * @param type cache that removed an entry because of size or expiration
+     */
+    void recordCacheEviction(CacheType type);
+
+    /**
+     * Records which tier of a multi-level cache contained the entry. The hit itself is recorded separately.
+     *
+     * @param type cache that contained the entry
+     * @param tier 1 for the fastest tier, 2 for the next one
+     */
+    void recordTierHit(CacheType type, int tier);
+
+    /**
+     * Records that an expired entry was returned, because the request to Mojang failed or was rate limited.
+     *
+     * @param type cache that contained the expired entry
+     */
+    void recordStaleHit(CacheType type);
+
+    /**
+     * @param granted true if the rate limiter allowed the request
+     */
+    void recordRateLimit(boolean granted);
+
+    /**
+     * Records that a request was sent using a proxy, because the direct connection was limited.
+     */
+    void recordProxyFallback();
+
+    /**
+     * Records that multiple keys were resolved together.
+     *
+     * @param keys number of requested keys
+     * @param requests number of requests that were actually sent for them
+     */
+    void recordBatch(int keys, int requests);
+}
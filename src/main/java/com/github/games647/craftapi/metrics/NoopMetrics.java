@@ -0,0 +1,58 @@
+package com.github.games647.craftapi.metrics;
+
+import com.github.games647.craftapi.resolver.Endpoint;
+
+/**
+ * Metrics implementation that discards all measurements.
+ */
+public final class NoopMetrics implements Metrics {
+
+    public static final Metrics INSTANCE = new NoopMetrics();
+
+    private NoopMetrics() {
+    }
+
+    @Override
+    public void recordRequest(Endpoint endpoint, int statusCode, long durationNanos) {
+    }
+
+    @Override
+    public void recordCacheHit(CacheType type) {
+    }
+
+    @Override
+    public void recordCacheMiss(CacheType type) {
+    }
+
+    @Override
+    public void recordCacheHits(CacheType type, int count) {
+    }
+
+    @Override
+    public void recordCacheMisses(CacheType type, int count) {
+    }
+
+    @Override
+    public void recordCacheEviction(CacheType type) {
+    }
+
+    @Override
+    public void recordTierHit(CacheType type, int tier) {
+    }
+
+    @Override
+    public void recordStaleHit(CacheType type) {
+    }
+
+    @Override
+    public void recordRateLimit(boolean granted) {
+    }
+
+    @Override
+    public void recordProxyFallback() {
+    }
+
+    @Override
+    public void recordBatch(int keys, int requests) {
+    }
+}
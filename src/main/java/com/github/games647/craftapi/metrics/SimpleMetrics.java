@@ -0,0 +1,178 @@
+package com.github.games647.craftapi.metrics;
+
+import com.github.games647.craftapi.resolver.Endpoint;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects all measurements in memory using {@link LatencyHistogram}s for the request latencies and counters for
+ * the rest.
+ */
+public class SimpleMetrics implements Metrics {
+
+    private final Map<Endpoint, LatencyHistogram> latencies = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, ConcurrentMap<Integer, LongAdder>> statusCodes = new EnumMap<>(Endpoint.class);
+
+    private final Map<CacheType, LongAdder> cacheHits = new EnumMap<>(CacheType.class);
+    private final Map<CacheType, LongAdder> cacheMisses = new EnumMap<>(CacheType.class);
+    private final Map<CacheType, LongAdder> cacheEvictions = new EnumMap<>(CacheType.class);
+    private final Map<CacheType, ConcurrentMap<Integer, LongAdder>> tierHits = new EnumMap<>(CacheType.class);
+    private final Map<CacheType, LongAdder> staleHits = new EnumMap<>(CacheType.class);
+
+    private final LongAdder rateLimitGrants = new LongAdder();
+    private final LongAdder rateLimitRejections = new LongAdder();
+    private final LongAdder proxyFallbacks = new LongAdder();
+
+    private final LongAdder batchedKeys = new LongAdder();
+    private final LongAdder batchRequests = new LongAdder();
+
+    public SimpleMetrics() {
+        // fill all maps once, so they are only read afterwards
+        for (Endpoint endpoint : Endpoint.values()) {
+            latencies.put(endpoint, new LatencyHistogram());
+            statusCodes.put(endpoint, new ConcurrentHashMap<>());
+        }
+
+        for (CacheType type : CacheType.values()) {
+            cacheHits.put(type, new LongAdder());
+            cacheMisses.put(type, new LongAdder());
+            cacheEvictions.put(type, new LongAdder());
+            tierHits.put(type, new ConcurrentHashMap<>());
+            staleHits.put(type, new LongAdder());
+        }
+    }
+
+    @Override
+    public void recordRequest(Endpoint endpoint, int statusCode, long durationNanos) {
+        latencies.get(endpoint).record(durationNanos);
+        statusCodes.get(endpoint).computeIfAbsent(statusCode, code -> new LongAdder()).increment();
+    }
+
+    @Override
+    public void recordCacheHit(CacheType type) {
+        cacheHits.get(type).increment();
+    }
+
+    @Override
+    public void recordCacheMiss(CacheType type) {
+        cacheMisses.get(type).increment();
+    }
+
+    @Override
+    public void recordCacheHits(CacheType type, int count) {
+        cacheHits.get(type).add(count);
+    }
+
+    @Override
+    public void recordCacheMisses(CacheType type, int count) {
+        cacheMisses.get(type).add(count);
+    }
+
+    @Override
+    public void recordCacheEviction(CacheType type) {
+        cacheEvictions.get(type).increment();
+    }
+
+    @Override
+    public void recordTierHit(CacheType type, int tier) {
+        tierHits.get(type).computeIfAbsent(tier, key -> new LongAdder()).increment();
+    }
+
+    @Override
+    public void recordStaleHit(CacheType type) {
+        staleHits.get(type).increment();
+    }
+
+    @Override
+    public void recordRateLimit(boolean granted) {
+        if (granted) {
+            rateLimitGrants.increment();
+        } else {
+            rateLimitRejections.increment();
+        }
+    }
+
+    @Override
+    public void recordProxyFallback() {
+        proxyFallbacks.increment();
+    }
+
+    @Override
+    public void recordBatch(int keys, int requests) {
+        batchedKeys.add(keys);
+        batchRequests.add(requests);
+    }
+
+    /**
+     * @param endpoint remote endpoint
+     * @return latency histogram in nanoseconds
+     */
+    public LatencyHistogram getLatency(Endpoint endpoint) {
+        return latencies.get(endpoint);
+    }
+
+    /**
+     * @param endpoint remote endpoint
+     * @return immutable copy of the number of responses per status code
+     */
+    public ImmutableMap<Integer, Long> getStatusCodes(Endpoint endpoint) {
+        ImmutableMap.Builder<Integer, Long> builder = ImmutableMap.builder();
+        statusCodes.get(endpoint).forEach((code, counter) -> builder.put(code, counter.sum()));
+        return builder.build();
+    }
+
+    public long getCacheHits(CacheType type) {
+        return cacheHits.get(type).sum();
+    }
+
+    public long getCacheMisses(CacheType type) {
+        return cacheMisses.get(type).sum();
+    }
+
+    public long getCacheEvictions(CacheType type) {
+        return cacheEvictions.get(type).sum();
+    }
+
+    /**
+     * @param type cache type
+     * @return hits per tier of multi-level caches
+     */
+    public ImmutableMap<Integer, Long> getTierHits(CacheType type) {
+        ImmutableMap.Builder<Integer, Long> builder = ImmutableMap.builder();
+        tierHits.get(type).forEach((tier, counter) -> builder.put(tier, counter.sum()));
+        return builder.build();
+    }
+
+    public long getStaleHits(CacheType type) {
+        return staleHits.get(type).sum();
+    }
+
+    public long getRateLimitGrants() {
+        return rateLimitGrants.sum();
+    }
+
+    public long getRateLimitRejections() {
+        return rateLimitRejections.sum();
+    }
+
+    public long getProxyFallbacks() {
+        return proxyFallbacks.sum();
+    }
+
+    /**
+     * @return average number of keys per sent request or 0 if nothing was batched yet
+     */
+    public double getBatchRatio() {
+        long requests = batchRequests.sum();
+        if (requests == 0) {
+            return 0;
+        }
+
+        return (double) batchedKeys.sum() / requests;
+    }
+}
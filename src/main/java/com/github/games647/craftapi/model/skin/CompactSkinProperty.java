@@ -0,0 +1,170 @@
+package com.github.games647.craftapi.model.skin;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Skin property that keeps the decoded bytes instead of the Base64 text. This needs about half of the memory of a
+ * {@link SkinProperty}, so caches can use it for large amounts of skins. The Base64 text is created on every call of
+ * {@link #getValue()} and {@link #getSignature()} and isn't kept.
+ * <p>
+ * Gson writes it in the same Base64 form as a {@link SkinProperty}.
+ */
+@JsonAdapter(CompactSkinProperty.Adapter.class)
+public class CompactSkinProperty extends SkinProperty {
+
+    // transient - the fields of the superclass have the same JSON names
+    private final transient byte[] decodedValue;
+    private final transient byte[] decodedSignature;
+
+    // lazily computed like in String - encoding both values for every hash lookup would be expensive
+    private int hash;
+
+    /**
+     * Creates a compact skin property. The arrays are used directly and shouldn't be modified afterwards.
+     *
+     * @param decodedValue decoded json skin data
+     * @param decodedSignature decoded signature
+     */
+    public CompactSkinProperty(byte[] decodedValue, byte[] decodedSignature) {
+        super(null, null);
+
+        this.decodedValue = decodedValue;
+        this.decodedSignature = decodedSignature;
+    }
+
+    /**
+     * Decodes the property into a compact one if the Base64 encoding can be restored exactly.
+     *
+     * @param property Base64 encoded skin property
+     * @return compact version or the property itself if it's already compact or it cannot be restored
+     */
+    public static SkinProperty compact(SkinProperty property) {
+        if (property instanceof CompactSkinProperty) {
+            return property;
+        }
+
+        byte[] value = decode(property.getValue());
+        byte[] signature = decode(property.getSignature());
+        if (value == null || signature == null) {
+            return property;
+        }
+
+        return new CompactSkinProperty(value, signature);
+    }
+
+    @Override
+    public String getValue() {
+        return Base64.getEncoder().encodeToString(decodedValue);
+    }
+
+    @Override
+    public String getSignature() {
+        return Base64.getEncoder().encodeToString(decodedSignature);
+    }
+
+    /**
+     * @return copy of the decoded json skin data
+     */
+    public byte[] getDecodedValue() {
+        return Arrays.copyOf(decodedValue, decodedValue.length);
+    }
+
+    /**
+     * @return copy of the decoded signature
+     */
+    public byte[] getDecodedSignature() {
+        return Arrays.copyOf(decodedSignature, decodedSignature.length);
+    }
+
+    /**
+     * @return number of bytes of the decoded value and signature
+     */
+    public int getDecodedLength() {
+        return decodedValue.length + decodedSignature.length;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (other instanceof CompactSkinProperty) {
+            CompactSkinProperty property = (CompactSkinProperty) other;
+            return Arrays.equals(decodedValue, property.decodedValue)
+                    && Arrays.equals(decodedSignature, property.decodedSignature);
+        }
+
+        return super.equals(other);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = hash;
+        if (result == 0) {
+            result = super.hashCode();
+            hash = result;
+        }
+
+        return result;
+    }
+
+    private static byte[] decode(String base64) {
+        if (base64 == null) {
+            return null;
+        }
+
+        try {
+            byte[] decoded = Base64.getDecoder().decode(base64);
+            if (Base64.getEncoder().encodeToString(decoded).equals(base64)) {
+                return decoded;
+            }
+        } catch (IllegalArgumentException invalidEx) {
+            // keep the original text
+        }
+
+        return null;
+    }
+
+    /**
+     * Converts the decoded bytes from and to the Base64 text of the Mojang API.
+     */
+    static class Adapter extends TypeAdapter<CompactSkinProperty> {
+
+        @Override
+        public void write(JsonWriter out, CompactSkinProperty property) throws IOException {
+            out.beginObject();
+            out.name("value").value(property.getValue());
+            out.name("signature").value(property.getSignature());
+            out.endObject();
+        }
+
+        @Override
+        public CompactSkinProperty read(JsonReader in) throws IOException {
+            byte[] value = null;
+            byte[] signature = null;
+
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if ("value".equals(name)) {
+                    value = Base64.getDecoder().decode(in.nextString());
+                } else if ("signature".equals(name)) {
+                    signature = Base64.getDecoder().decode(in.nextString());
+                } else {
+                    in.skipValue();
+                }
+            }
+
+            in.endObject();
+            if (value == null || signature == null) {
+                throw new IOException("Missing value or signature of the skin property");
+            }
+
+            return new CompactSkinProperty(value, signature);
+        }
+    }
+}
@@ -60,9 +60,9 @@ public class SkinProperty {
         }
 
         sign.initVerify(publicKey);
-        sign.update(value.getBytes());
+        sign.update(getValue().getBytes());
 
-        byte[] decodedSignature = Base64.getDecoder().decode(signature);
+        byte[] decodedSignature = Base64.getDecoder().decode(getSignature());
         return sign.verify(decodedSignature);
     }
 
@@ -74,8 +74,9 @@ public class SkinProperty {
 
         if (other instanceof SkinProperty) {
             SkinProperty property = (SkinProperty) other;
-            return Objects.equals(value, property.value) &&
-                    Objects.equals(signature, property.signature);
+            // getters, because the compact subclass doesn't store the text
+            return Objects.equals(getValue(), property.getValue()) &&
+                    Objects.equals(getSignature(), property.getSignature());
         }
 
         return false;
@@ -83,14 +84,14 @@ public class SkinProperty {
 
     @Override
     public int hashCode() {
-        return Objects.hash(value, signature);
+        return Objects.hash(getValue(), getSignature());
     }
 
     @Override
     public String toString() {
         return this.getClass().getSimpleName() + '{' +
-                "value='" + value + '\'' +
-                ", signature='" + signature + '\'' +
+                "value='" + getValue() + '\'' +
+                ", signature='" + getSignature() + '\'' +
                 '}';
     }
 }
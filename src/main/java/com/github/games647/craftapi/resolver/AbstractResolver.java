@@ -4,10 +4,15 @@ import com.github.games647.craftapi.InstantAdapter;
 import com.github.games647.craftapi.NamePredicate;
 import com.github.games647.craftapi.UUIDAdapter;
 import com.github.games647.craftapi.cache.Cache;
+import com.github.games647.craftapi.metrics.Metrics;
+import com.github.games647.craftapi.model.skin.CompactSkinProperty;
 import com.github.games647.craftapi.model.skin.Skin;
 import com.github.games647.craftapi.model.skin.SkinProperty;
+import com.github.games647.craftapi.resolver.http.HttpTransport;
+import com.github.games647.craftapi.resolver.ratelimiter.ConcurrencyLimiter;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
 
 import java.io.Closeable;
 import java.io.IOException;
@@ -15,6 +20,8 @@ import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpRequest.Builder;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.Instant;
@@ -40,8 +47,15 @@ public abstract class AbstractResolver implements Closeable {
     protected final HttpClient client;
     protected final HttpClient proxyClient;
 
+    protected final ConcurrencyLimiter concurrencyLimiter;
+    protected final Metrics metrics;
+    protected final HttpTransport transport;
+
     public AbstractResolver(Options options) {
         cache = options.getCache();
+        transport = options.getTransport();
+        metrics = options.getMetrics();
+        concurrencyLimiter = options.getConcurrencyLimiter();
 
         HttpClient.Builder builder = HttpClient.newBuilder()
                 .connectTimeout(Duration.ofSeconds(5));
@@ -68,6 +82,13 @@ public abstract class AbstractResolver implements Closeable {
      * @return decoded model
      */
     public Skin decodeSkin(SkinProperty property) {
+        if (property instanceof CompactSkinProperty) {
+            CompactSkinProperty compact = (CompactSkinProperty) property;
+            Skin skinModel = gson.fromJson(new String(compact.getDecodedValue(), StandardCharsets.UTF_8), Skin.class);
+            skinModel.setSignature(compact.getDecodedSignature());
+            return skinModel;
+        }
+
         byte[] data = Base64.getDecoder().decode(property.getValue());
         String json = new String(data, StandardCharsets.UTF_8);
 
@@ -90,8 +111,80 @@ public abstract class AbstractResolver implements Closeable {
         return new SkinProperty(encodedValue, encodedSignature);
     }
 
-    protected <T> T readJson(String json, Class<T> classOfT) {
-        return gson.fromJson(json, classOfT);
+    protected <T> T readJson(String json, Class<T> classOfT) throws IOException {
+        T result;
+        try {
+            result = gson.fromJson(json, classOfT);
+        } catch (JsonParseException parseEx) {
+            throw new IOException("Malformed response for " + classOfT.getSimpleName(), parseEx);
+        }
+
+        if (result == null) {
+            throw new IOException("Empty response for " + classOfT.getSimpleName());
+        }
+
+        return result;
+    }
+
+    /**
+     * Sends the request if the concurrency limit allows it. The round trip time is reported back to the limiter and
+     * the metrics.
+     *
+     * @param endpoint the contacted endpoint
+     * @param client the client that should send the request
+     * @param request the request
+     * @return the response with the body as string
+     * @throws IOException I/O exception or rejected by the concurrency limiter
+     * @throws InterruptedException interrupted while waiting for a free slot or the response
+     */
+    protected HttpResponse<String> send(Endpoint endpoint, HttpClient client, HttpRequest request)
+            throws IOException, InterruptedException {
+        if (!concurrencyLimiter.acquire()) {
+            throw new IOException("Too many concurrent requests to " + request.uri().getHost());
+        }
+
+        HttpExchangeEvent event = new HttpExchangeEvent();
+        event.begin();
+
+        boolean released = false;
+        int statusCode = Metrics.NO_RESPONSE;
+        long responseSize = 0;
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = transport.send(client, request);
+            long duration = System.nanoTime() - start;
+
+            statusCode = response.statusCode();
+            responseSize = response.headers().firstValueAsLong("Content-Length").orElse(response.body().length());
+            if (statusCode == RateLimitException.RATE_LIMIT_RESPONSE_CODE) {
+                concurrencyLimiter.onDropped();
+            } else {
+                concurrencyLimiter.onSuccess(duration);
+            }
+
+            released = true;
+            return response;
+        } catch (HttpTimeoutException timeoutEx) {
+            concurrencyLimiter.onDropped();
+            released = true;
+            throw timeoutEx;
+        } finally {
+            if (!released) {
+                concurrencyLimiter.onIgnored();
+            }
+
+            metrics.recordRequest(endpoint, statusCode, System.nanoTime() - start);
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.endpoint = endpoint.name();
+                event.uri = request.uri().toString();
+                event.statusCode = statusCode;
+                event.responseSize = responseSize;
+                event.proxy = client.proxy().isPresent();
+                event.commit();
+            }
+        }
     }
 
     protected static Builder createJSONReq(String url) {
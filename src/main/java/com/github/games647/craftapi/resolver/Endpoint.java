@@ -0,0 +1,37 @@
+package com.github.games647.craftapi.resolver;
+
+/**
+ * Remote endpoints contacted by the resolvers.
+ */
+public enum Endpoint {
+
+    /**
+     * Name to UUID lookup of a single player
+     */
+    PROFILE,
+
+    /**
+     * Name to UUID lookup of multiple players
+     */
+    BULK_PROFILE,
+
+    /**
+     * Session server verification of joining players
+     */
+    HAS_JOINED,
+
+    /**
+     * Signed skin data of a player
+     */
+    SKIN,
+
+    /**
+     * Skin upload
+     */
+    CHANGE_SKIN,
+
+    /**
+     * Skin reset to the default one
+     */
+    RESET_SKIN
+}
@@ -0,0 +1,37 @@
+package com.github.games647.craftapi.resolver;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for a single HTTP exchange with a remote endpoint. The event duration covers the time from
+ * sending the request until the response was received.
+ */
+@Name("com.github.games647.craftapi.HttpExchange")
+@Label("HTTP Exchange")
+@Category({"CraftAPI", "HTTP"})
+@Description("Request to a Mojang endpoint")
+@StackTrace(false)
+class HttpExchangeEvent extends jdk.jfr.Event {
+
+    @Label("Endpoint")
+    String endpoint;
+
+    @Label("URI")
+    String uri;
+
+    @Label("Status Code")
+    @Description("Response code or -1 if no response was received")
+    int statusCode;
+
+    @Label("Response Size")
+    @DataAmount
+    long responseSize;
+
+    @Label("Proxy Used")
+    boolean proxy;
+}
@@ -1,6 +1,10 @@
 package com.github.games647.craftapi.resolver;
 
 import com.github.games647.craftapi.UUIDAdapter;
+import com.github.games647.craftapi.cache.BulkLookup;
+import com.github.games647.craftapi.cache.CrackedNameFilter;
+import com.github.games647.craftapi.cache.NameHistoryStore;
+import com.github.games647.craftapi.metrics.CacheType;
 import com.github.games647.craftapi.model.NameHistory;
 import com.github.games647.craftapi.model.Profile;
 import com.github.games647.craftapi.model.auth.MinecraftAccount;
@@ -14,6 +18,7 @@ import com.github.games647.craftapi.resolver.ratelimiter.TickingRateLimiter;
 import com.google.common.base.Ticker;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 
 import javax.net.ssl.HttpsURLConnection;
 import java.awt.image.RenderedImage;
@@ -29,10 +34,17 @@ import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpRequest.BodyPublishers;
 import java.net.http.HttpResponse;
-import java.net.http.HttpResponse.BodyHandlers;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
@@ -47,31 +59,68 @@ public class MojangResolver extends AbstractResolver implements AuthResolver, Pr
     }
 
     //profile
-    private static final String UUID_URL = "https://api.mojang.com/users/profiles/minecraft/";
-    private static final String BACKUP_UUID_URL = "https://api.minecraftservices.com/minecraft/profile/lookup/name/";
+    private static final String UUID_PATH = "/users/profiles/minecraft/";
+    private static final String BACKUP_UUID_PATH = "/minecraft/profile/lookup/name/";
+    private static final String BULK_UUID_PATH = "/profiles/minecraft";
+    private static final int MAX_BULK_NAMES = 10;
     private boolean useBackupUuidUrl;
 
     //skin
-    private static final String CHANGE_SKIN_URL = "https://api.mojang.com/user/profile/%s/skin";
-    private static final String RESET_SKIN_URL = "https://api.mojang.com/user/profile/%s/skin";
-    private static final String SKIN_URL = "https://sessionserver.mojang.com/session/minecraft/profile/%s" +
-            "?unsigned=false";
+    private static final String CHANGE_SKIN_PATH = "/user/profile/%s/skin";
+    private static final String RESET_SKIN_PATH = "/user/profile/%s/skin";
+    private static final String SKIN_PATH = "/session/minecraft/profile/%s?unsigned=false";
 
     //authentication
-    private static final String HAS_JOINED_URL_PROXY_CHECK = "https://sessionserver.mojang.com/session/minecraft/" +
-            "hasJoined?username=%s&serverId=%s&ip=%s";
-    private static final String HAS_JOINED_URL_RAW = "https://sessionserver.mojang.com/session/minecraft/hasJoined?" +
-            "username=%s&serverId=%s";
+    private static final String HAS_JOINED_PATH_PROXY_CHECK = "/session/minecraft/hasJoined?username=%s&serverId=%s" +
+            "&ip=%s";
+    private static final String HAS_JOINED_PATH_RAW = "/session/minecraft/hasJoined?username=%s&serverId=%s";
+
+    private final String uuidUrl;
+    private final String backupUuidUrl;
+    private final String bulkUuidUrl;
+    private final String changeSkinUrl;
+    private final String resetSkinUrl;
+    private final String skinUrl;
+    private final String hasJoinedUrlProxyCheck;
+    private final String hasJoinedUrlRaw;
 
     private final RateLimiter profileLimiter;
+    private final RefreshAhead refreshAhead;
+    private final CrackedNameFilter crackedNameFilter;
+    private final NameHistoryStore nameHistoryStore;
 
     public MojangResolver(Options options) {
         super(options);
 
+        String apiUrl = options.getApiUrl();
+        String servicesUrl = options.getServicesUrl();
+        String sessionUrl = options.getSessionServerUrl();
+
+        uuidUrl = apiUrl + UUID_PATH;
+        backupUuidUrl = servicesUrl + BACKUP_UUID_PATH;
+        bulkUuidUrl = apiUrl + BULK_UUID_PATH;
+        changeSkinUrl = apiUrl + CHANGE_SKIN_PATH;
+        resetSkinUrl = apiUrl + RESET_SKIN_PATH;
+        skinUrl = sessionUrl + SKIN_PATH;
+        hasJoinedUrlProxyCheck = sessionUrl + HAS_JOINED_PATH_PROXY_CHECK;
+        hasJoinedUrlRaw = sessionUrl + HAS_JOINED_PATH_RAW;
+
         profileLimiter = new TickingRateLimiter(
                 Ticker.systemTicker(), options.getMaxNameRequests(),
                 TimeUnit.MINUTES.toMillis(10)
         );
+
+        crackedNameFilter = options.getCrackedNameFilter();
+        nameHistoryStore = options.getNameHistoryStore();
+        if (options.getRefreshAfter() == null) {
+            refreshAhead = null;
+        } else {
+            RateLimiter refreshLimiter = new TickingRateLimiter(
+                    Ticker.systemTicker(), options.getMaxRefreshRequests(),
+                    TimeUnit.MINUTES.toMillis(10)
+            );
+            refreshAhead = new RefreshAhead(options.getRefreshAfter(), refreshLimiter);
+        }
     }
 
     @Override
@@ -81,22 +130,27 @@ public class MojangResolver extends AbstractResolver implements AuthResolver, Pr
         if (hostIp == null || hostIp instanceof Inet6Address) {
             // Mojang currently doesn't check the IPv6 address correct. The prevent-proxy even doesn't work with
             // a vanilla server
-            url = String.format(HAS_JOINED_URL_RAW, username, serverHash);
+            url = String.format(hasJoinedUrlRaw, username, serverHash);
         } else {
             String encodedIP = URLEncoder.encode(hostIp.getHostAddress(), StandardCharsets.UTF_8);
-            url = String.format(HAS_JOINED_URL_PROXY_CHECK, username, serverHash, encodedIP);
+            url = String.format(hasJoinedUrlProxyCheck, username, serverHash, encodedIP);
         }
 
         HttpRequest req = createJSONGet(url);
         try {
-            HttpResponse<String> resp = client.send(req, BodyHandlers.ofString());
+            HttpResponse<String> resp = send(Endpoint.HAS_JOINED, client, req);
 
             int responseCode = resp.statusCode();
             if (responseCode == HttpURLConnection.HTTP_NOT_FOUND || responseCode == HttpURLConnection.HTTP_NO_CONTENT) {
                 return Optional.empty();
             }
 
-            return Optional.of(readJson(resp.body(), Verification.class));
+            Verification verification = readJson(resp.body(), Verification.class);
+            if (nameHistoryStore != null) {
+                nameHistoryStore.record(verification.getId(), verification.getName(), Instant.now());
+            }
+
+            return Optional.of(verification);
         } catch (InterruptedException e) {
             throw new IOException(e);
         }
@@ -104,7 +158,7 @@ public class MojangResolver extends AbstractResolver implements AuthResolver, Pr
 
     @Override
     public void changeSkin(MinecraftAccount account, URL toUrl, Model skinModel) throws IOException {
-        String url = String.format(CHANGE_SKIN_URL, UUIDAdapter.toMojangId(account.getProfile().getId()));
+        String url = String.format(changeSkinUrl, UUIDAdapter.toMojangId(account.getProfile().getId()));
 
         String payload = gson.toJson(new ChangeSkin(skinModel, toUrl));
         HttpRequest req = createJSONReq(url)
@@ -113,7 +167,7 @@ public class MojangResolver extends AbstractResolver implements AuthResolver, Pr
                 .build();
 
         try {
-            HttpResponse<String> resp = client.send(req, BodyHandlers.ofString());
+            HttpResponse<String> resp = send(Endpoint.CHANGE_SKIN, client, req);
 
             int responseCode = resp.statusCode();
             if (responseCode != HttpURLConnection.HTTP_OK) {
@@ -131,7 +185,7 @@ public class MojangResolver extends AbstractResolver implements AuthResolver, Pr
 
     @Override
     public boolean resetSkin(MinecraftAccount account) throws IOException {
-        String url = String.format(RESET_SKIN_URL, account.getProfile().getId());
+        String url = String.format(resetSkinUrl, account.getProfile().getId());
 
         HttpRequest req = HttpRequest.newBuilder()
                 .uri(URI.create(url))
@@ -140,7 +194,7 @@ public class MojangResolver extends AbstractResolver implements AuthResolver, Pr
                 .DELETE()
                 .build();
         try {
-            HttpResponse<String> resp = client.send(req, BodyHandlers.ofString());
+            HttpResponse<String> resp = send(Endpoint.RESET_SKIN, client, req);
 
             int responseCode = resp.statusCode();
             return responseCode == HttpURLConnection.HTTP_OK || responseCode == HttpURLConnection.HTTP_NO_CONTENT;
@@ -151,50 +205,215 @@ public class MojangResolver extends AbstractResolver implements AuthResolver, Pr
 
     @Override
     public ImmutableSet<Profile> findProfiles(String... names) throws IOException, RateLimitException {
-        throw new UnsupportedOperationException("Not implemented yet");
+        // case-insensitive duplicates would waste slots of the requests
+        Map<String, String> requested = new LinkedHashMap<>();
+        for (String name : names) {
+            if (validNamePredicate.test(name)) {
+                requested.putIfAbsent(name.toLowerCase(Locale.ROOT), name);
+            }
+        }
+
+        BulkLookup<String, Profile> cached = cache.getAllByName(requested.values());
+        ImmutableSet.Builder<Profile> profiles = ImmutableSet.builder();
+        profiles.addAll(cached.getHits().values());
+
+        List<String> missing = new ArrayList<>();
+        for (String name : cached.getMisses()) {
+            if (crackedNameFilter != null) {
+                boolean cracked = crackedNameFilter.mightBeCracked(name);
+                if (cracked) {
+                    metrics.recordCacheHit(CacheType.CRACKED_NAME);
+                    continue;
+                }
+
+                metrics.recordCacheMiss(CacheType.CRACKED_NAME);
+            }
+
+            missing.add(name);
+        }
+
+        if (missing.isEmpty()) {
+            return profiles.build();
+        }
+
+        int requests = 0;
+        try {
+            for (List<String> chunk : Lists.partition(missing, MAX_BULK_NAMES)) {
+                requests++;
+                List<Profile> found = requestProfiles(chunk);
+                cache.addAll(found);
+                profiles.addAll(found);
+                recordNames(found);
+
+                if (crackedNameFilter != null && !Thread.currentThread().isInterrupted()) {
+                    Set<String> premium = new HashSet<>();
+                    found.forEach(profile -> premium.add(profile.getName().toLowerCase(Locale.ROOT)));
+                    for (String name : chunk) {
+                        if (!premium.contains(name.toLowerCase(Locale.ROOT))) {
+                            crackedNameFilter.putCracked(name);
+                        }
+                    }
+                }
+            }
+        } finally {
+            metrics.recordBatch(missing.size(), requests);
+        }
+
+        return profiles.build();
+    }
+
+    private List<Profile> requestProfiles(List<String> names) throws IOException, RateLimitException {
+        HttpRequest req = createJSONReq(bulkUuidUrl)
+                .POST(BodyPublishers.ofString(gson.toJson(names)))
+                .build();
+
+        HttpClient client = selectClient();
+        try {
+            HttpResponse<String> resp = send(Endpoint.BULK_PROFILE, client, req);
+            if (resp.statusCode() == RateLimitException.RATE_LIMIT_RESPONSE_CODE) {
+                if (client.proxy().isPresent() || proxyClient == null) {
+                    throw new RateLimitException();
+                }
+
+                // another try with a proxy
+                metrics.recordProxyFallback();
+                resp = send(Endpoint.BULK_PROFILE, proxyClient, req);
+                if (resp.statusCode() == RateLimitException.RATE_LIMIT_RESPONSE_CODE) {
+                    throw new RateLimitException();
+                }
+            }
+
+            int responseCode = resp.statusCode();
+            if (responseCode != HttpURLConnection.HTTP_OK) {
+                throw new IOException("Response code is not Ok: " + responseCode);
+            }
+
+            return Arrays.asList(readJson(resp.body(), Profile[].class));
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            return List.of();
+        }
     }
 
     @Override
     public ImmutableList<NameHistory> findNames(UUID uuid) throws IOException {
-        throw new UnsupportedOperationException("Not implemented yet");
+        if (nameHistoryStore == null) {
+            throw new UnsupportedOperationException("Mojang removed the name history - configure a NameHistoryStore");
+        }
+
+        return nameHistoryStore.findNames(uuid);
     }
 
     @Override
     public Optional<Profile> findProfile(String name) throws IOException, RateLimitException {
         Optional<Profile> optProfile = cache.getByName(name);
-        if (optProfile.isPresent() || !validNamePredicate.test(name)) {
+        if (optProfile.isPresent()) {
+            if (refreshAhead != null && refreshAhead.isStale(cache.getProfileAge(name))) {
+                refreshAhead.refresh(name.toLowerCase(Locale.ROOT), () -> refreshProfile(name));
+            }
+
             return optProfile;
         }
 
-        String url = (useBackupUuidUrl ? BACKUP_UUID_URL : UUID_URL) + name;
-        HttpRequest req = createJSONGet(url);
+        if (!validNamePredicate.test(name)) {
+            return optProfile;
+        }
 
-        HttpClient client = this.client;
-        if (!profileLimiter.tryAcquire()) {
-            if (proxyClient == null) {
-                throw new RateLimitException();
+        if (crackedNameFilter != null) {
+            boolean cracked = crackedNameFilter.mightBeCracked(name);
+            if (cracked) {
+                metrics.recordCacheHit(CacheType.CRACKED_NAME);
+                return Optional.empty();
             }
 
-            client = proxyClient;
+            metrics.recordCacheMiss(CacheType.CRACKED_NAME);
         }
 
-        return findProfile(client, req);
+        try {
+            Optional<Profile> profile = requestProfile(name);
+            if (profile.isEmpty() && crackedNameFilter != null && !Thread.currentThread().isInterrupted()) {
+                crackedNameFilter.putCracked(name);
+            }
+
+            return profile;
+        } catch (IOException | RateLimitException ex) {
+            Optional<Profile> stale = cache.getStaleByName(name);
+            if (stale.isEmpty()) {
+                throw ex;
+            }
+
+            metrics.recordStaleHit(CacheType.PROFILE);
+            return stale;
+        }
+    }
+
+    private Optional<Profile> requestProfile(String name) throws IOException, RateLimitException {
+        String url = (useBackupUuidUrl ? backupUuidUrl : uuidUrl) + name;
+        HttpRequest req = createJSONGet(url);
+        return findProfile(selectClient(), req);
+    }
+
+    /**
+     * @return the direct client if the rate limit allows another name request, otherwise the proxies
+     * @throws RateLimitException rate limited and there are no proxies
+     */
+    private HttpClient selectClient() throws RateLimitException {
+        boolean granted = profileLimiter.tryAcquire();
+        metrics.recordRateLimit(granted);
+        if (granted) {
+            return client;
+        }
+
+        if (proxyClient == null) {
+            throw new RateLimitException();
+        }
+
+        metrics.recordProxyFallback();
+        return proxyClient;
+    }
+
+    /**
+     * Only charged to the budget of {@link RefreshAhead}, so the name requests stay available for uncached lookups.
+     */
+    private void refreshProfile(String name) throws IOException {
+        HttpRequest req = createJSONGet((useBackupUuidUrl ? backupUuidUrl : uuidUrl) + name);
+        Optional<Profile> profile;
+        try {
+            profile = findProfile(client, req, false);
+        } catch (RateLimitException rateLimitEx) {
+            // skip this refresh - the proxies are reserved for uncached lookups
+            return;
+        }
+
+        if (profile.isEmpty() && !Thread.currentThread().isInterrupted()) {
+            // the name is no longer used
+            cache.getByName(name).ifPresent(cache::remove);
+        }
     }
 
     protected Optional<Profile> findProfile(HttpClient client, HttpRequest req)
             throws IOException, RateLimitException {
+        return findProfile(client, req, true);
+    }
+
+    /**
+     * @param proxyFallback true to retry rate limited requests with the proxies
+     */
+    private Optional<Profile> findProfile(HttpClient client, HttpRequest req, boolean proxyFallback)
+            throws IOException, RateLimitException {
         try {
-            HttpResponse<String> resp = client.send(req, BodyHandlers.ofString());
+            HttpResponse<String> resp = send(Endpoint.PROFILE, client, req);
 
             int responseCode = resp.statusCode();
             if (responseCode == RateLimitException.RATE_LIMIT_RESPONSE_CODE) {
-                if (client.proxy().isPresent() || proxyClient == null) {
+                if (!proxyFallback || client.proxy().isPresent() || proxyClient == null) {
                     // was from the proxy executor or there are no proxies available
                     throw new RateLimitException();
                 }
 
                 // another try with a proxy
-                return findProfile(proxyClient, req);
+                metrics.recordProxyFallback();
+                return findProfile(proxyClient, req, true);
             }
 
             if (responseCode == HttpURLConnection.HTTP_FORBIDDEN) {
@@ -204,22 +423,24 @@ public class MojangResolver extends AbstractResolver implements AuthResolver, Pr
 
                 useBackupUuidUrl = true;
                 // extract only the username and query parameters
-                String backupUrl = BACKUP_UUID_URL + req.uri().getPath()
+                String backupUrl = backupUuidUrl + req.uri().getPath()
                     .substring(req.uri().getPath().lastIndexOf('/') + 1);
                 HttpRequest backupReq = createJSONGet(backupUrl);
-                return findProfile(client, backupReq);
+                return findProfile(client, backupReq, proxyFallback);
             }
 
-            if (responseCode == HttpURLConnection.HTTP_NO_CONTENT) {
+            if (responseCode == HttpURLConnection.HTTP_NO_CONTENT || responseCode == HttpURLConnection.HTTP_NOT_FOUND) {
+                //new API treats not found as cracked
                 return Optional.empty();
             }
 
             //todo: print errorstream on IOException
             Profile profile = readJson(resp.body(), Profile.class);
-            System.out.println("Parsed " + profile);
             cache.add(profile);
+            recordNames(List.of(profile));
             return Optional.of(profile);
         } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
             return Optional.empty();
         } catch (FileNotFoundException fileNotFoundException) {
             //new API treats not found as cracked
@@ -229,25 +450,68 @@ public class MojangResolver extends AbstractResolver implements AuthResolver, Pr
 
     @Override
     public Optional<Profile> findProfile(String name, Instant time) throws IOException, RateLimitException {
-        Optional<Profile> optProfile = cache.getByName(name);
-        if (optProfile.isPresent() || !validNamePredicate.test(name)) {
-            return optProfile;
+        if (time.equals(Instant.EPOCH)) {
+            return findProfile(name);
         }
 
-        throw new UnsupportedOperationException("Not implemented yet");
+        if (nameHistoryStore == null) {
+            Optional<Profile> optProfile = cache.getByName(name);
+            if (optProfile.isPresent() || !validNamePredicate.test(name)) {
+                return optProfile;
+            }
+
+            throw new UnsupportedOperationException("Mojang removed the name history - configure a NameHistoryStore");
+        }
+
+        return nameHistoryStore.findProfile(name, time);
+    }
+
+    private void recordNames(List<Profile> profiles) {
+        if (nameHistoryStore != null) {
+            Instant now = Instant.now();
+            profiles.forEach(profile -> nameHistoryStore.record(profile, now));
+        }
     }
 
     @Override
     public Optional<SkinProperty> downloadSkin(UUID uuid) throws IOException, RateLimitException {
         Optional<SkinProperty> optSkin = cache.getSkin(uuid);
         if (optSkin.isPresent()) {
+            if (refreshAhead != null && refreshAhead.isStale(cache.getSkinAge(uuid))) {
+                refreshAhead.refresh(uuid, () -> refreshSkin(uuid));
+            }
+
             return optSkin;
         }
 
-        String url = String.format(SKIN_URL, UUIDAdapter.toMojangId(uuid));
+        try {
+            return fetchSkin(uuid);
+        } catch (IOException | RateLimitException ex) {
+            Optional<SkinProperty> stale = cache.getStaleSkin(uuid);
+            if (stale.isEmpty()) {
+                throw ex;
+            }
+
+            metrics.recordStaleHit(CacheType.SKIN);
+            return stale;
+        }
+    }
+
+    private void refreshSkin(UUID uuid) throws IOException {
+        try {
+            if (fetchSkin(uuid).isEmpty()) {
+                cache.removeSkin(uuid);
+            }
+        } catch (RateLimitException rateLimitEx) {
+            // skip this refresh and keep serving the cached skin
+        }
+    }
+
+    private Optional<SkinProperty> fetchSkin(UUID uuid) throws IOException, RateLimitException {
+        String url = String.format(skinUrl, UUIDAdapter.toMojangId(uuid));
         HttpRequest req = createJSONGet(url);
         try {
-            HttpResponse<String> resp = client.send(req, BodyHandlers.ofString());
+            HttpResponse<String> resp = send(Endpoint.SKIN, client, req);
 
             int responseCode = resp.statusCode();
             if (responseCode == RateLimitException.RATE_LIMIT_RESPONSE_CODE) {
@@ -267,4 +531,13 @@ public class MojangResolver extends AbstractResolver implements AuthResolver, Pr
             throw new IOException(e);
         }
     }
+
+    @Override
+    public void close() throws IOException {
+        if (refreshAhead != null) {
+            refreshAhead.close();
+        }
+
+        super.close();
+    }
 }
@@ -1,35 +1,110 @@
 package com.github.games647.craftapi.resolver;
 
 import com.github.games647.craftapi.cache.Cache;
+import com.github.games647.craftapi.cache.CrackedNameFilter;
+import com.github.games647.craftapi.cache.NameHistoryStore;
 import com.github.games647.craftapi.cache.MemoryCache;
+import com.github.games647.craftapi.metrics.Metrics;
+import com.github.games647.craftapi.metrics.NoopMetrics;
+import com.github.games647.craftapi.resolver.http.DirectTransport;
+import com.github.games647.craftapi.resolver.http.HttpTransport;
+import com.github.games647.craftapi.resolver.ratelimiter.ConcurrencyLimiter;
+import com.github.games647.craftapi.resolver.ratelimiter.GradientConcurrencyLimiter;
 
 import java.net.ProxySelector;
+import java.time.Duration;
 import java.util.concurrent.Executor;
 
 public class Options {
 
     private Executor executor;
-    private Cache cache = new MemoryCache();
+    private Cache cache;
+    private Metrics metrics = NoopMetrics.INSTANCE;
 
     private int maxNameRequests = 600;
+    private Duration refreshAfter;
+    private int maxRefreshRequests = 60;
+    private Duration staleGracePeriod;
+    private CrackedNameFilter crackedNameFilter;
+    private NameHistoryStore nameHistoryStore;
     private ProxySelector proxySelector = ProxySelector.getDefault();
+    private ConcurrencyLimiter concurrencyLimiter = new GradientConcurrencyLimiter();
+    private HttpTransport transport = new DirectTransport();
+
+    private String apiUrl = "https://api.mojang.com";
+    private String servicesUrl = "https://api.minecraftservices.com";
+    private String sessionServerUrl = "https://sessionserver.mojang.com";
 
     public Executor getExecutor() {
         return executor;
     }
 
+    /**
+     * @return the configured cache or a {@link MemoryCache} reporting to the configured metrics and keeping expired
+     *          entries for the stale grace period
+     */
     public Cache getCache() {
+        if (cache == null) {
+            MemoryCache memoryCache = new MemoryCache(metrics);
+            memoryCache.setGracePeriod(staleGracePeriod);
+            cache = memoryCache;
+        }
+
         return cache;
     }
 
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
     public int getMaxNameRequests() {
         return maxNameRequests;
     }
 
+    public Duration getRefreshAfter() {
+        return refreshAfter;
+    }
+
+    public int getMaxRefreshRequests() {
+        return maxRefreshRequests;
+    }
+
+    public Duration getStaleGracePeriod() {
+        return staleGracePeriod;
+    }
+
+    public CrackedNameFilter getCrackedNameFilter() {
+        return crackedNameFilter;
+    }
+
+    public NameHistoryStore getNameHistoryStore() {
+        return nameHistoryStore;
+    }
+
     public ProxySelector getProxySelector() {
         return proxySelector;
     }
 
+    public ConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    public HttpTransport getTransport() {
+        return transport;
+    }
+
+    public String getApiUrl() {
+        return apiUrl;
+    }
+
+    public String getServicesUrl() {
+        return servicesUrl;
+    }
+
+    public String getSessionServerUrl() {
+        return sessionServerUrl;
+    }
+
     /**
      * Sets a new Mojang cache.
      *
@@ -46,6 +121,53 @@ public class Options {
         this.proxySelector = proxySelector;
     }
 
+    /**
+     * @param concurrencyLimiter limiter for the number of requests in flight. All resolvers created with these
+     *                           options share the limiter.
+     */
+    public void setConcurrencyLimiter(ConcurrencyLimiter concurrencyLimiter) {
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    /**
+     * Sets the receiver of latency, cache and rate limit measurements. Set it before accessing the default cache,
+     * so that it reports to the same metrics.
+     *
+     * @param metrics metrics implementation
+     */
+    public void setMetrics(Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * @param transport sends the requests using the HTTP clients of the resolver, for example to record or replay the
+     *                  traffic
+     */
+    public void setTransport(HttpTransport transport) {
+        this.transport = transport;
+    }
+
+    /**
+     * @param apiUrl base URL of the Mojang API for name lookups and skin changes
+     */
+    public void setApiUrl(String apiUrl) {
+        this.apiUrl = stripTrailingSlash(apiUrl);
+    }
+
+    /**
+     * @param servicesUrl base URL of the Minecraft services API for backup name lookups
+     */
+    public void setServicesUrl(String servicesUrl) {
+        this.servicesUrl = stripTrailingSlash(servicesUrl);
+    }
+
+    /**
+     * @param sessionServerUrl base URL of the session server for join verifications and skins
+     */
+    public void setSessionServerUrl(String sessionServerUrl) {
+        this.sessionServerUrl = stripTrailingSlash(sessionServerUrl);
+    }
+
     public void setExecutor(Executor executor) {
         this.executor = executor;
     }
@@ -57,4 +179,62 @@ public class Options {
     public void setMaxNameRequests(int maxNameRequests) {
         this.maxNameRequests = Math.max(600, maxNameRequests);
     }
+
+    /**
+     * Enables refresh-ahead. Cached profiles and skins older than this are still returned immediately, but refreshed
+     * in the background. Lookups only wait for Mojang after the entry expired in the cache.
+     *
+     * @param refreshAfter soft expiration shorter than the expiration of the cache or null to disable
+     */
+    public void setRefreshAfter(Duration refreshAfter) {
+        this.refreshAfter = refreshAfter;
+    }
+
+    /**
+     * @param maxRefreshRequests maximum amount of background refreshes within 10 minutes. They don't count to the
+     *                           name request limit and are skipped instead of using the proxies if Mojang rate
+     *                           limits them.
+     */
+    public void setMaxRefreshRequests(int maxRefreshRequests) {
+        this.maxRefreshRequests = maxRefreshRequests;
+    }
+
+    /**
+     * Serve expired profiles and skins if Mojang cannot be reached or the requests are rate limited. The default
+     * cache keeps them for this period after their expiration. Set it before accessing the default cache. Custom
+     * caches have to keep the entries themselves like {@link MemoryCache#setGracePeriod(Duration)}.
+     *
+     * @param staleGracePeriod time after the expiration or null to disable
+     */
+    public void setStaleGracePeriod(Duration staleGracePeriod) {
+        this.staleGracePeriod = staleGracePeriod;
+    }
+
+    /**
+     * Skips name lookups for names that recently turned out to be cracked. The resolver adds those names to the
+     * filter. Persisting it with {@link CrackedNameFilter#save(java.nio.file.Path)} is up to the caller.
+     *
+     * @param crackedNameFilter filter of known cracked names or null to disable
+     */
+    public void setCrackedNameFilter(CrackedNameFilter crackedNameFilter) {
+        this.crackedNameFilter = crackedNameFilter;
+    }
+
+    /**
+     * Records the names of all profiles and join verifications received from Mojang. Historical lookups are answered
+     * from it. Closing the store is up to the caller.
+     *
+     * @param nameHistoryStore timeline of the seen names or null to disable
+     */
+    public void setNameHistoryStore(NameHistoryStore nameHistoryStore) {
+        this.nameHistoryStore = nameHistoryStore;
+    }
+
+    private static String stripTrailingSlash(String url) {
+        if (url.endsWith("/")) {
+            return url.substring(0, url.length() - 1);
+        }
+
+        return url;
+    }
 }
@@ -19,7 +19,7 @@ public interface ProfileResolver {
     /**
      * Find all profiles for a given list of names.
      *
-     * @param names case-insensitive player names (only 100 per request call are allowed)
+     * @param names case-insensitive player names (requested from Mojang in chunks of 10 names)
      * @return immutable set of all profiles that are premium
      * @throws IOException I/O error on fetching the profile
      * @throws RateLimitException more than 600 name to UUID requests within 10 minutes
@@ -39,8 +39,9 @@ public interface ProfileResolver {
     Optional<Profile> findProfile(String name) throws IOException, RateLimitException;
 
     /**
-     * Fetch game profile that had the given name at a specific time. It only works if the player changed the name
-     * at least once.
+     * Fetch game profile that had the given name at a specific time. Mojang removed this endpoint, so the
+     * {@link MojangResolver} only knows names recorded by a
+     * {@link com.github.games647.craftapi.cache.NameHistoryStore}.
      *
      * @param name case-insensitive name
      * @param time timestamp the player had this name or {@link Instant#ofEpochMilli(long)} with 0 for the current name
@@ -52,7 +53,8 @@ public interface ProfileResolver {
     Optional<Profile> findProfile(String name, Instant time) throws IOException, RateLimitException;
 
     /**
-     * Fetches the name history of that player
+     * Fetches the name history of that player. Mojang removed this endpoint, so the {@link MojangResolver} only knows
+     * names recorded by a {@link com.github.games647.craftapi.cache.NameHistoryStore}.
      *
      * @param uuid premium UUID
      * @return immutable list of the name history or empty if it isn't a premium player
@@ -0,0 +1,89 @@
+package com.github.games647.craftapi.resolver;
+
+import com.github.games647.craftapi.resolver.ratelimiter.RateLimiter;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Refreshes cache entries in the background once they are older than the soft expiration. Callers still get the
+ * cached entry immediately. Each key is refreshed at most once at the same time and every refresh is charged to a
+ * separate rate budget, so refreshes cannot use up the requests of uncached lookups.
+ */
+class RefreshAhead {
+
+    private final Duration refreshAfter;
+    private final RateLimiter budget;
+
+    private final Set<Object> inFlight = ConcurrentHashMap.newKeySet();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "craftapi-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @param refreshAfter age after which entries are refreshed
+     * @param budget limit of the background requests
+     */
+    RefreshAhead(Duration refreshAfter, RateLimiter budget) {
+        this.refreshAfter = refreshAfter;
+        this.budget = budget;
+    }
+
+    /**
+     * @param age age of the cached entry or empty if it's not cached
+     * @return true if the entry should be refreshed
+     */
+    boolean isStale(Optional<Duration> age) {
+        return age.isPresent() && age.get().compareTo(refreshAfter) >= 0;
+    }
+
+    /**
+     * Schedules a refresh if no refresh for the key is running and the budget allows it.
+     *
+     * @param key profile name or skin owner
+     * @param task sends the request and updates the cache
+     */
+    void refresh(Object key, RefreshTask task) {
+        if (!inFlight.add(key)) {
+            return;
+        }
+
+        if (!budget.tryAcquire()) {
+            inFlight.remove(key);
+            return;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } catch (Exception ex) {
+                    // keep serving the old entry until it expires - the failed request is already recorded by the
+                    // metrics of the resolver
+                } finally {
+                    inFlight.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException rejectedEx) {
+            // already closed
+            inFlight.remove(key);
+        }
+    }
+
+    void close() {
+        executor.shutdownNow();
+    }
+
+    @FunctionalInterface
+    interface RefreshTask {
+
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,18 @@
+package com.github.games647.craftapi.resolver.http;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+
+/**
+ * Sends the requests using the given HTTP client.
+ */
+public class DirectTransport implements HttpTransport {
+
+    @Override
+    public HttpResponse<String> send(HttpClient client, HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, BodyHandlers.ofString());
+    }
+}
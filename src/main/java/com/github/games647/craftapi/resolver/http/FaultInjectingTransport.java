@@ -0,0 +1,115 @@
+package com.github.games647.craftapi.resolver.http;
+
+import com.github.games647.craftapi.resolver.RateLimitException;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Random;
+
+/**
+ * Decorates a transport with artificial latency and failures. The faults are driven by a seeded random number
+ * generator, so a test run with the same seed and request order injects the same faults.
+ */
+public class FaultInjectingTransport implements HttpTransport {
+
+    private final HttpTransport delegate;
+    private final FaultProfile profile;
+    private final Random random;
+
+    // remaining rate limited requests of the current storm
+    private int stormRemaining;
+
+    /**
+     * @param delegate transport for the requests that are not failed
+     * @param profile injected faults
+     * @param seed random seed
+     */
+    public FaultInjectingTransport(HttpTransport delegate, FaultProfile profile, long seed) {
+        this.delegate = delegate;
+        this.profile = profile;
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public HttpResponse<String> send(HttpClient client, HttpRequest request) throws IOException, InterruptedException {
+        Decision decision = decide();
+
+        Duration timeout = request.timeout().orElse(null);
+        if (timeout != null && decision.delayMillis >= timeout.toMillis()) {
+            Thread.sleep(timeout.toMillis());
+            throw new HttpTimeoutException("Injected request timeout");
+        }
+
+        if (decision.delayMillis > 0) {
+            Thread.sleep(decision.delayMillis);
+        }
+
+        switch (decision.fault) {
+            case CONNECTION_RESET:
+                throw new IOException("Injected connection reset");
+            case RATE_LIMIT:
+                return new RecordedResponse(request, RateLimitException.RATE_LIMIT_RESPONSE_CODE, "");
+            case SERVER_ERROR:
+                return new RecordedResponse(request, HttpURLConnection.HTTP_UNAVAILABLE, "");
+            case TRUNCATE:
+                HttpResponse<String> response = delegate.send(client, request);
+                String body = response.body();
+                return new RecordedResponse(request, response.statusCode(), body.substring(0, body.length() / 2));
+            default:
+                return delegate.send(client, request);
+        }
+    }
+
+    private synchronized Decision decide() {
+        long delay = profile.getLatencyMillis();
+        if (profile.getLatencyJitterMillis() > 0) {
+            delay += (long) (random.nextDouble() * profile.getLatencyJitterMillis());
+        }
+
+        if (random.nextDouble() < profile.getSlowRate()) {
+            delay += profile.getSlowLatencyMillis();
+        }
+
+        if (stormRemaining <= 0 && random.nextDouble() < profile.getRateLimitStormRate()) {
+            stormRemaining = profile.getRateLimitStormLength();
+        }
+
+        Fault fault = Fault.NONE;
+        if (stormRemaining > 0) {
+            stormRemaining--;
+            fault = Fault.RATE_LIMIT;
+        } else if (random.nextDouble() < profile.getConnectionResetRate()) {
+            fault = Fault.CONNECTION_RESET;
+        } else if (random.nextDouble() < profile.getServerErrorRate()) {
+            fault = Fault.SERVER_ERROR;
+        } else if (random.nextDouble() < profile.getTruncateRate()) {
+            fault = Fault.TRUNCATE;
+        }
+
+        return new Decision(delay, fault);
+    }
+
+    private enum Fault {
+        NONE,
+        CONNECTION_RESET,
+        RATE_LIMIT,
+        SERVER_ERROR,
+        TRUNCATE
+    }
+
+    private static class Decision {
+
+        private final long delayMillis;
+        private final Fault fault;
+
+        Decision(long delayMillis, Fault fault) {
+            this.delayMillis = delayMillis;
+            this.fault = fault;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.github.games647.craftapi.resolver.http;
+
+/**
+ * Failure modes injected by a {@link FaultInjectingTransport}. All rates are probabilities per request between 0
+ * and 1.
+ */
+public class FaultProfile {
+
+    private long latencyMillis;
+    private long latencyJitterMillis;
+    private double slowRate;
+    private long slowLatencyMillis;
+
+    private double connectionResetRate;
+    private double serverErrorRate;
+    private double truncateRate;
+
+    private double rateLimitStormRate;
+    private int rateLimitStormLength;
+
+    /**
+     * @return profile without any faults
+     */
+    public static FaultProfile none() {
+        return new FaultProfile();
+    }
+
+    /**
+     * @return overloaded upstream with a high base latency and a heavy tail hitting the request timeout
+     */
+    public static FaultProfile slow() {
+        FaultProfile profile = new FaultProfile();
+        profile.setLatency(300, 500);
+        profile.setSlowResponses(0.05, 6_000);
+        return profile;
+    }
+
+    /**
+     * @return unreliable network with connection resets, server errors and truncated responses
+     */
+    public static FaultProfile flaky() {
+        FaultProfile profile = new FaultProfile();
+        profile.setLatency(20, 50);
+        profile.setConnectionResetRate(0.05);
+        profile.setServerErrorRate(0.05);
+        profile.setTruncateRate(0.05);
+        return profile;
+    }
+
+    /**
+     * @return bursts of rate limited responses like after exhausting the Mojang budget
+     */
+    public static FaultProfile rateLimitStorm() {
+        FaultProfile profile = new FaultProfile();
+        profile.setRateLimitStorm(0.01, 200);
+        return profile;
+    }
+
+    /**
+     * @param name none, slow, flaky or storm
+     * @return the predefined profile with that name
+     */
+    public static FaultProfile byName(String name) {
+        switch (name) {
+            case "none":
+                return none();
+            case "slow":
+                return slow();
+            case "flaky":
+                return flaky();
+            case "storm":
+                return rateLimitStorm();
+            default:
+                throw new IllegalArgumentException("Unknown fault profile " + name);
+        }
+    }
+
+    public long getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    public long getLatencyJitterMillis() {
+        return latencyJitterMillis;
+    }
+
+    public double getSlowRate() {
+        return slowRate;
+    }
+
+    public long getSlowLatencyMillis() {
+        return slowLatencyMillis;
+    }
+
+    public double getConnectionResetRate() {
+        return connectionResetRate;
+    }
+
+    public double getServerErrorRate() {
+        return serverErrorRate;
+    }
+
+    public double getTruncateRate() {
+        return truncateRate;
+    }
+
+    public double getRateLimitStormRate() {
+        return rateLimitStormRate;
+    }
+
+    public int getRateLimitStormLength() {
+        return rateLimitStormLength;
+    }
+
+    /**
+     * @param minMillis lowest additional delay for every request
+     * @param maxMillis highest additional delay for every request
+     */
+    public void setLatency(long minMillis, long maxMillis) {
+        this.latencyMillis = minMillis;
+        this.latencyJitterMillis = Math.max(0, maxMillis - minMillis);
+    }
+
+    /**
+     * @param rate share of requests with an additional tail latency
+     * @param latencyMillis the tail latency - requests time out if it's higher than the request timeout
+     */
+    public void setSlowResponses(double rate, long latencyMillis) {
+        this.slowRate = rate;
+        this.slowLatencyMillis = latencyMillis;
+    }
+
+    /**
+     * @param rate share of requests failing with an I/O exception before a response arrives
+     */
+    public void setConnectionResetRate(double rate) {
+        this.connectionResetRate = rate;
+    }
+
+    /**
+     * @param rate share of requests answered with 503 Service Unavailable
+     */
+    public void setServerErrorRate(double rate) {
+        this.serverErrorRate = rate;
+    }
+
+    /**
+     * @param rate share of responses where only the first half of the body arrives
+     */
+    public void setTruncateRate(double rate) {
+        this.truncateRate = rate;
+    }
+
+    /**
+     * @param rate probability per request that a storm starts
+     * @param length number of requests answered with 429 during a storm
+     */
+    public void setRateLimitStorm(double rate, int length) {
+        this.rateLimitStormRate = rate;
+        this.rateLimitStormLength = length;
+    }
+}
@@ -0,0 +1,24 @@
+package com.github.games647.craftapi.resolver.http;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+/**
+ * Sends the requests of a resolver. Implementations can decorate the network access or replace it completely.
+ */
+@FunctionalInterface
+public interface HttpTransport {
+
+    /**
+     * Sends the request and waits for the response.
+     *
+     * @param client the client selected by the resolver - either the direct or the proxy client
+     * @param request the request that should be sent
+     * @return the response with the body as string
+     * @throws IOException I/O error while sending or receiving
+     * @throws InterruptedException interrupted while waiting for the response
+     */
+    HttpResponse<String> send(HttpClient client, HttpRequest request) throws IOException, InterruptedException;
+}
@@ -0,0 +1,76 @@
+package com.github.games647.craftapi.resolver.http;
+
+import javax.net.ssl.SSLSession;
+import java.net.URI;
+import java.net.http.HttpClient.Version;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Collections;
+import java.util.Optional;
+
+/**
+ * Response that didn't come from the network.
+ */
+class RecordedResponse implements HttpResponse<String> {
+
+    private static final HttpHeaders NO_HEADERS = HttpHeaders.of(Collections.emptyMap(), (name, value) -> true);
+
+    private final HttpRequest request;
+    private final int statusCode;
+    private final String body;
+
+    RecordedResponse(HttpRequest request, int statusCode, String body) {
+        this.request = request;
+        this.statusCode = statusCode;
+        this.body = body;
+    }
+
+    @Override
+    public int statusCode() {
+        return statusCode;
+    }
+
+    @Override
+    public HttpRequest request() {
+        return request;
+    }
+
+    @Override
+    public Optional<HttpResponse<String>> previousResponse() {
+        return Optional.empty();
+    }
+
+    @Override
+    public HttpHeaders headers() {
+        return NO_HEADERS;
+    }
+
+    @Override
+    public String body() {
+        return body;
+    }
+
+    @Override
+    public Optional<SSLSession> sslSession() {
+        return Optional.empty();
+    }
+
+    @Override
+    public URI uri() {
+        return request.uri();
+    }
+
+    @Override
+    public Version version() {
+        return Version.HTTP_1_1;
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + '{' +
+                "uri=" + request.uri() +
+                ", statusCode=" + statusCode +
+                '}';
+    }
+}
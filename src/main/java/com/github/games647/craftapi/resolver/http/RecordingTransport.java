@@ -0,0 +1,91 @@
+package com.github.games647.craftapi.resolver.http;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transport that appends every completed exchange to a traffic file, so it can be served later by a
+ * {@link ReplayTransport}. Requests that failed without a response are not recorded.
+ */
+public class RecordingTransport implements HttpTransport, Closeable {
+
+    private final HttpTransport delegate;
+    private final DataOutputStream out;
+
+    // wall clock reference for monotonic timestamps of this recording session
+    private final long startEpochMicros;
+    private final long startNanos;
+
+    /**
+     * Creates a new recording transport. Existing files are continued if they have the same format version.
+     *
+     * @param delegate transport that sends the requests
+     * @param file target file
+     * @throws IOException failed to open the file or the existing file has another version or is truncated
+     */
+    public RecordingTransport(HttpTransport delegate, Path file) throws IOException {
+        this.delegate = delegate;
+
+        boolean empty = Files.notExists(file) || Files.size(file) == 0;
+        if (!empty) {
+            // appended records would be unreadable otherwise
+            TrafficLog.verify(file);
+        }
+
+        out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)));
+        if (empty) {
+            TrafficLog.writeHeader(out);
+        }
+
+        startEpochMicros = ChronoUnit.MICROS.between(Instant.EPOCH, Instant.now());
+        startNanos = System.nanoTime();
+    }
+
+    @Override
+    public HttpResponse<String> send(HttpClient client, HttpRequest request) throws IOException, InterruptedException {
+        long requestBodyHash = TrafficLog.hashBody(request);
+
+        long start = System.nanoTime();
+        HttpResponse<String> response = delegate.send(client, request);
+        long duration = System.nanoTime() - start;
+
+        long startMicros = startEpochMicros + TimeUnit.NANOSECONDS.toMicros(start - startNanos);
+        TrafficRecord record = new TrafficRecord(startMicros, duration, request.method(), request.uri().toString(),
+                requestBodyHash, client.proxy().isPresent(), response.statusCode(), response.body());
+        synchronized (out) {
+            TrafficLog.write(out, record);
+        }
+
+        return response;
+    }
+
+    /**
+     * Writes all buffered records to the file.
+     *
+     * @throws IOException failed to write
+     */
+    public void flush() throws IOException {
+        synchronized (out) {
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (out) {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.github.games647.craftapi.resolver.http;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.primitives.Ints;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves recorded responses from a memory-mapped traffic file without any network access. Requests are matched by
+ * method, path, query and a hash of the body, so the scheme and host can differ from the recording. Multiple
+ * recordings of the same request are served in recording order and start again from the beginning once all of them
+ * were used.
+ */
+public class ReplayTransport implements HttpTransport {
+
+    private final ByteBuffer buffer;
+    private final ImmutableMap<String, Responses> responses;
+    private final double speed;
+
+    /**
+     * Loads the index of the traffic file.
+     *
+     * @param file recorded traffic
+     * @param speed replay speed: 1 delays the responses like recorded, 2 with half of the delay and 0 or less
+     *              responds immediately
+     * @throws IOException failed to read the file or invalid format
+     */
+    public ReplayTransport(Path file, double speed) throws IOException {
+        this.buffer = TrafficLog.map(file);
+        this.speed = speed;
+
+        Map<String, List<Integer>> positions = new HashMap<>();
+        ByteBuffer indexView = buffer.duplicate();
+        while (indexView.hasRemaining()) {
+            int position = indexView.position();
+            String key = TrafficLog.skip(indexView);
+            positions.computeIfAbsent(key, k -> new ArrayList<>()).add(position);
+        }
+
+        ImmutableMap.Builder<String, Responses> builder = ImmutableMap.builder();
+        positions.forEach((key, list) -> builder.put(key, new Responses(Ints.toArray(list))));
+        responses = builder.build();
+    }
+
+    @Override
+    public HttpResponse<String> send(HttpClient client, HttpRequest request) throws IOException, InterruptedException {
+        String key = TrafficLog.key(request.method(), request.uri(), TrafficLog.hashBody(request));
+        Responses recorded = responses.get(key);
+        if (recorded == null) {
+            throw new IOException("No recorded response for " + key);
+        }
+
+        ByteBuffer view = buffer.duplicate();
+        view.position(recorded.next());
+        TrafficRecord record = TrafficLog.read(view);
+
+        if (speed > 0) {
+            long delay = (long) (record.getDurationNanos() / speed);
+            TimeUnit.NANOSECONDS.sleep(delay);
+        }
+
+        return new RecordedResponse(request, record.getStatusCode(), record.getBody());
+    }
+
+    /**
+     * @return number of distinct recorded requests
+     */
+    public int size() {
+        return responses.size();
+    }
+
+    private static class Responses {
+
+        private final int[] positions;
+        private final AtomicInteger cursor = new AtomicInteger();
+
+        Responses(int[] positions) {
+            this.positions = positions;
+        }
+
+        int next() {
+            int index = cursor.getAndIncrement();
+            return positions[Math.floorMod(index, positions.length)];
+        }
+    }
+}
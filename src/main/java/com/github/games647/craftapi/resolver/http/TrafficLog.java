@@ -0,0 +1,257 @@
+package com.github.games647.craftapi.resolver.http;
+
+import com.google.common.hash.Hashing;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
+
+/**
+ * Binary format of recorded traffic. The file starts with a short header followed by the records appended in the
+ * order the responses arrived:
+ * <pre>
+ * header: int magic, short version
+ * record: long startMicros, long durationNanos, byte flags, short methodLength, method, short uriLength, uri,
+ *         long requestBodyHash, short statusCode, int bodyLength, body
+ * </pre>
+ * All strings are UTF-8 encoded. The request body is only stored as hash to tell apart requests like bulk lookups
+ * that share the same URI.
+ */
+public final class TrafficLog {
+
+    private static final int MAGIC = 0x43524543;
+    private static final short VERSION = 2;
+
+    private static final int FLAG_PROXIED = 1;
+
+    private TrafficLog() {
+    }
+
+    /**
+     * Reads all records of a traffic file.
+     *
+     * @param file recorded traffic
+     * @return all records in recording order
+     * @throws IOException failed to read the file or invalid format
+     */
+    public static List<TrafficRecord> readAll(Path file) throws IOException {
+        ByteBuffer buffer = map(file);
+
+        List<TrafficRecord> records = new ArrayList<>();
+        while (buffer.hasRemaining()) {
+            records.add(read(buffer));
+        }
+
+        return records;
+    }
+
+    /**
+     * Checks that the file can be continued - it has the current version and doesn't end with a truncated record.
+     *
+     * @param file existing traffic file
+     * @throws IOException failed to read the file or invalid format
+     */
+    static void verify(Path file) throws IOException {
+        ByteBuffer buffer = map(file);
+        while (buffer.hasRemaining()) {
+            skip(buffer);
+        }
+    }
+
+    static MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Traffic file too large " + file);
+            }
+
+            MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < Integer.BYTES + Short.BYTES || buffer.getInt() != MAGIC) {
+                throw new IOException("Not a traffic file " + file);
+            }
+
+            short version = buffer.getShort();
+            if (version != VERSION) {
+                throw new IOException("Unsupported traffic file version " + version);
+            }
+
+            return buffer;
+        }
+    }
+
+    static void writeHeader(DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+    }
+
+    static void write(DataOutput out, TrafficRecord record) throws IOException {
+        out.writeLong(record.getStartMicros());
+        out.writeLong(record.getDurationNanos());
+        out.writeByte(record.isProxied() ? FLAG_PROXIED : 0);
+        writeShortString(out, record.getMethod());
+        writeShortString(out, record.getUri());
+        out.writeLong(record.getRequestBodyHash());
+        out.writeShort(record.getStatusCode());
+
+        byte[] body = record.getBody().getBytes(StandardCharsets.UTF_8);
+        out.writeInt(body.length);
+        out.write(body);
+    }
+
+    /**
+     * Reads the record at the current position and moves the position behind it.
+     *
+     * @throws IOException the record is truncated
+     */
+    static TrafficRecord read(ByteBuffer buffer) throws IOException {
+        require(buffer, Long.BYTES + Long.BYTES + Byte.BYTES);
+        long startMicros = buffer.getLong();
+        long durationNanos = buffer.getLong();
+        boolean proxied = (buffer.get() & FLAG_PROXIED) != 0;
+        String method = readShortString(buffer);
+        String uri = readShortString(buffer);
+
+        require(buffer, Long.BYTES + Short.BYTES + Integer.BYTES);
+        long requestBodyHash = buffer.getLong();
+        int statusCode = buffer.getShort();
+
+        int bodyLength = buffer.getInt();
+        require(buffer, bodyLength);
+        byte[] body = new byte[bodyLength];
+        buffer.get(body);
+        return new TrafficRecord(startMicros, durationNanos, method, uri, requestBodyHash, proxied, statusCode,
+                new String(body, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Moves the position behind the record without decoding it.
+     *
+     * @return the key of the skipped record
+     * @throws IOException the record is truncated
+     */
+    static String skip(ByteBuffer buffer) throws IOException {
+        require(buffer, Long.BYTES + Long.BYTES + Byte.BYTES);
+        buffer.position(buffer.position() + Long.BYTES + Long.BYTES + Byte.BYTES);
+        String method = readShortString(buffer);
+        String uri = readShortString(buffer);
+
+        require(buffer, Long.BYTES + Short.BYTES + Integer.BYTES);
+        String key = key(method, URI.create(uri), buffer.getLong());
+
+        buffer.position(buffer.position() + Short.BYTES);
+        int bodyLength = buffer.getInt();
+        require(buffer, bodyLength);
+        buffer.position(buffer.position() + bodyLength);
+        return key;
+    }
+
+    /**
+     * Key for matching requests during a replay. It ignores the scheme and host, so the recording can be replayed
+     * with different base URLs.
+     */
+    static String key(String method, URI uri, long requestBodyHash) {
+        String key = method + ' ' + uri.getRawPath();
+        String query = uri.getRawQuery();
+        if (query != null) {
+            key += '?' + query;
+        }
+
+        if (requestBodyHash != 0) {
+            key += " #" + Long.toHexString(requestBodyHash);
+        }
+
+        return key;
+    }
+
+    /**
+     * @param request sent request
+     * @return hash of the request body or 0 if it has no body
+     * @throws IOException failed to read the body
+     */
+    static long hashBody(HttpRequest request) throws IOException {
+        Optional<BodyPublisher> publisher = request.bodyPublisher();
+        if (publisher.isEmpty() || publisher.get().contentLength() == 0) {
+            return 0;
+        }
+
+        // publishers can be subscribed again - the client gets its own subscription
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        CompletableFuture<Void> completed = new CompletableFuture<>();
+        publisher.get().subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ByteBuffer item) {
+                byte[] bytes = new byte[item.remaining()];
+                item.get(bytes);
+                body.write(bytes, 0, bytes.length);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                completed.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                completed.complete(null);
+            }
+        });
+
+        try {
+            completed.join();
+        } catch (CompletionException completionEx) {
+            throw new IOException("Failed to read request body", completionEx.getCause());
+        }
+
+        if (body.size() == 0) {
+            return 0;
+        }
+
+        return Hashing.murmur3_128().hashBytes(body.toByteArray()).asLong();
+    }
+
+    private static void writeShortString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IOException("String too long for traffic log " + value.substring(0, 64));
+        }
+
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readShortString(ByteBuffer buffer) throws IOException {
+        require(buffer, Short.BYTES);
+        int length = buffer.getShort();
+        require(buffer, length);
+
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void require(ByteBuffer buffer, int length) throws IOException {
+        if (length < 0 || buffer.remaining() < length) {
+            throw new IOException("Truncated traffic record at byte " + buffer.position());
+        }
+    }
+}
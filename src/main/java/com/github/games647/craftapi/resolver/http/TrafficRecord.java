@@ -0,0 +1,94 @@
+package com.github.games647.craftapi.resolver.http;
+
+/**
+ * A recorded request and response pair.
+ */
+public class TrafficRecord {
+
+    private final long startMicros;
+    private final long durationNanos;
+    private final String method;
+    private final String uri;
+    private final long requestBodyHash;
+    private final boolean proxied;
+    private final int statusCode;
+    private final String body;
+
+    /**
+     * @param startMicros unix timestamp in microseconds when the request was sent
+     * @param durationNanos time until the response was received
+     * @param method HTTP method
+     * @param uri full request URI
+     * @param requestBodyHash hash of the request body or 0 if it has no body
+     * @param proxied true if the request was sent using the proxy client
+     * @param statusCode response code
+     * @param body response body
+     */
+    public TrafficRecord(long startMicros, long durationNanos, String method, String uri, long requestBodyHash,
+                         boolean proxied, int statusCode, String body) {
+        this.startMicros = startMicros;
+        this.durationNanos = durationNanos;
+        this.method = method;
+        this.uri = uri;
+        this.requestBodyHash = requestBodyHash;
+        this.proxied = proxied;
+        this.statusCode = statusCode;
+        this.body = body;
+    }
+
+    /**
+     * @return unix timestamp in microseconds when the request was sent
+     */
+    public long getStartMicros() {
+        return startMicros;
+    }
+
+    /**
+     * @return time until the response was received in nanoseconds
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getUri() {
+        return uri;
+    }
+
+    /**
+     * @return hash of the request body or 0 if it has no body
+     */
+    public long getRequestBodyHash() {
+        return requestBodyHash;
+    }
+
+    /**
+     * @return true if the request was sent using the proxy client
+     */
+    public boolean isProxied() {
+        return proxied;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + '{' +
+                "startMicros=" + startMicros +
+                ", durationNanos=" + durationNanos +
+                ", method='" + method + '\'' +
+                ", uri='" + uri + '\'' +
+                ", proxied=" + proxied +
+                ", statusCode=" + statusCode +
+                '}';
+    }
+}
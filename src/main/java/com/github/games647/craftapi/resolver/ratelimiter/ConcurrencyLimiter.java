@@ -0,0 +1,68 @@
+/*
+ * SPDX-License-Identifier: MIT
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015-2022 games647 and contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.games647.craftapi.resolver.ratelimiter;
+
+/**
+ * Limits the number of requests that are in flight at the same time. Every successful {@link #acquire()} has to be
+ * followed by exactly one call of {@link #onSuccess(long)}, {@link #onDropped()} or {@link #onIgnored()}.
+ */
+public interface ConcurrencyLimiter {
+
+    /**
+     * Waits until a request slot is available.
+     *
+     * @return true if the request could be started - false if it was rejected
+     * @throws InterruptedException interrupted while waiting for a free slot
+     */
+    boolean acquire() throws InterruptedException;
+
+    /**
+     * Releases the slot of a completed request.
+     *
+     * @param rttNanos round trip time of the request in nanoseconds
+     */
+    void onSuccess(long rttNanos);
+
+    /**
+     * Releases the slot of a request that timed out or was rejected by the remote side because of overload.
+     */
+    void onDropped();
+
+    /**
+     * Releases the slot without taking the request into account for the limit calculation.
+     */
+    void onIgnored();
+
+    /**
+     * @return current maximum of concurrent requests
+     */
+    int getLimit();
+
+    /**
+     * @return number of requests that are currently in flight
+     */
+    int getInFlight();
+}
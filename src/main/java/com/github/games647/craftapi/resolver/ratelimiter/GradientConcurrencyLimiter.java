@@ -0,0 +1,197 @@
+/*
+ * SPDX-License-Identifier: MIT
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015-2022 games647 and contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.games647.craftapi.resolver.ratelimiter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency driven concurrency limit based on the gradient between the long term (baseline) and the recent round trip
+ * time. If the recent RTT rises above the baseline, the limit shrinks. Requests above the limit wait for a slot for
+ * a bounded time and are rejected if too many are already waiting or the wait times out.
+ */
+public class GradientConcurrencyLimiter implements ConcurrencyLimiter {
+
+    private static final int DEFAULT_INITIAL_LIMIT = 50;
+    private static final int DEFAULT_MIN_LIMIT = 2;
+    private static final int DEFAULT_MAX_LIMIT = 200;
+    private static final int DEFAULT_MAX_QUEUED = 500;
+    private static final long DEFAULT_QUEUE_TIMEOUT = TimeUnit.SECONDS.toMillis(5);
+
+    // number of samples the baseline represents
+    private static final int LONG_WINDOW = 600;
+    private static final double SHORT_SMOOTHING = 0.3;
+    private static final double LIMIT_SMOOTHING = 0.2;
+
+    // accepted increase of the RTT before shrinking the limit
+    private static final double RTT_TOLERANCE = 1.5;
+    private static final double DROP_BACKOFF = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueued;
+    private final long queueTimeoutNanos;
+
+    private double limit;
+    private int inFlight;
+    private int queued;
+
+    // moving averages in nanoseconds - 0 if there are no samples yet
+    private double longRtt;
+    private double shortRtt;
+
+    /**
+     * Creates a new limiter.
+     *
+     * @param initialLimit start value of the limit
+     * @param minLimit the limit never drops below this value
+     * @param maxLimit the limit never grows above this value
+     * @param maxQueued maximum number of requests waiting for a slot before new requests are rejected immediately
+     * @param queueTimeout maximum time in milliseconds a request waits for a slot
+     */
+    public GradientConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, int maxQueued,
+                                      long queueTimeout) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Invalid limit range " + minLimit + " - " + maxLimit);
+        }
+
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueued = Math.max(0, maxQueued);
+        this.queueTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(queueTimeout);
+
+        this.limit = Math.min(maxLimit, Math.max(minLimit, initialLimit));
+    }
+
+    /**
+     * Creates a new limiter with default parameters
+     */
+    public GradientConcurrencyLimiter() {
+        this(DEFAULT_INITIAL_LIMIT, DEFAULT_MIN_LIMIT, DEFAULT_MAX_LIMIT, DEFAULT_MAX_QUEUED, DEFAULT_QUEUE_TIMEOUT);
+    }
+
+    @Override
+    public synchronized boolean acquire() throws InterruptedException {
+        if (inFlight < (int) limit) {
+            inFlight++;
+            return true;
+        }
+
+        if (queued >= maxQueued) {
+            // shed load instead of letting the threads pile up
+            LimiterDenialEvent.commit(this, (int) limit, inFlight);
+            return false;
+        }
+
+        queued++;
+        try {
+            long remaining = queueTimeoutNanos;
+            long deadline = System.nanoTime() + remaining;
+            while (inFlight >= (int) limit) {
+                if (remaining <= 0) {
+                    LimiterDenialEvent.commit(this, (int) limit, inFlight);
+                    return false;
+                }
+
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                remaining = deadline - System.nanoTime();
+            }
+
+            inFlight++;
+            return true;
+        } finally {
+            queued--;
+        }
+    }
+
+    @Override
+    public synchronized void onSuccess(long rttNanos) {
+        boolean appLimited = inFlight * 2 < limit;
+        release();
+        if (rttNanos <= 0) {
+            return;
+        }
+
+        if (longRtt == 0) {
+            longRtt = rttNanos;
+            shortRtt = rttNanos;
+            return;
+        }
+
+        shortRtt += (rttNanos - shortRtt) * SHORT_SMOOTHING;
+        longRtt += (rttNanos - longRtt) / LONG_WINDOW;
+
+        // the baseline was measured during an outage - recover faster
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+
+        if (appLimited && shortRtt <= longRtt) {
+            // we didn't use the current limit - so there is no reason to grow further
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, RTT_TOLERANCE * longRtt / shortRtt));
+        double queueSize = Math.sqrt(limit);
+        double newLimit = limit * gradient + queueSize;
+        updateLimit(limit * (1 - LIMIT_SMOOTHING) + newLimit * LIMIT_SMOOTHING);
+    }
+
+    @Override
+    public synchronized void onDropped() {
+        release();
+        updateLimit(limit * DROP_BACKOFF);
+    }
+
+    @Override
+    public synchronized void onIgnored() {
+        release();
+    }
+
+    @Override
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    @Override
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    private void updateLimit(double newLimit) {
+        int oldLimit = (int) limit;
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        if ((int) limit > oldLimit) {
+            notifyAll();
+        }
+    }
+
+    private void release() {
+        if (inFlight > 0) {
+            inFlight--;
+            notify();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * SPDX-License-Identifier: MIT
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015-2022 games647 and contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.games647.craftapi.resolver.ratelimiter;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for requests that were denied by a limiter.
+ */
+@Name("com.github.games647.craftapi.LimiterDenial")
+@Label("Limiter Denial")
+@Category({"CraftAPI", "Limiter"})
+class LimiterDenialEvent extends jdk.jfr.Event {
+
+    @Label("Limiter")
+    String limiter;
+
+    @Label("Limit")
+    int limit;
+
+    @Label("Used")
+    int used;
+
+    static void commit(Object limiter, int limit, int used) {
+        LimiterDenialEvent event = new LimiterDenialEvent();
+        if (event.shouldCommit()) {
+            event.limiter = limiter.getClass().getSimpleName();
+            event.limit = limit;
+            event.used = used;
+            event.commit();
+        }
+    }
+}
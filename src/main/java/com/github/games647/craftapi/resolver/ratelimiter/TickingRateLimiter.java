@@ -76,6 +76,7 @@ public class TickingRateLimiter implements RateLimiter {
 
             // total requests reached block any further requests
             if (totalRequests >= requestLimit) {
+                LimiterDenialEvent.commit(this, requestLimit, totalRequests);
                 return false;
             }
 
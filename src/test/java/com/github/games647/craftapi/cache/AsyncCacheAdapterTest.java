@@ -0,0 +1,63 @@
+package com.github.games647.craftapi.cache;
+
+import com.github.games647.craftapi.model.Profile;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncCacheAdapterTest {
+
+    @Test
+    void completesOnCallingThread() {
+        MemoryCache memory = new MemoryCache();
+        AsyncCache cache = new AsyncCacheAdapter(memory);
+
+        Profile profile = new Profile(UUID.randomUUID(), "Player");
+        CompletableFuture<Void> added = cache.add(profile);
+        CompletableFuture<?> lookup = cache.getByName("player");
+
+        assertAll(
+                () -> assertTrue(added.isDone()),
+                () -> assertTrue(lookup.isDone()),
+                () -> assertEquals(profile, memory.getById(profile.getId()).orElse(null))
+        );
+    }
+
+    @Test
+    void bulkOperations() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            AsyncCache cache = new AsyncCacheAdapter(new MemoryCache(), executor);
+
+            Profile first = new Profile(UUID.randomUUID(), "First");
+            Profile second = new Profile(UUID.randomUUID(), "Second");
+            cache.putAll(Arrays.asList(first, second)).get();
+
+            Map<String, Profile> byName = cache.getAllByName(Arrays.asList("first", "unknown")).get();
+            Map<UUID, Profile> byId = cache.getAllById(Arrays.asList(first.getId(), second.getId())).get();
+
+            assertAll(
+                    () -> assertEquals(1, byName.size()),
+                    () -> assertEquals(first, byName.get("first")),
+                    () -> assertEquals(2, byId.size()),
+                    () -> assertEquals(second, byId.get(second.getId()))
+            );
+
+            cache.clear().get();
+            assertFalse(cache.getById(first.getId()).get().isPresent());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.github.games647.craftapi.cache;
+
+import com.github.games647.craftapi.model.Profile;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CacheLookupEventTest {
+
+    private static final String EVENT_NAME = "com.github.games647.craftapi.CacheLookup";
+
+    @Test
+    void recordLookups() throws Exception {
+        Cache cache = new MemoryCache();
+        Profile profile = new Profile(UUID.randomUUID(), "abc");
+        cache.add(profile);
+
+        Path output = Files.createTempFile("craftapi", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(EVENT_NAME);
+            recording.start();
+
+            cache.getByName("ABC");
+            cache.getById(UUID.randomUUID());
+
+            recording.stop();
+            recording.dump(output);
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(output);
+            events.removeIf(event -> !event.getEventType().getName().equals(EVENT_NAME));
+            assertEquals(2, events.size());
+
+            RecordedEvent hit = events.get(0);
+            RecordedEvent miss = events.get(1);
+            assertAll(
+                    () -> assertTrue(hit.getBoolean("hit")),
+                    () -> assertEquals("ABC", hit.getString("key")),
+                    () -> assertEquals("PROFILE", hit.getString("cache")),
+                    () -> assertFalse(miss.getBoolean("hit"))
+            );
+        } finally {
+            Files.deleteIfExists(output);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.github.games647.craftapi.cache;
+
+import com.google.common.base.Ticker;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CrackedNameFilterTest {
+
+    private final ManualTicker ticker = new ManualTicker();
+
+    @Test
+    void addedNames() {
+        CrackedNameFilter filter = new CrackedNameFilter(1_000, 0.01, Duration.ofHours(1), ticker);
+        filter.putCracked("Cracked");
+
+        assertAll(
+                () -> assertTrue(filter.mightBeCracked("Cracked")),
+                () -> assertTrue(filter.mightBeCracked("cRACKED")),
+                () -> assertFalse(filter.mightBeCracked("games647"))
+        );
+    }
+
+    @Test
+    void falsePositiveRate() {
+        CrackedNameFilter filter = new CrackedNameFilter(10_000, 0.01, Duration.ofHours(1), ticker);
+        for (int i = 0; i < 9_000; i++) {
+            filter.putCracked("cracked" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightBeCracked("premium" + i)) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives < 200, "False positives " + falsePositives);
+    }
+
+    @Test
+    void aging() {
+        CrackedNameFilter filter = new CrackedNameFilter(1_000, 0.01, Duration.ofHours(2), ticker);
+        filter.putCracked("Cracked");
+
+        ticker.advance(Duration.ofMinutes(70));
+        filter.putCracked("Newer");
+        assertTrue(filter.mightBeCracked("Cracked"), "Should still be in the previous generation");
+
+        ticker.advance(Duration.ofMinutes(70));
+        assertAll(
+                () -> assertFalse(filter.mightBeCracked("Cracked")),
+                () -> assertTrue(filter.mightBeCracked("Newer"))
+        );
+    }
+
+    @Test
+    void rotateIfFull() {
+        CrackedNameFilter filter = new CrackedNameFilter(100, 0.01, Duration.ofHours(2), ticker);
+        filter.putCracked("Cracked");
+        for (int i = 0; i < 200; i++) {
+            filter.putCracked("name" + i);
+        }
+
+        assertFalse(filter.mightBeCracked("Cracked"));
+    }
+
+    @Test
+    void saveAndLoad() throws IOException {
+        Path file = Files.createTempFile("craftapi", ".bloom");
+        try {
+            CrackedNameFilter filter = new CrackedNameFilter(1_000, 0.01, Duration.ofHours(1));
+            filter.putCracked("Cracked");
+            filter.save(file);
+
+            CrackedNameFilter loaded = CrackedNameFilter.load(file, Duration.ofHours(1));
+            assertAll(
+                    () -> assertTrue(loaded.mightBeCracked("Cracked")),
+                    () -> assertFalse(loaded.mightBeCracked("games647"))
+            );
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static class ManualTicker extends Ticker {
+
+        private long nanos;
+
+        @Override
+        public long read() {
+            return nanos;
+        }
+
+        void advance(Duration duration) {
+            nanos += TimeUnit.NANOSECONDS.convert(duration);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.github.games647.craftapi.cache;
+
+import com.github.games647.craftapi.metrics.NoopMetrics;
+import com.github.games647.craftapi.model.Profile;
+import com.github.games647.craftapi.model.skin.SkinProperty;
+import com.github.games647.craftapi.model.skin.SkinPropertyTest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DiskCacheTest {
+
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = Files.createTempFile("craftapi", ".cache");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(file.resolveSibling(file.getFileName() + ".compact"));
+    }
+
+    @Test
+    void warmRestart() throws IOException {
+        Profile profile = new Profile(UUID.randomUUID(), "123ABC_abc");
+        SkinProperty steve = new SkinProperty(SkinPropertyTest.STEVE_VALUE, SkinPropertyTest.STEVE_SIGNATURE);
+        SkinProperty raw = new SkinProperty("not base64", "signature");
+        UUID rawOwner = UUID.randomUUID();
+
+        try (DiskCache cache = open()) {
+            cache.add(profile);
+            cache.addSkin(profile.getId(), steve);
+            cache.addSkin(rawOwner, raw);
+
+            // served from memory before the write
+            assertEquals(steve, cache.getSkin(profile.getId()).orElse(null));
+        }
+
+        try (DiskCache cache = open()) {
+            assertAll(
+                    () -> assertEquals(profile, cache.getById(profile.getId()).orElse(null)),
+                    () -> assertEquals("123ABC_abc", cache.getByName("123abc_ABC").map(Profile::getName).orElse(null)),
+                    () -> assertEquals(steve.getValue(), cache.getSkin(profile.getId()).map(SkinProperty::getValue)
+                            .orElse(null)),
+                    () -> assertEquals(steve.getSignature(), cache.getSkin(profile.getId())
+                            .map(SkinProperty::getSignature).orElse(null)),
+                    () -> assertEquals("not base64", cache.getSkin(rawOwner).map(SkinProperty::getValue).orElse(null)),
+                    () -> assertEquals(2, cache.getCachedSkins().size())
+            );
+        }
+    }
+
+    @Test
+    void removeAndRename() throws IOException {
+        UUID id = UUID.randomUUID();
+        Profile removed = new Profile(UUID.randomUUID(), "removed");
+
+        try (DiskCache cache = open()) {
+            cache.add(new Profile(id, "OldName"));
+            cache.add(new Profile(id, "NewName"));
+            cache.add(removed);
+            cache.remove(removed);
+            cache.addSkin(id, new SkinProperty("value", "signature"));
+            cache.removeSkin(id);
+        }
+
+        try (DiskCache cache = open()) {
+            assertAll(
+                    () -> assertFalse(cache.getByName("OldName").isPresent()),
+                    () -> assertTrue(cache.getByName("NewName").isPresent()),
+                    () -> assertFalse(cache.getById(removed.getId()).isPresent()),
+                    () -> assertFalse(cache.getSkin(id).isPresent())
+            );
+        }
+    }
+
+    @Test
+    void clear() throws IOException {
+        try (DiskCache cache = open()) {
+            cache.add(new Profile(UUID.randomUUID(), "abc"));
+            cache.clear();
+        }
+
+        try (DiskCache cache = open()) {
+            assertTrue(cache.getCachedProfiles().isEmpty());
+        }
+    }
+
+    @Test
+    void tornWrite() throws IOException {
+        try (DiskCache cache = open()) {
+            cache.add(new Profile(UUID.randomUUID(), "abc"));
+        }
+
+        long validSize = Files.size(file);
+        Files.write(file, new byte[]{0, 0, 0, 42, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        try (DiskCache cache = open()) {
+            assertTrue(cache.getByName("abc").isPresent());
+            cache.add(new Profile(UUID.randomUUID(), "xyz"));
+        }
+
+        assertTrue(Files.size(file) > validSize);
+        try (DiskCache cache = open()) {
+            assertTrue(cache.getByName("xyz").isPresent());
+        }
+    }
+
+    @Test
+    void compaction() throws IOException {
+        UUID id = UUID.randomUUID();
+        try (DiskCache cache = open()) {
+            for (int i = 0; i < 20_000; i++) {
+                cache.add(new Profile(id, "Name" + (i % 100)));
+            }
+        }
+
+        // 20k profile records are more than 500 KB
+        assertTrue(Files.size(file) < 100_000, "Log wasn't compacted " + Files.size(file));
+        try (DiskCache cache = open()) {
+            assertEquals("Name99", cache.getById(id).map(Profile::getName).orElse(null));
+        }
+    }
+
+    @Test
+    void compactionDropsExpired() throws Exception {
+        Profile live = new Profile(UUID.randomUUID(), "live");
+        try (DiskCache cache = new DiskCache(file, Duration.ofMillis(200), Duration.ofMillis(200),
+                NoopMetrics.INSTANCE)) {
+            for (int i = 0; i < 5_000; i++) {
+                cache.add(new Profile(UUID.randomUUID(), "Name" + i));
+            }
+
+            Thread.sleep(400);
+            cache.add(live);
+            assertFalse(cache.getByName("Name0").isPresent());
+        }
+
+        // 5k profile records are more than 100 KB
+        assertTrue(Files.size(file) < 10_000, "Log wasn't compacted " + Files.size(file));
+        try (DiskCache cache = open()) {
+            assertAll(
+                    () -> assertEquals(1, cache.getCachedProfiles().size()),
+                    () -> assertTrue(cache.getById(live.getId()).isPresent())
+            );
+        }
+    }
+
+    @Test
+    void expired() throws IOException {
+        try (DiskCache cache = open()) {
+            cache.add(new Profile(UUID.randomUUID(), "abc"));
+        }
+
+        try (DiskCache cache = new DiskCache(file, Duration.ZERO, Duration.ZERO, NoopMetrics.INSTANCE)) {
+            assertFalse(cache.getByName("abc").isPresent());
+        }
+    }
+
+    @Test
+    void notALog() throws IOException {
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7});
+        assertThrows(IOException.class, this::open);
+    }
+
+    private DiskCache open() throws IOException {
+        return new DiskCache(file);
+    }
+}
@@ -1,11 +1,17 @@
 package com.github.games647.craftapi.cache;
 
+import com.github.games647.craftapi.metrics.CacheType;
+import com.github.games647.craftapi.metrics.NoopMetrics;
+import com.github.games647.craftapi.metrics.SimpleMetrics;
 import com.github.games647.craftapi.model.Profile;
+import com.github.games647.craftapi.model.skin.CompactSkinProperty;
 import com.github.games647.craftapi.model.skin.SkinProperty;
 import com.github.games647.craftapi.model.skin.SkinPropertyTest;
 
 import java.time.Duration;
+import java.util.Arrays;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -127,4 +133,309 @@ class MemoryCacheTest {
         cache.removeSkin(profileId);
         assertFalse(cache.getSkin(profileId).isPresent());
     }
+
+    @Test
+    void renameRemovesOldName() {
+        UUID id = UUID.randomUUID();
+        Profile old = new Profile(id, "OldName");
+        Profile renamed = new Profile(id, "NewName");
+        cache.add(old);
+        cache.add(renamed);
+
+        assertAll(
+                () -> assertFalse(cache.getByName("OldName").isPresent()),
+                () -> assertEquals("NewName", cache.getByName("newname").map(Profile::getName).orElse(null)),
+                () -> assertEquals("NewName", cache.getById(id).map(Profile::getName).orElse(null))
+        );
+    }
+
+    @Test
+    void removeByUniqueId() {
+        UUID id = UUID.randomUUID();
+        cache.add(new Profile(id, "Bob"));
+
+        cache.remove(new Profile(id, "bob"));
+        assertAll(
+                () -> assertFalse(cache.getById(id).isPresent()),
+                () -> assertFalse(cache.getByName("Bob").isPresent())
+        );
+    }
+
+    @Test
+    void concurrentRenamesKeepIndexesConsistent() throws Exception {
+        UUID id = UUID.randomUUID();
+        Thread[] writers = new Thread[4];
+        for (int i = 0; i < writers.length; i++) {
+            String name = "name" + i;
+            writers[i] = new Thread(() -> {
+                for (int j = 0; j < 10_000; j++) {
+                    cache.add(new Profile(id, name));
+                }
+            });
+            writers[i].start();
+        }
+
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        String current = cache.getById(id).map(Profile::getName).orElseThrow();
+        for (int i = 0; i < writers.length; i++) {
+            String name = "name" + i;
+            assertEquals(name.equals(current), cache.getByName(name).isPresent(), name);
+        }
+    }
+
+    @Test
+    void refreshKeepsName() {
+        UUID id = UUID.randomUUID();
+        cache.add(new Profile(id, "abc"));
+        cache.add(new Profile(id, "abc"));
+
+        assertTrue(cache.getByName("abc").isPresent());
+    }
+
+    @Test
+    void evictionRemovesBothIndexes() {
+        Profile first = new Profile(UUID.randomUUID(), "first");
+        Profile second = new Profile(UUID.randomUUID(), "second");
+        cache.add(first);
+        cache.add(second);
+
+        assertAll(
+                () -> assertFalse(cache.getById(first.getId()).isPresent()),
+                () -> assertFalse(cache.getByName(first.getName()).isPresent()),
+                () -> assertTrue(cache.getByName(second.getName()).isPresent())
+        );
+    }
+
+    @Test
+    void nullIdNotCached() {
+        cache.add(new Profile(null, "abc"));
+        assertFalse(cache.getByName("abc").isPresent());
+    }
+
+    @Test
+    void skinByteBudget() {
+        int skinBytes = MemoryCache.estimateBytes(
+                new SkinProperty(SkinPropertyTest.STEVE_VALUE + "000", SkinPropertyTest.STEVE_SIGNATURE));
+        long budget = skinBytes * 16L;
+        MemoryCache weighted = MemoryCache.withSkinBudget(Duration.ofMinutes(1), 1, Duration.ofMinutes(1), budget,
+                NoopMetrics.INSTANCE);
+
+        for (int i = 0; i < 100; i++) {
+            // same size, but distinct values
+            String value = String.format("%s%03d", SkinPropertyTest.STEVE_VALUE, i);
+            weighted.addSkin(UUID.randomUUID(), new SkinProperty(value, SkinPropertyTest.STEVE_SIGNATURE));
+        }
+
+        int cached = weighted.getCachedSkins().size();
+        assertAll(
+                () -> assertTrue(cached > 0),
+                () -> assertTrue(weighted.getSkinBytes() <= budget),
+                () -> assertEquals(cached * (long) skinBytes, weighted.getSkinBytes())
+        );
+    }
+
+    @Test
+    void skinBytesReleased() {
+        MemoryCache memoryCache = (MemoryCache) cache;
+        UUID profileId = UUID.randomUUID();
+        SkinProperty steve = new SkinProperty(SkinPropertyTest.STEVE_VALUE, SkinPropertyTest.STEVE_SIGNATURE);
+        SkinProperty slim = new SkinProperty(SkinPropertyTest.SLIM_VALUE, SkinPropertyTest.SLIM_SIGNATURE);
+
+        memoryCache.addSkin(profileId, steve);
+        memoryCache.addSkin(profileId, slim);
+        assertEquals(MemoryCache.estimateBytes(CompactSkinProperty.compact(slim)), memoryCache.getSkinBytes());
+
+        memoryCache.removeSkin(profileId);
+        assertEquals(0, memoryCache.getSkinBytes());
+    }
+
+    @Test
+    void staleSkinBytes() throws InterruptedException {
+        MemoryCache expiring = MemoryCache.withSkinBudget(Duration.ofMinutes(1), 10, Duration.ofMillis(1),
+                1024 * 1024, NoopMetrics.INSTANCE);
+        expiring.setGracePeriod(Duration.ofMinutes(1));
+
+        UUID profileId = UUID.randomUUID();
+        SkinProperty steve = new SkinProperty(SkinPropertyTest.STEVE_VALUE, SkinPropertyTest.STEVE_SIGNATURE);
+        expiring.addSkin(profileId, steve);
+        Thread.sleep(10);
+
+        assertTrue(expiring.getStaleSkin(profileId).isPresent());
+        assertEquals(MemoryCache.estimateBytes(CompactSkinProperty.compact(steve)), expiring.getSkinBytes());
+
+        expiring.setGracePeriod(null);
+        assertEquals(0, expiring.getSkinBytes());
+    }
+
+    @Test
+    void entryAge() {
+        UUID profileId = UUID.randomUUID();
+        cache.add(new Profile(profileId, "Player"));
+        cache.addSkin(profileId, new SkinProperty(SkinPropertyTest.STEVE_VALUE, SkinPropertyTest.STEVE_SIGNATURE));
+
+        assertAll(
+                () -> assertTrue(cache.getProfileAge("player").isPresent()),
+                () -> assertTrue(cache.getSkinAge(profileId).isPresent()),
+                () -> assertFalse(cache.getProfileAge("other").isPresent()),
+                () -> assertFalse(cache.getSkinAge(UUID.randomUUID()).isPresent())
+        );
+    }
+
+    @Test
+    void staleWithinGracePeriod() throws InterruptedException {
+        MemoryCache expiring = new MemoryCache(Duration.ofMillis(1), 10, Duration.ofMillis(1), 10);
+        expiring.setGracePeriod(Duration.ofMinutes(1));
+
+        UUID profileId = UUID.randomUUID();
+        SkinProperty skin = new SkinProperty(SkinPropertyTest.STEVE_VALUE, SkinPropertyTest.STEVE_SIGNATURE);
+        expiring.add(new Profile(profileId, "Player"));
+        expiring.addSkin(profileId, skin);
+        Thread.sleep(10);
+
+        assertAll(
+                () -> assertFalse(expiring.getByName("player").isPresent()),
+                () -> assertFalse(expiring.getSkin(profileId).isPresent()),
+                () -> assertEquals(profileId, expiring.getStaleByName("PLAYER").map(Profile::getId).orElse(null)),
+                () -> assertEquals(skin, expiring.getStaleSkin(profileId).orElse(null)),
+                () -> assertFalse(cache.getStaleByName("player").isPresent())
+        );
+
+        expiring.clear();
+        assertFalse(expiring.getStaleByName("player").isPresent());
+    }
+
+    @Test
+    void staleAfterPolicyExpiration() throws InterruptedException {
+        MemoryCache expiring = new MemoryCache(Duration.ofDays(30), 10, Duration.ofMinutes(1), 10);
+        expiring.setExpiryPolicy(profile -> Duration.ofMillis(1));
+        expiring.setGracePeriod(Duration.ofMinutes(10));
+
+        UUID profileId = UUID.randomUUID();
+        expiring.add(new Profile(profileId, "Player"));
+        Thread.sleep(10);
+
+        // no write in between that advances the timer wheel
+        assertAll(
+                () -> assertFalse(expiring.getByName("player").isPresent()),
+                () -> assertEquals(profileId, expiring.getStaleByName("PLAYER").map(Profile::getId).orElse(null))
+        );
+    }
+
+    @Test
+    void bulkLookup() {
+        SimpleMetrics metrics = new SimpleMetrics();
+        MemoryCache bulk = new MemoryCache(Duration.ofMinutes(1), 10, Duration.ofMinutes(1), 10, metrics);
+
+        Profile first = new Profile(UUID.randomUUID(), "First");
+        Profile second = new Profile(UUID.randomUUID(), "Second");
+        bulk.addAll(Arrays.asList(first, second));
+
+        BulkLookup<String, Profile> byName = bulk.getAllByName(Arrays.asList("FIRST", "unknown", "second"));
+        BulkLookup<UUID, Profile> byId = bulk.getAllById(Arrays.asList(first.getId(), UUID.randomUUID()));
+        assertAll(
+                () -> assertEquals(first, byName.getHits().get("FIRST")),
+                () -> assertEquals(second, byName.getHits().get("second")),
+                () -> assertEquals(Arrays.asList("unknown"), byName.getMisses()),
+                () -> assertEquals(first, byId.getHits().get(first.getId())),
+                () -> assertFalse(byId.isComplete()),
+                () -> assertEquals(3, metrics.getCacheHits(CacheType.PROFILE)),
+                () -> assertEquals(2, metrics.getCacheMisses(CacheType.PROFILE))
+        );
+    }
+
+    @Test
+    void streamEntries() {
+        MemoryCache bulk = new MemoryCache(Duration.ofMinutes(1), 10, Duration.ofMinutes(1), 10);
+
+        Profile first = new Profile(UUID.randomUUID(), "First");
+        Profile second = new Profile(UUID.randomUUID(), "Second");
+        bulk.addAll(Arrays.asList(first, second));
+        bulk.addSkin(first.getId(), new SkinProperty(SkinPropertyTest.STEVE_VALUE, SkinPropertyTest.STEVE_SIGNATURE));
+
+        assertAll(
+                () -> assertEquals(bulk.getCachedProfiles(), bulk.streamProfiles().collect(Collectors.toSet())),
+                () -> assertEquals(1, bulk.streamSkins().count())
+        );
+    }
+
+    @Test
+    void expiryPolicy() throws InterruptedException {
+        MemoryCache expiring = new MemoryCache(Duration.ofDays(30), 10, Duration.ofMinutes(1), 10);
+        expiring.setExpiryPolicy(ExpiryPolicy.stableNames(Duration.ofMillis(1), Duration.ofDays(7)));
+
+        UUID profileId = UUID.randomUUID();
+        expiring.add(new Profile(profileId, "Player"));
+        Thread.sleep(10);
+        assertAll(
+                () -> assertFalse(expiring.getById(profileId).isPresent()),
+                () -> assertFalse(expiring.getByName("player").isPresent()),
+                () -> assertTrue(expiring.getCachedProfiles().isEmpty())
+        );
+
+        // confirmed name
+        expiring.add(new Profile(profileId, "Player"));
+        Thread.sleep(10);
+        assertTrue(expiring.getByName("player").isPresent());
+
+        expiring.add(new Profile(profileId, "Renamed"));
+        Thread.sleep(10);
+        assertAll(
+                () -> assertFalse(expiring.getById(profileId).isPresent()),
+                () -> assertFalse(expiring.getByName("renamed").isPresent())
+        );
+    }
+
+    @Test
+    void expiryPolicySkipsEntries() {
+        MemoryCache expiring = new MemoryCache(Duration.ofMinutes(1), 10, Duration.ofMinutes(1), 10);
+        expiring.setExpiryPolicy(profile -> Duration.ZERO);
+
+        UUID profileId = UUID.randomUUID();
+        expiring.add(new Profile(profileId, "Player"));
+        assertFalse(expiring.getById(profileId).isPresent());
+    }
+
+    @Test
+    void findNamesByPrefix() {
+        MemoryCache indexed = new MemoryCache(Duration.ofMinutes(1), 10, Duration.ofMinutes(1), 10);
+        indexed.add(new Profile(UUID.randomUUID(), "Notch"));
+        indexed.setPrefixIndex(true);
+
+        UUID renamedId = UUID.randomUUID();
+        indexed.add(new Profile(UUID.randomUUID(), "nobody"));
+        indexed.add(new Profile(renamedId, "NoName"));
+        indexed.add(new Profile(UUID.randomUUID(), "games647"));
+        indexed.add(new Profile(renamedId, "Other"));
+
+        MemoryCache scanned = new MemoryCache(Duration.ofMinutes(1), 10, Duration.ofMinutes(1), 10);
+        indexed.getCachedProfiles().forEach(scanned::add);
+
+        assertAll(
+                () -> assertEquals(Arrays.asList("nobody", "Notch"), indexed.findNamesByPrefix("NO", 5)),
+                () -> assertEquals(Arrays.asList("nobody"), indexed.findNamesByPrefix("no", 1)),
+                () -> assertEquals(Arrays.asList("Other"), indexed.findNamesByPrefix("o", 5)),
+                () -> assertTrue(indexed.findNamesByPrefix("x", 5).isEmpty()),
+                () -> assertEquals(indexed.findNamesByPrefix("", 10), scanned.findNamesByPrefix("", 10))
+        );
+
+        indexed.clear();
+        assertTrue(indexed.findNamesByPrefix("", 5).isEmpty());
+    }
+
+    @Test
+    void findNamesByPrefixAfterCaseChange() {
+        MemoryCache indexed = new MemoryCache(Duration.ofMinutes(1), 10, Duration.ofMinutes(1), 10);
+        indexed.setPrefixIndex(true);
+
+        UUID id = UUID.randomUUID();
+        indexed.add(new Profile(id, "notch"));
+        indexed.add(new Profile(id, "Notch"));
+        indexed.add(new Profile(UUID.randomUUID(), "nobody"));
+        indexed.add(new Profile(UUID.randomUUID(), "NOBODY"));
+
+        assertEquals(Arrays.asList("NOBODY", "Notch"), indexed.findNamesByPrefix("no", 5));
+    }
 }
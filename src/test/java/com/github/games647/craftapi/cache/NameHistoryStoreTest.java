@@ -0,0 +1,116 @@
+package com.github.games647.craftapi.cache;
+
+import com.github.games647.craftapi.model.NameHistory;
+import com.github.games647.craftapi.model.Profile;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NameHistoryStoreTest {
+
+    private static final UUID FIRST = UUID.randomUUID();
+    private static final UUID SECOND = UUID.randomUUID();
+
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = Files.createTempFile("craftapi", ".names");
+        Files.delete(file);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void nameMovesToOtherPlayer() {
+        NameHistoryStore store = new NameHistoryStore();
+        store.record(FIRST, "Player", time(100));
+        store.record(FIRST, "player", time(150));
+        store.record(FIRST, "Renamed", time(200));
+        store.record(SECOND, "Player", time(300));
+
+        assertAll(
+                () -> assertFalse(store.findProfile("player", time(50)).isPresent()),
+                () -> assertEquals(FIRST, ownerAt(store, "PLAYER", 100)),
+                () -> assertEquals(FIRST, ownerAt(store, "player", 199)),
+                () -> assertFalse(store.findProfile("player", time(250)).isPresent(), "Released by the first player"),
+                () -> assertEquals(SECOND, ownerAt(store, "player", 300)),
+                () -> assertEquals(FIRST, ownerAt(store, "renamed", 1_000))
+        );
+    }
+
+    @Test
+    void findNames() {
+        NameHistoryStore store = new NameHistoryStore();
+        store.record(FIRST, "Renamed", time(200));
+        store.record(FIRST, "Player", time(100));
+        store.record(FIRST, "Renamed", time(150));
+
+        assertAll(
+                () -> assertEquals(List.of(new NameHistory("Player", time(100)), new NameHistory("Renamed")),
+                        store.findNames(FIRST)),
+                () -> assertEquals(FIRST, ownerAt(store, "Renamed", 160), "Seen earlier than recorded"),
+                () -> assertTrue(store.findNames(SECOND).isEmpty())
+        );
+    }
+
+    @Test
+    void persistChanges() throws IOException {
+        try (NameHistoryStore store = new NameHistoryStore(file)) {
+            store.record(new Profile(FIRST, "Player"), time(100));
+            store.record(new Profile(FIRST, "Player"), time(120));
+            store.record(new Profile(FIRST, "Renamed"), time(200));
+        }
+
+        long size = Files.size(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            // partially written record of a crash
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 40, 1, 2}));
+        }
+
+        try (NameHistoryStore store = new NameHistoryStore(file)) {
+            assertAll(
+                    () -> assertEquals(size, Files.size(file)),
+                    () -> assertEquals(1, store.size()),
+                    () -> assertEquals(2, store.findNames(FIRST).size()),
+                    () -> assertEquals(FIRST, ownerAt(store, "player", 150))
+            );
+        }
+    }
+
+    @Test
+    void notAHistory() throws IOException {
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7});
+        assertThrows(IOException.class, () -> new NameHistoryStore(file));
+    }
+
+    private static UUID ownerAt(NameHistoryStore store, String name, long millis) {
+        Optional<Profile> profile = store.findProfile(name, time(millis));
+        return profile.map(Profile::getId).orElse(null);
+    }
+
+    private static Instant time(long millis) {
+        return Instant.ofEpochMilli(millis);
+    }
+}
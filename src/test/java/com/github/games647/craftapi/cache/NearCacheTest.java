@@ -0,0 +1,139 @@
+package com.github.games647.craftapi.cache;
+
+import com.github.games647.craftapi.metrics.CacheType;
+import com.github.games647.craftapi.metrics.SimpleMetrics;
+import com.github.games647.craftapi.model.Profile;
+import com.github.games647.craftapi.model.skin.SkinProperty;
+import com.github.games647.craftapi.model.skin.SkinPropertyTest;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NearCacheTest {
+
+    private InMemoryRemoteStore store;
+    private SimpleMetrics metrics;
+
+    private NearCache first;
+    private NearCache second;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryRemoteStore();
+        metrics = new SimpleMetrics();
+
+        first = new NearCache(new MemoryCache(), store, Duration.ofMinutes(5));
+        second = new NearCache(new MemoryCache(), store, Duration.ofMinutes(5), metrics);
+    }
+
+    @AfterEach
+    void tearDown() {
+        first.close();
+        second.close();
+    }
+
+    @Test
+    void shareProfile() throws InterruptedException {
+        Profile profile = new Profile(UUID.randomUUID(), "Player");
+        first.add(profile);
+        first.flush();
+
+        assertAll(
+                () -> assertEquals(profile, second.getByName("player").orElse(null)),
+                () -> assertEquals(profile, second.getById(profile.getId()).orElse(null)),
+                () -> assertFalse(second.getByName("unknown").isPresent())
+        );
+
+        assertAll(
+                () -> assertEquals(2, metrics.getCacheHits(CacheType.PROFILE)),
+                () -> assertEquals(1, metrics.getCacheMisses(CacheType.PROFILE)),
+                () -> assertEquals(1, metrics.getTierHits(CacheType.PROFILE).get(1)),
+                () -> assertEquals(1, metrics.getTierHits(CacheType.PROFILE).get(2))
+        );
+    }
+
+    @Test
+    void renameInvalidates() throws InterruptedException {
+        UUID id = UUID.randomUUID();
+        first.add(new Profile(id, "oldName"));
+        first.flush();
+        assertTrue(second.getById(id).isPresent());
+
+        Profile renamed = new Profile(id, "newName");
+        first.add(renamed);
+        first.flush();
+
+        assertAll(
+                () -> assertEquals("newName", second.getById(id).map(Profile::getName).orElse(null)),
+                () -> assertEquals(renamed, second.getByName("newName").orElse(null)),
+                () -> assertFalse(second.getByName("oldName").isPresent())
+        );
+    }
+
+    @Test
+    void renameOnOtherNode() throws InterruptedException {
+        UUID id = UUID.randomUUID();
+        first.add(new Profile(id, "oldName"));
+        first.flush();
+
+        // the second node never saw the old name, so it cannot remove its key from the store
+        Profile renamed = new Profile(id, "newName");
+        second.add(renamed);
+        second.flush();
+
+        try (NearCache third = new NearCache(new MemoryCache(), store, Duration.ofMinutes(5))) {
+            assertAll(
+                    () -> assertFalse(third.getByName("oldName").isPresent()),
+                    () -> assertEquals(renamed, third.getByName("newName").orElse(null))
+            );
+        }
+    }
+
+    @Test
+    void shareSkin() throws InterruptedException {
+        UUID id = UUID.randomUUID();
+        SkinProperty skin = new SkinProperty(SkinPropertyTest.STEVE_VALUE, SkinPropertyTest.STEVE_SIGNATURE);
+        first.addSkin(id, skin);
+        first.flush();
+        assertEquals(skin, second.getSkin(id).orElse(null));
+
+        first.removeSkin(id);
+        first.flush();
+        assertFalse(second.getSkin(id).isPresent());
+    }
+
+    @Test
+    void clearAllNodes() throws InterruptedException {
+        Profile profile = new Profile(UUID.randomUUID(), "Player");
+        first.add(profile);
+        first.flush();
+        assertTrue(second.getById(profile.getId()).isPresent());
+
+        second.clear();
+        second.flush();
+
+        assertAll(
+                () -> assertEquals(0, store.size()),
+                () -> assertFalse(first.getById(profile.getId()).isPresent()),
+                () -> assertTrue(first.getCachedProfiles().isEmpty())
+        );
+    }
+
+    @Test
+    void closeFlushes() {
+        Profile profile = new Profile(UUID.randomUUID(), "Player");
+        first.add(profile);
+        first.close();
+
+        assertEquals(profile, second.getByName("Player").orElse(null));
+    }
+}
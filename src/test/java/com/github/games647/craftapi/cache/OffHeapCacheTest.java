@@ -0,0 +1,144 @@
+package com.github.games647.craftapi.cache;
+
+import com.github.games647.craftapi.model.Profile;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OffHeapCacheTest {
+
+    private OffHeapCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new OffHeapCache(8, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void addProfile() {
+        Profile profile = new Profile(UUID.randomUUID(), "123ABC_abc");
+        cache.add(profile);
+
+        assertAll(
+                () -> assertEquals(profile, cache.getById(profile.getId()).orElse(null)),
+                () -> assertEquals("123ABC_abc", cache.getByName("123abc_ABC").map(Profile::getName).orElse(null)),
+                () -> assertEquals(profile, cache.getByName("123ABC_ABC").orElse(null)),
+                () -> assertFalse(cache.getByName("123ABC_AB").isPresent())
+        );
+    }
+
+    @Test
+    void maxSize() {
+        for (int i = 0; i < 100; i++) {
+            cache.add(new Profile(UUID.randomUUID(), "Player" + i));
+        }
+
+        assertAll(
+                () -> assertEquals(8, cache.size()),
+                () -> assertEquals(8, cache.getCachedProfiles().size())
+        );
+    }
+
+    @Test
+    void rename() {
+        UUID id = UUID.randomUUID();
+        cache.add(new Profile(id, "OldName"));
+        cache.add(new Profile(id, "NewName"));
+
+        assertAll(
+                () -> assertFalse(cache.getByName("oldname").isPresent()),
+                () -> assertEquals("NewName", cache.getByName("newname").map(Profile::getName).orElse(null)),
+                () -> assertEquals(1, cache.size())
+        );
+    }
+
+    @Test
+    void nameTakenOver() {
+        Profile first = new Profile(UUID.randomUUID(), "abc");
+        Profile second = new Profile(UUID.randomUUID(), "ABC");
+        cache.add(first);
+        cache.add(second);
+
+        assertAll(
+                () -> assertEquals(second, cache.getByName("abc").orElse(null)),
+                () -> assertEquals(first, cache.getById(first.getId()).orElse(null))
+        );
+
+        cache.remove(first);
+        assertEquals(second, cache.getByName("abc").orElse(null));
+    }
+
+    @Test
+    void removeProfile() {
+        Profile profile = new Profile(UUID.randomUUID(), "abc");
+        cache.add(profile);
+        cache.remove(new Profile(UUID.randomUUID(), "abc"));
+        assertTrue(cache.getByName("abc").isPresent());
+
+        cache.remove(profile);
+        assertAll(
+                () -> assertFalse(cache.getById(profile.getId()).isPresent()),
+                () -> assertFalse(cache.getByName("abc").isPresent())
+        );
+    }
+
+    @Test
+    void notPackable() {
+        cache.add(new Profile(UUID.randomUUID(), "ThisNameIsTooLongForMinecraft"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void expired() throws InterruptedException {
+        cache = new OffHeapCache(8, Duration.ofMillis(1));
+
+        Profile profile = new Profile(UUID.randomUUID(), "abc");
+        cache.add(profile);
+        Thread.sleep(5);
+        assertAll(
+                () -> assertFalse(cache.getById(profile.getId()).isPresent()),
+                () -> assertFalse(cache.getByName("abc").isPresent())
+        );
+    }
+
+    @Test
+    void randomOperationsMatchMap() {
+        cache = new OffHeapCache(1_000, null);
+
+        Random random = new Random(1);
+        UUID[] ids = new UUID[500];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = new UUID(random.nextLong(), random.nextLong());
+        }
+
+        Map<UUID, String> expected = new HashMap<>();
+        for (int i = 0; i < 50_000; i++) {
+            int key = random.nextInt(ids.length);
+            String name = "P" + key + '_' + random.nextInt(3);
+            if (random.nextInt(3) == 0) {
+                cache.remove(new Profile(ids[key], name));
+                expected.remove(ids[key]);
+            } else {
+                cache.add(new Profile(ids[key], name));
+                expected.put(ids[key], name);
+            }
+        }
+
+        assertEquals(expected.size(), cache.size());
+        for (Map.Entry<UUID, String> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), cache.getById(entry.getKey()).map(Profile::getName).orElse(null));
+            assertEquals(entry.getKey(), cache.getByName(entry.getValue()).map(Profile::getId).orElse(null));
+        }
+    }
+}
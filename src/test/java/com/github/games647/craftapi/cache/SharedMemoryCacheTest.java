@@ -0,0 +1,165 @@
+package com.github.games647.craftapi.cache;
+
+import com.github.games647.craftapi.model.Profile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SharedMemoryCacheTest {
+
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = Files.createTempFile("craftapi", ".shm");
+        Files.delete(file);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void sharedBetweenInstances() throws IOException {
+        // each instance maps the file like a separate JVM would
+        SharedMemoryCache proxy = new SharedMemoryCache(file, 100, Duration.ofMinutes(1));
+        SharedMemoryCache backend = new SharedMemoryCache(file, 100, Duration.ofMinutes(1));
+
+        Profile profile = new Profile(UUID.randomUUID(), "Player");
+        proxy.add(profile);
+
+        assertAll(
+                () -> assertEquals(profile, backend.getByName("pLAYER").orElse(null)),
+                () -> assertEquals(profile, backend.getById(profile.getId()).orElse(null)),
+                () -> assertEquals(1, backend.getCachedProfiles().size())
+        );
+    }
+
+    @Test
+    void rename() throws IOException {
+        SharedMemoryCache cache = new SharedMemoryCache(file, 100, Duration.ofMinutes(1));
+
+        UUID id = UUID.randomUUID();
+        cache.add(new Profile(id, "OldName"));
+        cache.add(new Profile(id, "NewName"));
+
+        assertAll(
+                () -> assertFalse(cache.getByName("OldName").isPresent()),
+                () -> assertEquals("NewName", cache.getById(id).map(Profile::getName).orElse(null))
+        );
+    }
+
+    @Test
+    void removeAndClear() throws IOException {
+        SharedMemoryCache cache = new SharedMemoryCache(file, 100, Duration.ofMinutes(1));
+
+        Profile first = new Profile(UUID.randomUUID(), "first");
+        Profile second = new Profile(UUID.randomUUID(), "second");
+        cache.add(first);
+        cache.add(second);
+
+        cache.remove(first);
+        assertAll(
+                () -> assertFalse(cache.getByName("first").isPresent()),
+                () -> assertTrue(cache.getByName("second").isPresent())
+        );
+
+        cache.clear();
+        assertFalse(cache.getById(second.getId()).isPresent());
+
+        cache.add(first);
+        assertTrue(cache.getByName("first").isPresent());
+    }
+
+    @Test
+    void expire() throws Exception {
+        SharedMemoryCache cache = new SharedMemoryCache(file, 100, Duration.ofMillis(1));
+        cache.add(new Profile(UUID.randomUUID(), "Player"));
+
+        Thread.sleep(10);
+        assertFalse(cache.getByName("Player").isPresent());
+    }
+
+    @Test
+    void overwriteOldestIfFull() throws IOException {
+        SharedMemoryCache cache = new SharedMemoryCache(file, 8, null);
+        for (int i = 0; i < 1_000; i++) {
+            cache.add(new Profile(UUID.randomUUID(), "name" + i));
+        }
+
+        Profile latest = new Profile(UUID.randomUUID(), "latest");
+        cache.add(latest);
+        assertEquals(latest, cache.getByName("latest").orElse(null));
+    }
+
+    @Test
+    void existingFileKeepsSize() throws IOException {
+        new SharedMemoryCache(file, 100, null);
+        long size = Files.size(file);
+
+        new SharedMemoryCache(file, 10_000, null);
+        assertEquals(size, Files.size(file));
+    }
+
+    @Test
+    void notACacheFile() throws IOException {
+        Files.write(file, new byte[128]);
+        assertThrows(IOException.class, () -> new SharedMemoryCache(file, 100, null));
+    }
+
+    @Test
+    void concurrentWritersConsistent() throws Exception {
+        SharedMemoryCache writerCache = new SharedMemoryCache(file, 16, null);
+        SharedMemoryCache readerCache = new SharedMemoryCache(file, 16, null);
+
+        UUID id = UUID.randomUUID();
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<String> failure = new AtomicReference<>();
+
+        List<Thread> writers = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            String name = "writer" + i;
+            Thread writer = new Thread(() -> {
+                while (running.get()) {
+                    writerCache.add(new Profile(id, name));
+                }
+            });
+            writer.start();
+            writers.add(writer);
+        }
+
+        for (int i = 0; i < 100_000; i++) {
+            Optional<Profile> profile = readerCache.getById(id);
+            if (profile.isPresent() && !profile.get().getName().matches("writer[01]")) {
+                failure.set(profile.get().getName());
+            }
+        }
+
+        running.set(false);
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        assertNull(failure.get());
+    }
+}
@@ -0,0 +1,128 @@
+package com.github.games647.craftapi.cache;
+
+import com.github.games647.craftapi.metrics.CacheType;
+import com.github.games647.craftapi.metrics.SimpleMetrics;
+import com.github.games647.craftapi.model.Profile;
+import com.github.games647.craftapi.model.skin.SkinProperty;
+import com.github.games647.craftapi.model.skin.SkinPropertyTest;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TieredCacheTest {
+
+    private MemoryCache first;
+    private OffHeapCache second;
+    private SimpleMetrics metrics;
+    private TieredCache cache;
+
+    @BeforeEach
+    void setUp() {
+        first = new MemoryCache(Duration.ofMinutes(1), 1, Duration.ofMinutes(1), 1);
+        second = new OffHeapCache(16, Duration.ofMinutes(1));
+        metrics = new SimpleMetrics();
+        cache = new TieredCache(first, second, metrics);
+    }
+
+    @Test
+    void demoteAndPromote() {
+        Profile older = new Profile(UUID.randomUUID(), "older");
+        Profile newer = new Profile(UUID.randomUUID(), "newer");
+        cache.add(older);
+        cache.add(newer);
+
+        assertAll(
+                () -> assertFalse(first.getById(older.getId()).isPresent()),
+                () -> assertTrue(second.getById(older.getId()).isPresent())
+        );
+
+        assertEquals(older, cache.getByName("OLDER").orElse(null));
+        assertAll(
+                () -> assertTrue(first.getById(older.getId()).isPresent()),
+                () -> assertFalse(second.getById(older.getId()).isPresent()),
+                () -> assertTrue(second.getById(newer.getId()).isPresent())
+        );
+    }
+
+    @Test
+    void tierHits() {
+        Profile older = new Profile(UUID.randomUUID(), "older");
+        Profile newer = new Profile(UUID.randomUUID(), "newer");
+        cache.add(older);
+        cache.add(newer);
+
+        cache.getById(newer.getId());
+        cache.getById(older.getId());
+        cache.getByName("missing");
+
+        assertAll(
+                () -> assertEquals(1, metrics.getTierHits(CacheType.PROFILE).get(1)),
+                () -> assertEquals(1, metrics.getTierHits(CacheType.PROFILE).get(2)),
+                () -> assertEquals(2, metrics.getCacheHits(CacheType.PROFILE)),
+                () -> assertEquals(1, metrics.getCacheMisses(CacheType.PROFILE))
+        );
+    }
+
+    @Test
+    void skins() {
+        UUID olderOwner = UUID.randomUUID();
+        SkinProperty olderSkin = new SkinProperty(SkinPropertyTest.STEVE_VALUE, SkinPropertyTest.STEVE_SIGNATURE);
+        cache.addSkin(olderOwner, olderSkin);
+        cache.addSkin(UUID.randomUUID(), new SkinProperty(SkinPropertyTest.SLIM_VALUE, SkinPropertyTest.SLIM_SIGNATURE));
+
+        assertEquals(olderSkin, cache.getSkin(olderOwner).orElse(null));
+        assertEquals(1, metrics.getTierHits(CacheType.SKIN).get(2));
+    }
+
+    @Test
+    void renameInSecondTier() {
+        UUID id = UUID.randomUUID();
+        cache.add(new Profile(id, "OldName"));
+        cache.add(new Profile(UUID.randomUUID(), "other"));
+        cache.add(new Profile(id, "NewName"));
+
+        assertAll(
+                () -> assertFalse(cache.getByName("OldName").isPresent()),
+                () -> assertEquals("NewName", cache.getById(id).map(Profile::getName).orElse(null))
+        );
+    }
+
+    @Test
+    void renameInMemorySecondTier() {
+        cache = new TieredCache(first, new MemoryCache(Duration.ofMinutes(1), 16, Duration.ofMinutes(1), 16));
+
+        UUID id = UUID.randomUUID();
+        cache.add(new Profile(id, "OldName"));
+        cache.add(new Profile(UUID.randomUUID(), "other"));
+        cache.add(new Profile(id, "NewName"));
+
+        assertFalse(cache.getByName("OldName").isPresent());
+    }
+
+    @Test
+    void keepAgeBetweenTiers() throws InterruptedException {
+        Duration expire = Duration.ofMillis(300);
+        first = new MemoryCache(expire, 1, expire, 1);
+        cache = new TieredCache(first, new OffHeapCache(16, expire));
+
+        Profile alice = new Profile(UUID.randomUUID(), "Alice");
+        cache.add(alice);
+        Thread.sleep(150);
+
+        // moves Alice to the second tier and back
+        cache.add(new Profile(UUID.randomUUID(), "Bob"));
+        assertEquals(alice, cache.getByName("Alice").orElse(null));
+        assertTrue(cache.getProfileAge("Alice").orElse(Duration.ZERO).toMillis() >= 150);
+
+        Thread.sleep(200);
+        assertFalse(cache.getByName("Alice").isPresent());
+    }
+}
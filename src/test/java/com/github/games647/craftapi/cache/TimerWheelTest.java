@@ -0,0 +1,111 @@
+package com.github.games647.craftapi.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimerWheelTest {
+
+    // negative like System.nanoTime can be
+    private static final long START = -TimeUnit.DAYS.toNanos(3);
+
+    private TimerWheel<String> wheel;
+    private List<String> expired;
+
+    @BeforeEach
+    void setUp() {
+        wheel = new TimerWheel<>(START);
+        expired = new ArrayList<>();
+    }
+
+    @Test
+    void expireInOrderOfLevels() {
+        wheel.schedule("seconds", START + TimeUnit.SECONDS.toNanos(5));
+        wheel.schedule("minutes", START + TimeUnit.MINUTES.toNanos(30));
+        wheel.schedule("days", START + TimeUnit.DAYS.toNanos(2));
+        wheel.schedule("months", START + TimeUnit.DAYS.toNanos(60));
+
+        wheel.advance(START + TimeUnit.SECONDS.toNanos(4), expired::add);
+        assertTrue(expired.isEmpty());
+
+        wheel.advance(START + TimeUnit.SECONDS.toNanos(7), expired::add);
+        assertEquals(List.of("seconds"), expired);
+
+        wheel.advance(START + TimeUnit.MINUTES.toNanos(29), expired::add);
+        assertEquals(1, expired.size(), "Shouldn't expire early");
+
+        wheel.advance(START + TimeUnit.MINUTES.toNanos(32), expired::add);
+        wheel.advance(START + TimeUnit.DAYS.toNanos(3), expired::add);
+        assertAll(
+                () -> assertEquals(List.of("seconds", "minutes", "days"), expired),
+                () -> assertEquals(1, wheel.size())
+        );
+
+        wheel.advance(START + TimeUnit.DAYS.toNanos(61), expired::add);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void cascadeInSmallSteps() {
+        wheel.schedule("value", START + TimeUnit.MINUTES.toNanos(90));
+
+        long now = START;
+        while (expired.isEmpty()) {
+            now += TimeUnit.SECONDS.toNanos(1);
+            wheel.advance(now, expired::add);
+        }
+
+        long late = now - (START + TimeUnit.MINUTES.toNanos(90));
+        assertTrue(late >= 0 && late < TimeUnit.SECONDS.toNanos(3), "Expired " + late + "ns late");
+    }
+
+    @Test
+    void cascadeFromDays() {
+        // within the range of the coarsest level before the overflow
+        long expire = START + TimeUnit.DAYS.toNanos(5);
+        wheel.schedule("value", expire);
+
+        long now = START;
+        while (expired.isEmpty()) {
+            now += TimeUnit.HOURS.toNanos(1);
+            wheel.advance(now, expired::add);
+        }
+
+        long late = now - expire;
+        assertTrue(late >= 0 && late < TimeUnit.HOURS.toNanos(1), "Expired " + late + "ns late");
+    }
+
+    @Test
+    void deschedule() {
+        TimerWheel.Node<String> node = wheel.schedule("removed", START + TimeUnit.SECONDS.toNanos(5));
+        wheel.schedule("kept", START + TimeUnit.SECONDS.toNanos(5));
+
+        wheel.deschedule(node);
+        wheel.deschedule(node);
+        wheel.advance(START + TimeUnit.MINUTES.toNanos(1), expired::add);
+
+        assertAll(
+                () -> assertEquals(List.of("kept"), expired),
+                () -> assertEquals(0, wheel.size())
+        );
+    }
+
+    @Test
+    void clear() {
+        wheel.schedule("value", START + TimeUnit.SECONDS.toNanos(5));
+        wheel.clear();
+
+        wheel.advance(START + TimeUnit.MINUTES.toNanos(1), expired::add);
+        assertAll(
+                () -> assertTrue(expired.isEmpty()),
+                () -> assertEquals(0, wheel.size())
+        );
+    }
+}
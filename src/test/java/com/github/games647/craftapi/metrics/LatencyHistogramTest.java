@@ -0,0 +1,79 @@
+package com.github.games647.craftapi.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @ParameterizedTest
+    @ValueSource(longs = {0, 1, 127, 128, 129, 1_000, 65_535, 5_000_000, 59_999_999_999L})
+    void bucketContainsValue(long value) {
+        int index = LatencyHistogram.indexOf(value);
+        long highest = LatencyHistogram.highestValueOf(index);
+        long lowest = index == 0 ? 0 : LatencyHistogram.highestValueOf(index - 1) + 1;
+
+        assertAll(
+                () -> assertTrue(lowest <= value, "Lower bound " + lowest),
+                () -> assertTrue(highest >= value, "Upper bound " + highest),
+                () -> assertTrue(highest - lowest <= Math.max(0, value / 64), "Bucket too wide")
+        );
+    }
+
+    @Test
+    void exactSmallValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+
+        assertAll(
+                () -> assertEquals(100, histogram.getCount()),
+                () -> assertEquals(50, histogram.getValueAtPercentile(50)),
+                () -> assertEquals(99, histogram.getValueAtPercentile(99)),
+                () -> assertEquals(100, histogram.getValueAtPercentile(100)),
+                () -> assertEquals(100, histogram.getMax()),
+                () -> assertEquals(50.5, histogram.getMean())
+        );
+    }
+
+    @Test
+    void percentileRelativeError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 10_000; i++) {
+            histogram.record(i * 1_000L);
+        }
+
+        long p99 = histogram.getValueAtPercentile(99);
+        assertTrue(Math.abs(p99 - 9_900_000) <= 9_900_000 / 64, "p99 " + p99);
+    }
+
+    @Test
+    void clampHighValues() {
+        LatencyHistogram histogram = new LatencyHistogram(1_000);
+        histogram.record(Long.MAX_VALUE);
+        histogram.record(-5);
+
+        assertAll(
+                () -> assertEquals(2, histogram.getCount()),
+                () -> assertEquals(1_000, histogram.getMax()),
+                () -> assertEquals(0, histogram.getValueAtPercentile(50))
+        );
+    }
+
+    @Test
+    void reset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(42);
+        histogram.reset();
+
+        assertAll(
+                () -> assertEquals(0, histogram.getCount()),
+                () -> assertEquals(0, histogram.getValueAtPercentile(50))
+        );
+    }
+}
@@ -0,0 +1,72 @@
+package com.github.games647.craftapi.model.skin;
+
+import com.github.games647.craftapi.cache.MemoryCache;
+import com.google.gson.Gson;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompactSkinPropertyTest {
+
+    @Test
+    void roundTrip() {
+        SkinProperty property = new SkinProperty(SkinPropertyTest.CAPE_VALUE, SkinPropertyTest.CAPE_SIGNATURE);
+        SkinProperty compact = CompactSkinProperty.compact(property);
+
+        assertAll(
+                () -> assertTrue(compact instanceof CompactSkinProperty),
+                () -> assertEquals(SkinPropertyTest.CAPE_VALUE, compact.getValue()),
+                () -> assertEquals(SkinPropertyTest.CAPE_SIGNATURE, compact.getSignature()),
+                () -> assertTrue(((CompactSkinProperty) compact).getDecodedLength()
+                        < SkinPropertyTest.CAPE_VALUE.length() + SkinPropertyTest.CAPE_SIGNATURE.length())
+        );
+    }
+
+    @Test
+    void equalsTextForm() {
+        SkinProperty property = new SkinProperty(SkinPropertyTest.SLIM_VALUE, SkinPropertyTest.SLIM_SIGNATURE);
+        SkinProperty compact = CompactSkinProperty.compact(property);
+
+        assertAll(
+                () -> assertEquals(property, compact),
+                () -> assertEquals(compact, property),
+                () -> assertEquals(property.hashCode(), compact.hashCode()),
+                () -> assertEquals(compact, CompactSkinProperty.compact(property))
+        );
+    }
+
+    @Test
+    void gsonRoundTrip() {
+        UUID owner = UUID.randomUUID();
+        MemoryCache cache = new MemoryCache(Duration.ofMinutes(1), 1, Duration.ofMinutes(1), 1);
+        cache.addSkin(owner, new SkinProperty(SkinPropertyTest.STEVE_VALUE, SkinPropertyTest.STEVE_SIGNATURE));
+
+        Gson gson = new Gson();
+        SkinProperty cached = cache.getSkin(owner).get();
+        String json = gson.toJson(cached);
+        assertAll(
+                () -> assertTrue(cached instanceof CompactSkinProperty),
+                () -> assertEquals(cached, gson.fromJson(json, SkinProperty.class)),
+                () -> assertEquals(cached, gson.fromJson(json, CompactSkinProperty.class)),
+                () -> assertEquals(json, gson.toJson(new SkinProperty(cached.getValue(), cached.getSignature())))
+        );
+    }
+
+    @Test
+    void keepNonCanonical() {
+        // missing padding cannot be restored after decoding
+        SkinProperty property = new SkinProperty("YWJjZA", SkinPropertyTest.SLIM_SIGNATURE);
+        SkinProperty invalid = new SkinProperty("not base64!", SkinPropertyTest.SLIM_SIGNATURE);
+        assertAll(
+                () -> assertSame(property, CompactSkinProperty.compact(property)),
+                () -> assertSame(invalid, CompactSkinProperty.compact(invalid))
+        );
+    }
+}
@@ -90,6 +90,12 @@ public class SkinPropertyTest {
         assertTrue(property.isValid(publicKey));
     }
 
+    @Test
+    void testVerifyCompact() throws Exception {
+        SkinProperty property = CompactSkinProperty.compact(new SkinProperty(STEVE_VALUE, STEVE_SIGNATURE));
+        assertTrue(property.isValid(publicKey));
+    }
+
     @Test
     void testVerifyCustomPublic() throws Exception {
         KeyPairGenerator keyGen = KeyPairGenerator.getInstance(KEY_ALG);
@@ -0,0 +1,78 @@
+package com.github.games647.craftapi.resolver;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RefreshAheadTest {
+
+    private RefreshAhead refreshAhead;
+
+    @AfterEach
+    void tearDown() {
+        refreshAhead.close();
+    }
+
+    @Test
+    void stale() {
+        refreshAhead = new RefreshAhead(Duration.ofMinutes(1), () -> true);
+        assertAll(
+                () -> assertFalse(refreshAhead.isStale(Optional.empty())),
+                () -> assertFalse(refreshAhead.isStale(Optional.of(Duration.ofSeconds(59)))),
+                () -> assertTrue(refreshAhead.isStale(Optional.of(Duration.ofMinutes(1))))
+        );
+    }
+
+    @Test
+    void oneRefreshPerKey() throws Exception {
+        refreshAhead = new RefreshAhead(Duration.ZERO, () -> true);
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        RefreshAhead.RefreshTask task = () -> {
+            runs.incrementAndGet();
+            started.countDown();
+            release.await();
+        };
+
+        refreshAhead.refresh("games647", task);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        refreshAhead.refresh("games647", task);
+        release.countDown();
+
+        awaitPrevious();
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void budget() throws Exception {
+        AtomicInteger tokens = new AtomicInteger(1);
+        refreshAhead = new RefreshAhead(Duration.ZERO, () -> tokens.getAndDecrement() > 0);
+
+        AtomicInteger runs = new AtomicInteger();
+        refreshAhead.refresh("first", runs::incrementAndGet);
+        refreshAhead.refresh("second", runs::incrementAndGet);
+
+        tokens.set(1);
+        awaitPrevious();
+        assertEquals(1, runs.get());
+    }
+
+    private void awaitPrevious() throws InterruptedException {
+        // refreshes run in order on a single thread, so this one completes after all previous ones
+        CountDownLatch latch = new CountDownLatch(1);
+        refreshAhead.refresh("barrier", latch::countDown);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+}
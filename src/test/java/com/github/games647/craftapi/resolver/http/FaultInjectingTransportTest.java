@@ -0,0 +1,233 @@
+package com.github.games647.craftapi.resolver.http;
+
+import com.github.games647.craftapi.UUIDAdapter;
+import com.github.games647.craftapi.cache.MemoryCache;
+import com.github.games647.craftapi.metrics.CacheType;
+import com.github.games647.craftapi.metrics.SimpleMetrics;
+import com.github.games647.craftapi.model.Profile;
+import com.github.games647.craftapi.resolver.MojangResolver;
+import com.github.games647.craftapi.resolver.Options;
+import com.github.games647.craftapi.resolver.RateLimitException;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FaultInjectingTransportTest {
+
+    private static final String PROFILE_URL = "https://api.mojang.com/users/profiles/minecraft/games647";
+    private static final String PROFILE_JSON = "{\"id\":\"0aaa2c13922a411bb6559b8c08404695\",\"name\":\"games647\"}";
+
+    private static final HttpTransport UPSTREAM = (client, request) -> new RecordedResponse(request, 200, PROFILE_JSON);
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void sameSeedSameFaults() throws Exception {
+        FaultProfile profile = FaultProfile.flaky();
+        profile.setLatency(0, 0);
+
+        assertEquals(outcomes(profile, 42), outcomes(profile, 42));
+    }
+
+    @Test
+    void rateLimitStorm() throws Exception {
+        FaultProfile profile = new FaultProfile();
+        profile.setRateLimitStorm(1, 3);
+
+        FaultInjectingTransport transport = new FaultInjectingTransport(UPSTREAM, profile, 1);
+        assertAll(
+                () -> assertEquals(429, transport.send(client, get(PROFILE_URL)).statusCode()),
+                () -> assertEquals(429, transport.send(client, get(PROFILE_URL)).statusCode()),
+                () -> assertEquals(429, transport.send(client, get(PROFILE_URL)).statusCode())
+        );
+    }
+
+    @Test
+    void connectionReset() {
+        FaultProfile profile = new FaultProfile();
+        profile.setConnectionResetRate(1);
+
+        FaultInjectingTransport transport = new FaultInjectingTransport(UPSTREAM, profile, 1);
+        assertThrows(IOException.class, () -> transport.send(client, get(PROFILE_URL)));
+    }
+
+    @Test
+    void slowResponseTimesOut() {
+        FaultProfile profile = new FaultProfile();
+        profile.setSlowResponses(1, 10_000);
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create(PROFILE_URL)).timeout(Duration.ofMillis(10)).build();
+        FaultInjectingTransport transport = new FaultInjectingTransport(UPSTREAM, profile, 1);
+        assertThrows(HttpTimeoutException.class, () -> transport.send(client, request));
+    }
+
+    @Test
+    void resolverRateLimited() throws Exception {
+        FaultProfile profile = new FaultProfile();
+        profile.setRateLimitStorm(1, 100);
+
+        Options options = new Options();
+        options.setTransport(new FaultInjectingTransport(UPSTREAM, profile, 1));
+        try (MojangResolver resolver = new MojangResolver(options)) {
+            assertThrows(RateLimitException.class, () -> resolver.findProfile("games647"));
+        }
+    }
+
+    @Test
+    void resolverTruncatedJson() throws Exception {
+        FaultProfile profile = new FaultProfile();
+        profile.setTruncateRate(1);
+
+        Options options = new Options();
+        options.setTransport(new FaultInjectingTransport(UPSTREAM, profile, 1));
+        try (MojangResolver resolver = new MojangResolver(options)) {
+            assertThrows(IOException.class, () -> resolver.findProfile("games647"));
+        }
+    }
+
+    @Test
+    void resolverServerError() throws Exception {
+        FaultProfile profile = new FaultProfile();
+        profile.setServerErrorRate(1);
+
+        Options options = new Options();
+        options.setTransport(new FaultInjectingTransport(UPSTREAM, profile, 1));
+        try (MojangResolver resolver = new MojangResolver(options)) {
+            assertThrows(IOException.class, () -> resolver.findProfile("games647"));
+        }
+    }
+
+    @Test
+    void resolverServesStale() throws Exception {
+        FaultProfile profile = new FaultProfile();
+        profile.setServerErrorRate(1);
+
+        SimpleMetrics metrics = new SimpleMetrics();
+        MemoryCache cache = new MemoryCache(Duration.ofMillis(1), 10, Duration.ofMillis(1), 10, metrics);
+        cache.setGracePeriod(Duration.ofMinutes(1));
+        cache.add(new Profile(UUID.fromString("0aaa2c13-922a-411b-b655-9b8c08404695"), "games647"));
+        Thread.sleep(10);
+
+        Options options = new Options();
+        options.setCache(cache);
+        options.setMetrics(metrics);
+        options.setTransport(new FaultInjectingTransport(UPSTREAM, profile, 1));
+        try (MojangResolver resolver = new MojangResolver(options)) {
+            assertAll(
+                    () -> assertEquals("games647", resolver.findProfile("Games647").map(Profile::getName).orElse(null)),
+                    () -> assertEquals(1, metrics.getStaleHits(CacheType.PROFILE)),
+                    () -> assertThrows(IOException.class, () -> resolver.findProfile("unknown"))
+            );
+        }
+    }
+
+    @Test
+    void resolverBulkLookup() throws Exception {
+        List<String> paths = new ArrayList<>();
+        HttpTransport bulk = (client, request) -> {
+            paths.add(request.uri().getPath());
+            return new RecordedResponse(request, 200, '[' + PROFILE_JSON + ']');
+        };
+
+        SimpleMetrics metrics = new SimpleMetrics();
+        MemoryCache cache = new MemoryCache(metrics);
+        cache.add(new Profile(UUID.randomUUID(), "cached"));
+
+        String[] names = new String[22];
+        for (int i = 0; i < 20; i++) {
+            names[i] = "player" + i;
+        }
+
+        names[20] = "Cached";
+        names[21] = "PLAYER0";
+
+        Options options = new Options();
+        options.setCache(cache);
+        options.setMetrics(metrics);
+        options.setTransport(bulk);
+        try (MojangResolver resolver = new MojangResolver(options)) {
+            assertAll(
+                    () -> assertEquals(2, resolver.findProfiles(names).size()),
+                    () -> assertEquals(List.of("/profiles/minecraft", "/profiles/minecraft"), paths),
+                    () -> assertEquals(10, metrics.getBatchRatio()),
+                    () -> assertTrue(cache.getByName("games647").isPresent())
+            );
+        }
+    }
+
+    @Test
+    void resolverRefreshKeepsNameRequests() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        HttpTransport upstream = (client, request) -> {
+            requests.incrementAndGet();
+            String path = request.uri().getPath();
+            String name = path.substring(path.lastIndexOf('/') + 1);
+            String json = "{\"id\":\"" + UUIDAdapter.toMojangId(UUID.randomUUID()) + "\",\"name\":\"" + name + "\"}";
+            return new RecordedResponse(request, 200, json);
+        };
+
+        SimpleMetrics metrics = new SimpleMetrics();
+        MemoryCache cache = new MemoryCache(metrics);
+        for (int i = 0; i < 5; i++) {
+            cache.add(new Profile(UUID.randomUUID(), "cached" + i));
+        }
+
+        Options options = new Options();
+        options.setCache(cache);
+        options.setMetrics(metrics);
+        options.setTransport(upstream);
+        options.setRefreshAfter(Duration.ZERO);
+        options.setMaxRefreshRequests(100);
+        try (MojangResolver resolver = new MojangResolver(options)) {
+            for (int i = 0; i < 5; i++) {
+                resolver.findProfile("cached" + i);
+            }
+
+            long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (requests.get() < 5 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+
+            assertAll(
+                    () -> assertEquals(5, requests.get()),
+                    () -> assertEquals(0, metrics.getRateLimitGrants() + metrics.getRateLimitRejections()),
+                    () -> assertTrue(resolver.findProfile("uncached").isPresent()),
+                    () -> assertEquals(1, metrics.getRateLimitGrants())
+            );
+        }
+    }
+
+    private List<String> outcomes(FaultProfile profile, long seed) throws InterruptedException {
+        FaultInjectingTransport transport = new FaultInjectingTransport(UPSTREAM, profile, seed);
+
+        List<String> outcomes = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            try {
+                outcomes.add(transport.send(client, get(PROFILE_URL)).body());
+            } catch (IOException ioEx) {
+                outcomes.add(ioEx.getClass().getSimpleName());
+            }
+        }
+
+        return outcomes;
+    }
+
+    private static HttpRequest get(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).GET().build();
+    }
+}
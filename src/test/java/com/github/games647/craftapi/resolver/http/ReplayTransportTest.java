@@ -0,0 +1,163 @@
+package com.github.games647.craftapi.resolver.http;
+
+import com.github.games647.craftapi.model.Profile;
+import com.github.games647.craftapi.resolver.MojangResolver;
+import com.github.games647.craftapi.resolver.Options;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReplayTransportTest {
+
+    private static final String PROFILE_URL = "https://api.mojang.com/users/profiles/minecraft/games647";
+    private static final String PROFILE_JSON = "{\"id\":\"0aaa2c13922a411bb6559b8c08404695\",\"name\":\"games647\"}";
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = Files.createTempFile("craftapi", ".traffic");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void replayInRecordedOrder() throws Exception {
+        try (RecordingTransport recorder = new RecordingTransport(respondWith(200, "first"), file)) {
+            recorder.send(client, get(PROFILE_URL));
+        }
+
+        // continue the existing file
+        try (RecordingTransport recorder = new RecordingTransport(respondWith(204, "second"), file)) {
+            recorder.send(client, get(PROFILE_URL));
+        }
+
+        ReplayTransport replay = new ReplayTransport(file, 0);
+        assertAll(
+                () -> assertEquals(1, replay.size()),
+                () -> assertEquals("first", replay.send(client, get(PROFILE_URL)).body()),
+                () -> assertEquals(204, replay.send(client, get(PROFILE_URL)).statusCode()),
+                () -> assertEquals("first", replay.send(client, get(PROFILE_URL)).body(), "Should start again")
+        );
+    }
+
+    @Test
+    void matchRequestBody() throws Exception {
+        String bulkUrl = "https://api.mojang.com/profiles/minecraft";
+        try (RecordingTransport recorder = new RecordingTransport(respondWith(200, "first"), file)) {
+            recorder.send(client, post(bulkUrl, "[\"games647\"]"));
+        }
+
+        try (RecordingTransport recorder = new RecordingTransport(respondWith(200, "second"), file)) {
+            recorder.send(client, post(bulkUrl, "[\"xPaw\"]"));
+        }
+
+        ReplayTransport replay = new ReplayTransport(file, 0);
+        assertAll(
+                () -> assertEquals(2, replay.size()),
+                () -> assertEquals("second", replay.send(client, post(bulkUrl, "[\"xPaw\"]")).body()),
+                () -> assertEquals("first", replay.send(client, post(bulkUrl, "[\"games647\"]")).body()),
+                () -> assertThrows(IOException.class, () -> replay.send(client, post(bulkUrl, "[]")))
+        );
+    }
+
+    @Test
+    void unknownRequest() throws Exception {
+        try (RecordingTransport recorder = new RecordingTransport(respondWith(200, "body"), file)) {
+            recorder.send(client, get(PROFILE_URL));
+        }
+
+        ReplayTransport replay = new ReplayTransport(file, 0);
+        assertThrows(IOException.class, () -> replay.send(client, get(PROFILE_URL + "abc")));
+    }
+
+    @Test
+    void readAll() throws Exception {
+        try (RecordingTransport recorder = new RecordingTransport(respondWith(200, "body"), file)) {
+            recorder.send(client, get(PROFILE_URL));
+            recorder.send(client, get(PROFILE_URL + "abc"));
+        }
+
+        List<TrafficRecord> records = TrafficLog.readAll(file);
+        assertAll(
+                () -> assertEquals(2, records.size()),
+                () -> assertEquals("GET", records.get(0).getMethod()),
+                () -> assertEquals(PROFILE_URL + "abc", records.get(1).getUri()),
+                () -> assertTrue(records.get(0).getStartMicros() <= records.get(1).getStartMicros())
+        );
+    }
+
+    @Test
+    void truncatedRecording() throws Exception {
+        try (RecordingTransport recorder = new RecordingTransport(respondWith(200, "body"), file)) {
+            recorder.send(client, get(PROFILE_URL));
+        }
+
+        byte[] content = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(content, content.length - 2));
+        assertAll(
+                () -> assertThrows(IOException.class, () -> TrafficLog.readAll(file)),
+                () -> assertThrows(IOException.class, () -> new ReplayTransport(file, 0)),
+                () -> assertThrows(IOException.class, () -> new RecordingTransport(respondWith(200, "body"), file))
+        );
+    }
+
+    @Test
+    void continueOtherVersion() throws Exception {
+        try (RecordingTransport recorder = new RecordingTransport(respondWith(200, "body"), file)) {
+            recorder.send(client, get(PROFILE_URL));
+        }
+
+        // short version behind the int magic
+        byte[] content = Files.readAllBytes(file);
+        content[5] = 1;
+        Files.write(file, content);
+        assertThrows(IOException.class, () -> new RecordingTransport(respondWith(200, "body"), file));
+    }
+
+    @Test
+    void resolveOffline() throws Exception {
+        try (RecordingTransport recorder = new RecordingTransport(respondWith(200, PROFILE_JSON), file)) {
+            recorder.send(client, get(PROFILE_URL));
+        }
+
+        Options options = new Options();
+        options.setTransport(new ReplayTransport(file, 0));
+        try (MojangResolver resolver = new MojangResolver(options)) {
+            Optional<Profile> profile = resolver.findProfile("games647");
+            assertEquals("games647", profile.map(Profile::getName).orElse(null));
+        }
+    }
+
+    private static HttpTransport respondWith(int statusCode, String body) {
+        return (client, request) -> new RecordedResponse(request, statusCode, body);
+    }
+
+    private static HttpRequest get(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).GET().build();
+    }
+
+    private static HttpRequest post(String url, String body) {
+        return HttpRequest.newBuilder(URI.create(url)).POST(HttpRequest.BodyPublishers.ofString(body)).build();
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * SPDX-License-Identifier: MIT
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015-2022 games647 and contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.games647.craftapi.resolver.ratelimiter;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GradientConcurrencyLimiterTest {
+
+    private static final long BASE_RTT = TimeUnit.MILLISECONDS.toNanos(50);
+
+    @Test
+    void rejectAboveLimit() throws Exception {
+        ConcurrencyLimiter limiter = new GradientConcurrencyLimiter(2, 1, 10, 0, 0);
+        assertTrue(limiter.acquire(), "Filling up");
+        assertTrue(limiter.acquire(), "Filling up");
+        assertFalse(limiter.acquire(), "Limit reached and no queue");
+
+        limiter.onIgnored();
+        assertTrue(limiter.acquire(), "Slot should be released");
+    }
+
+    @Test
+    void queueTimeout() throws Exception {
+        ConcurrencyLimiter limiter = new GradientConcurrencyLimiter(1, 1, 10, 1, 10);
+        assertTrue(limiter.acquire(), "Filling up");
+        assertFalse(limiter.acquire(), "Should time out in queue");
+        assertEquals(1, limiter.getInFlight());
+    }
+
+    @Test
+    void queuedRequestProceeds() throws Exception {
+        ConcurrencyLimiter limiter = new GradientConcurrencyLimiter(1, 1, 10, 1, TimeUnit.SECONDS.toMillis(10));
+        assertTrue(limiter.acquire(), "Filling up");
+
+        Thread releaser = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException ignored) {
+                // just release earlier
+            }
+
+            limiter.onSuccess(BASE_RTT);
+        });
+        releaser.start();
+
+        assertTrue(limiter.acquire(), "Should get the released slot");
+        releaser.join();
+    }
+
+    @Test
+    void growOnStableLatency() throws Exception {
+        ConcurrencyLimiter limiter = new GradientConcurrencyLimiter(4, 1, 100, 0, 0);
+        for (int i = 0; i < 100; i++) {
+            fill(limiter);
+            int inFlight = limiter.getInFlight();
+            for (int j = 0; j < inFlight; j++) {
+                limiter.onSuccess(BASE_RTT);
+            }
+        }
+
+        assertTrue(limiter.getLimit() > 4, "Limit should grow " + limiter.getLimit());
+    }
+
+    @Test
+    void shrinkOnRisingLatency() throws Exception {
+        ConcurrencyLimiter limiter = new GradientConcurrencyLimiter(50, 1, 100, 0, 0);
+        for (int i = 0; i < 50; i++) {
+            assertTrue(limiter.acquire());
+            limiter.onSuccess(BASE_RTT);
+        }
+
+        int before = limiter.getLimit();
+        for (int i = 0; i < 50; i++) {
+            assertTrue(limiter.acquire());
+            limiter.onSuccess(BASE_RTT * 10);
+        }
+
+        assertTrue(limiter.getLimit() < before, "Limit should shrink " + limiter.getLimit());
+    }
+
+    @Test
+    void shrinkOnDrop() throws Exception {
+        ConcurrencyLimiter limiter = new GradientConcurrencyLimiter(10, 1, 100, 0, 0);
+        assertTrue(limiter.acquire());
+        limiter.onDropped();
+
+        assertEquals(9, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    private static void fill(ConcurrencyLimiter limiter) throws InterruptedException {
+        while (limiter.acquire()) {
+            // acquire all available slots
+        }
+    }
+}